@@ -965,6 +965,18 @@ class AStarPathfinder {
             pathCache.entrySet().removeIf(entry -> !entry.getValue().isValid());
         }
         
+        List<BlockPos> path = findPath(BlockAccess.of(client.world), start, end);
+        if (path != null) {
+            // Cache the successful path
+            pathCache.put(cacheKey, new CachedPath(path));
+        }
+        return path;
+    }
+    
+    /**
+     * Uncached search over any block source, so it can also run without a client (benchmarks)
+     */
+    List<BlockPos> findPath(BlockAccess blocks, BlockPos start, BlockPos end) {
         Node startNode = new Node(start, null, 0, getHeuristic(start, end));
         PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingDouble(Node::getFCost));
         Map<BlockPos, Node> allNodes = new HashMap<>();
@@ -984,10 +996,7 @@ class AStarPathfinder {
             Node current = openSet.poll();
 
             if (current.position.equals(end)) {
-                List<BlockPos> path = reconstructPath(current);
-                // Cache the successful path
-                pathCache.put(cacheKey, new CachedPath(path));
-                return path;
+                return reconstructPath(current);
             }
 
             // PERFORMANCE OPTIMIZATION: Only check 4 cardinal directions for speed
@@ -998,11 +1007,11 @@ class AStarPathfinder {
 
             for (BlockPos neighborPos : neighbors) {
                 // Simple gravity handling
-                if (isTraversable(client, neighborPos.down())) {
+                if (isTraversable(blocks, neighborPos.down())) {
                     neighborPos = neighborPos.down();
-                } else if (isTraversable(client, neighborPos) && !isTraversable(client, neighborPos.down())) {
+                } else if (isTraversable(blocks, neighborPos) && !isTraversable(blocks, neighborPos.down())) {
                     // This is a valid step
-                } else if (isTraversable(client, neighborPos.up()) && isTraversable(client, neighborPos)) {
+                } else if (isTraversable(blocks, neighborPos.up()) && isTraversable(blocks, neighborPos)) {
                     // This is a jump-up
                     neighborPos = neighborPos.up();
                 } else {
@@ -1030,11 +1039,11 @@ class AStarPathfinder {
         return null; // No path found
     }
 
-    private boolean isTraversable(MinecraftClient client, BlockPos pos) {
+    private boolean isTraversable(BlockAccess blocks, BlockPos pos) {
         // A block is traversable if it's not solid and the block below it is solid (for standing)
         // This is a simplification; a real one would handle water, slabs, etc.
-        return !client.world.getBlockState(pos).isSolid() && 
-               !client.world.getBlockState(pos.up()).isSolid(); // Ensure head-room
+        return !blocks.getBlockState(pos).isSolid() && 
+               !blocks.getBlockState(pos.up()).isSolid(); // Ensure head-room
     }
 
     private double getMovementCost(BlockPos from, BlockPos to) {
@@ -0,0 +1,450 @@
+package com.example.chipper_chopper;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+/**
+ * Headless load test of many agents sharing one synthetic forest, to see how the AI's share of
+ * the server tick grows with the number of active agents.
+ *
+ * Every agent has its own {@link TreeChopperAI.AIState} and {@link TreeChopperAI.OptimizedIntelligence}
+ * and runs the AI's own turn code through {@link TreeChopperAI#runTurn} every third tick, on the
+ * tick the server's {@link AgentScheduler} staggers it to: in serial mode one after another under
+ * the per-tick budget, as {@code TreeChopperAI.tick} does, in parallel mode all agents due at once
+ * on the {@link AgentPlanner} pool, as the plan phase does. The client of each agent is modelled as in {@link ForestSimulator}: it walks straight at
+ * the active target, breaks the block its crosshair hits first in a fixed number of ticks, reports
+ * mining progress and picks up the logs it dropped. Blocks are read from a {@link VoxelWorld}
+ * without a turn memo, and tree lookups scan a list of bases rather than the tree index, so
+ * compare runs of this harness with each other, not with a live server.
+ *
+ * Writes one CSV row per agent count and mode: MSPT percentiles (AI time per tick), AI time
+ * per agent per game tick, agents deferred by the budget, allocation rate of the AI at 20 TPS and
+ * heap growth over the run.
+ * Usage: {@code AgentLoadTest <csv file> [agent counts, comma separated] [ticks] [warmup ticks] [seed] [serial|parallel|both]}
+ */
+final class AgentLoadTest {
+    // Same values as TreeChopperAI
+    private static final int AI_INTERVAL = 3;
+    private static final long AI_TICK_BUDGET_NANOS = 5_000_000;
+
+    private static final int AREA_PER_AGENT = 32; // Side of the patch of forest each agent starts in
+    private static final double DENSITY = 0.03;
+    private static final double REACH = 4.5;
+    private static final double EYE_HEIGHT = 1.62;
+    private static final double PICKUP_DISTANCE = 1.5;
+    private static final double WALK_PER_TICK = 4.317 / 20;
+    private static final int LOG_BREAK_TICKS = 12; // Roughly an iron axe
+    private static final int LEAF_BREAK_TICKS = 4;
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    static final String CSV_HEADER = "agents,mode,ticks,logs,mspt_p50_ms,mspt_p99_ms,mspt_max_ms,"
+        + "ai_ns_per_agent_tick,deferred_per_tick,alloc_mb_per_s,heap_growth_kb";
+
+    record Row(int agents, String mode, long ticks, int logs, LatencyHistogram.Summary mspt, long aiNanos, long deferred,
+               long allocatedBytes, long heapGrowthBytes) {
+        String toCsv() {
+            return String.format(Locale.ROOT, "%d,%s,%d,%d,%.3f,%.3f,%.3f,%d,%.2f,%.2f,%d",
+                agents, mode, ticks, logs, mspt.p50() / 1e6, mspt.p99() / 1e6, mspt.max() / 1e6,
+                aiNanos / ((long) agents * ticks), ticks == 0 ? 0 : (double) deferred / ticks,
+                allocatedBytes / (1024.0 * 1024.0) / (ticks / 20.0), heapGrowthBytes / 1024);
+        }
+    }
+
+    private final VoxelWorld world;
+    private final LongOpenHashSet bases = new LongOpenHashSet(); // What the tree index would hold
+    private final PerfStats perf = new PerfStats();
+    private final List<SyntheticAgent> agents = new ArrayList<>();
+    private final Map<UUID, SyntheticAgent> byId = new HashMap<>();
+    private final AgentScheduler scheduler = new AgentScheduler(AI_INTERVAL);
+    private final boolean parallel;
+    private int tick;
+    private int logs;
+
+    AgentLoadTest(VoxelWorld world, int count, boolean parallel) {
+        this.world = world;
+        this.parallel = parallel;
+        for (long base : SyntheticForest.treeBases(world)) {
+            bases.add(base);
+        }
+
+        // One agent in the middle of each patch, moved off any trunk it would spawn in
+        int columns = MathHelper.ceil(Math.sqrt(count));
+        int origin = -columns * AREA_PER_AGENT / 2 + AREA_PER_AGENT / 2;
+        for (int i = 0; i < count; i++) {
+            int x = origin + i % columns * AREA_PER_AGENT;
+            int z = origin + i / columns * AREA_PER_AGENT;
+            while (!world.getBlockState(x, SyntheticForest.GROUND_Y, z).isAir()) {
+                x++;
+            }
+            SyntheticAgent agent = new SyntheticAgent(new UUID(0, i), x + 0.5, z + 0.5);
+            agents.add(agent);
+            byId.put(agent.id, agent);
+            scheduler.add(agent.id);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: AgentLoadTest <csv file> [agent counts] [ticks] [warmup ticks] [seed] [serial|parallel|both]");
+            System.exit(2);
+        }
+        Path csv = Path.of(args[0]);
+        String[] counts = (args.length > 1 ? args[1] : "1,10,50,100,200").split(",");
+        long ticks = args.length > 2 ? Long.parseLong(args[2]) : 6000;
+        long warmup = args.length > 3 ? Long.parseLong(args[3]) : 600;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+        String modes = args.length > 5 ? args[5].toLowerCase(Locale.ROOT) : "both";
+
+        SyntheticForest.bootstrap();
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        System.out.println(CSV_HEADER);
+        for (String count : counts) {
+            int agents = Integer.parseInt(count.trim());
+            int radius = MathHelper.ceil(Math.sqrt(agents)) * AREA_PER_AGENT / 2 + AREA_PER_AGENT;
+            for (boolean parallel : new boolean[] {false, true}) {
+                if (!modes.equals("both") && modes.equals("parallel") != parallel) {
+                    continue;
+                }
+                VoxelWorld world = SyntheticForest.generate(SyntheticForest.Species.MIXED, DENSITY, radius, seed);
+                Row row = new AgentLoadTest(world, agents, parallel).run(warmup, ticks);
+                lines.add(row.toCsv());
+                System.out.println(row.toCsv());
+            }
+        }
+
+        if (csv.getParent() != null) {
+            Files.createDirectories(csv.getParent());
+        }
+        Files.write(csv, lines);
+        System.out.println("Wrote " + csv);
+    }
+
+    /**
+     * Run {@code warmup} unmeasured ticks, then {@code ticks} measured ones.
+     */
+    Row run(long warmup, long ticks) {
+        for (long i = 0; i < warmup; i++) {
+            tick(null);
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Measurement measurement = new Measurement();
+        int logsBefore = logs;
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        for (long i = 0; i < ticks; i++) {
+            tick(measurement);
+        }
+        System.gc();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+
+        return new Row(agents.size(), parallel ? "parallel" : "serial", ticks, logs - logsBefore, measurement.mspt.summary(),
+            measurement.aiNanos, measurement.deferred, measurement.allocatedBytes.get(), heapAfter - heapBefore);
+    }
+
+    // What the measured ticks add up; allocations are counted around the agents' turns only
+    private static final class Measurement {
+        final LatencyHistogram mspt = new LatencyHistogram();
+        final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long aiNanos;
+        long deferred;
+        final AtomicLong allocatedBytes = new AtomicLong(); // Summed over the threads the turns ran on
+    }
+
+    /**
+     * One game tick: every client moves and mines, then the agents due this tick take turns.
+     */
+    private void tick(Measurement measurement) {
+        tick++;
+        TreeChopperAI.setTick(tick);
+        for (SyntheticAgent agent : agents) {
+            agent.clientTick();
+        }
+
+        long start = System.nanoTime();
+        scheduler.advanceTo(tick);
+        int deferred = 0;
+        if (parallel) {
+            List<Runnable> turns = new ArrayList<>();
+            for (UUID id : scheduler.due()) {
+                SyntheticAgent agent = byId.get(id);
+                if (!TreeChopperAI.isParked(agent.state, agent.blockPos())) {
+                    turns.add(() -> turn(agent, measurement));
+                }
+            }
+            AgentPlanner.runAll(turns);
+            scheduler.run(Long.MAX_VALUE, id -> false); // Planned - they only wait for their next turn, as on the server
+        } else {
+            deferred = scheduler.run(AI_TICK_BUDGET_NANOS, id -> {
+                SyntheticAgent agent = byId.get(id);
+                if (TreeChopperAI.isParked(agent.state, agent.blockPos())) {
+                    return false; // Asleep, as on the server
+                }
+                turn(agent, measurement);
+                return true;
+            });
+        }
+        long elapsed = System.nanoTime() - start;
+        if (measurement != null) {
+            measurement.mspt.record(elapsed);
+            measurement.aiNanos += elapsed;
+            measurement.deferred += deferred;
+        }
+    }
+
+    private static void turn(SyntheticAgent agent, Measurement measurement) {
+        long allocatedBefore = measurement != null ? measurement.threads.getCurrentThreadAllocatedBytes() : 0;
+        TreeChopperAI.runTurn(agent, agent.state, agent.intelligence);
+        if (measurement != null) {
+            measurement.allocatedBytes.addAndGet(measurement.threads.getCurrentThreadAllocatedBytes() - allocatedBefore);
+        }
+    }
+
+    // Broken by a client: every agent's tree model sees it, as TreeChopperAI.onBlockChanged does
+    private void breakBlock(BlockPos pos) {
+        world.setBlockState(pos.getX(), pos.getY(), pos.getZ(), AIR);
+        long packed = pos.asLong();
+        for (SyntheticAgent agent : agents) {
+            if (agent.state.treeModel != null) {
+                agent.state.treeModel.onBlockChanged(packed, AIR);
+            }
+        }
+        bases.remove(packed);
+    }
+
+    /**
+     * One agent: the AI's state, the player it drives and a simple model of its client.
+     */
+    private final class SyntheticAgent implements AgentHost {
+        final UUID id;
+        final TreeChopperAI.AIState state = new TreeChopperAI.AIState();
+        final TreeChopperAI.OptimizedIntelligence intelligence = new TreeChopperAI.OptimizedIntelligence(tick);
+        private final List<Vec3d> items = new ArrayList<>(); // Logs this agent dropped
+        private double x;
+        private double z;
+        private float yaw;
+        private float pitch;
+        private BlockPos breaking;
+        private int breakTicks;
+
+        SyntheticAgent(UUID id, double x, double z) {
+            this.id = id;
+            this.x = x;
+            this.z = z;
+        }
+
+        void clientTick() {
+            walk();
+            mine();
+            Iterator<Vec3d> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                Vec3d item = iterator.next();
+                double dx = item.x - x;
+                double dz = item.z - z;
+                if (dx * dx + dz * dz <= PICKUP_DISTANCE * PICKUP_DISTANCE) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        // Straight at the active target, stopping in reach of a tree (trunks do not block it)
+        private void walk() {
+            BlockPos target = null;
+            double stop = 0;
+            if (state.currentTask == TreeChopperAI.AIState.Task.REPOSITIONING && state.repositionTarget != null) {
+                target = state.repositionTarget;
+            } else if (state.targetTree != null && (state.currentTask == TreeChopperAI.AIState.Task.MOVING_TO_TREE
+                || state.currentTask == TreeChopperAI.AIState.Task.CHOPPING
+                || state.currentTask == TreeChopperAI.AIState.Task.CLEARING_LEAVES)) {
+                target = state.targetTree;
+                stop = REACH - 1;
+            } else if (state.targetItem != null && state.currentTask == TreeChopperAI.AIState.Task.MOVING_TO_ITEM) {
+                target = state.targetItem;
+            }
+            if (target == null) {
+                return;
+            }
+            double dx = target.getX() + 0.5 - x;
+            double dz = target.getZ() + 0.5 - z;
+            double distance = Math.sqrt(dx * dx + dz * dz);
+            if (distance > stop && distance > 1e-6) {
+                double step = Math.min(WALK_PER_TICK, distance - stop);
+                x += dx / distance * step;
+                z += dz / distance * step;
+            }
+        }
+
+        // The client breaks whatever its crosshair hits first on the way to the mining target
+        private void mine() {
+            BlockPos target = state.currentTask == TreeChopperAI.AIState.Task.CLEARING_LEAVES ? state.currentLeafTarget
+                : state.currentTask == TreeChopperAI.AIState.Task.CHOPPING ? state.targetTree
+                : null;
+            if (target == null) {
+                breaking = null;
+                return;
+            }
+            if (pos().add(0, EYE_HEIGHT, 0).distanceTo(Vec3d.ofCenter(target)) > REACH) {
+                if (tick % AI_INTERVAL == 0) {
+                    state.reports.add(ClientReport.LINE_OF_SIGHT_FAILURE);
+                }
+                breaking = null;
+                return;
+            }
+
+            VoxelRay.Trace sight = world.sightLine(blockPos(), target);
+            BlockPos aimed = sight.firstLeaf() != null ? sight.firstLeaf()
+                : sight.firstBlocker() != null && TreeChopperAI.isLogBlock(world.getBlockState(sight.firstBlocker())) ? sight.firstBlocker()
+                : target;
+            BlockState aimedState = world.getBlockState(aimed);
+            if (aimedState.isAir()) {
+                breaking = null;
+                return;
+            }
+            if (!aimed.equals(breaking)) {
+                breaking = aimed;
+                breakTicks = TreeChopperAI.isLogBlock(aimedState) ? LOG_BREAK_TICKS : LEAF_BREAK_TICKS;
+            }
+            if (--breakTicks > 0) {
+                if (breakTicks % AI_INTERVAL == 0) {
+                    state.reports.add(ClientReport.MINING_PROGRESS);
+                }
+                return;
+            }
+
+            breakBlock(aimed);
+            if (TreeChopperAI.isLogBlock(aimedState)) {
+                logs++;
+                items.add(new Vec3d(aimed.getX() + 0.5, SyntheticForest.GROUND_Y, aimed.getZ() + 0.5));
+            }
+            state.reports.add(ClientReport.MINING_PROGRESS);
+            breaking = null;
+        }
+
+        @Override
+        public BlockAccess blocks() {
+            return world;
+        }
+
+        @Override
+        public PerfStats perf() {
+            return perf;
+        }
+
+        @Override
+        public ServerWorld serverWorld() {
+            return null;
+        }
+
+        @Override
+        public Vec3d pos() {
+            return new Vec3d(x, SyntheticForest.GROUND_Y, z);
+        }
+
+        @Override
+        public BlockPos blockPos() {
+            return new BlockPos(MathHelper.floor(x), SyntheticForest.GROUND_Y, MathHelper.floor(z));
+        }
+
+        @Override
+        public double eyeHeight() {
+            return EYE_HEIGHT;
+        }
+
+        @Override
+        public float yaw() {
+            return yaw;
+        }
+
+        @Override
+        public float pitch() {
+            return pitch;
+        }
+
+        @Override
+        public void setRotation(float yaw, float pitch) {
+            this.yaw = yaw;
+            this.pitch = pitch;
+        }
+
+        @Override
+        public TreeModel treeModel(BlockPos pos) {
+            return TreeModel.of(world, pos);
+        }
+
+        @Override
+        public long[] findTrees(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept) {
+            LongArrayList allowed = new LongArrayList();
+            LongIterator iterator = bases.iterator();
+            while (iterator.hasNext()) {
+                long packed = iterator.nextLong();
+                if (Math.abs(BlockPos.unpackLongX(packed) - origin.getX()) <= radius
+                    && Math.abs(BlockPos.unpackLongZ(packed) - origin.getZ()) <= radius && accept.test(packed)) {
+                    allowed.add(packed);
+                }
+            }
+            return SyntheticForest.nearestBases(allowed.toLongArray(), origin, radius, minDy, maxDy, k);
+        }
+
+        @Override
+        public TreeSearch searchTrees(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept) {
+            long[] result = findTrees(origin, radius, minDy, maxDy, k, accept);
+            return new TreeSearch() {
+                @Override
+                public boolean advance(long budgetNanos, int maxColumns) {
+                    return true;
+                }
+
+                @Override
+                public long[] result() {
+                    return result;
+                }
+            };
+        }
+
+        @Override
+        public boolean isCurrent(TreeSearch search) {
+            return true;
+        }
+
+        @Override
+        public List<Vec3d> nearbyItems(int radius) {
+            List<Vec3d> nearby = new ArrayList<>();
+            BlockPos feet = blockPos();
+            for (Vec3d item : items) {
+                if (Math.abs(item.x - (feet.getX() + 0.5)) <= radius + 0.5 && Math.abs(item.z - (feet.getZ() + 0.5)) <= radius + 0.5) {
+                    nearby.add(item);
+                }
+            }
+            return nearby;
+        }
+
+        @Override
+        public ClientReport pollReport() {
+            return state.reports.poll();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.chipper_chopper;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block predicates the AI calls for nearly every block it reads.
+ *
+ * Each invocation classifies a fixed sample of the forest, so the score is per sample; divide by
+ * the sample size for the per-call cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockPredicateBenchmark {
+    private static final int RADIUS = 24;
+
+    @Param({"OAK", "BIRCH", "SPRUCE", "JUNGLE", "DARK_OAK", "MIXED"})
+    public String species;
+
+    @Param({"0.01", "0.03", "0.06"})
+    public double density;
+
+    private VoxelWorld world;
+    private BlockState[] states; // Every block of the trunk-height layers, as the scans see them
+    private long[] logs;
+
+    @Setup
+    public void setUp() {
+        SyntheticForest.bootstrap();
+        world = SyntheticForest.generate(SyntheticForest.Species.parse(species), density, RADIUS, 42L);
+
+        int minY = SyntheticForest.GROUND_Y - 1;
+        int maxY = SyntheticForest.GROUND_Y + 8;
+        int width = world.maxX() - world.minX() + 1;
+        int depth = world.maxZ() - world.minZ() + 1;
+        states = new BlockState[width * depth * (maxY - minY + 1)];
+        LongArrayList logList = new LongArrayList();
+        int i = 0;
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = world.minZ(); z <= world.maxZ(); z++) {
+                for (int x = world.minX(); x <= world.maxX(); x++) {
+                    BlockState state = world.getBlockState(x, y, z);
+                    states[i++] = state;
+                    if (TreeChopperAI.isLogBlock(state)) {
+                        logList.add(BlockPos.asLong(x, y, z));
+                    }
+                }
+            }
+        }
+        logs = logList.toLongArray();
+    }
+
+    @Benchmark
+    public int isLogBlock() {
+        int count = 0;
+        for (BlockState state : states) {
+            if (TreeChopperAI.isLogBlock(state)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int isTreeBase() {
+        int count = 0;
+        for (long packed : logs) {
+            if (TreeChopperAI.isTreeBase(world, BlockPos.unpackLongX(packed), BlockPos.unpackLongY(packed),
+                    BlockPos.unpackLongZ(packed))) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
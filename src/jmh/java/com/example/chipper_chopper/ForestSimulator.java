@@ -0,0 +1,257 @@
+package com.example.chipper_chopper;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Headless run of one agent's IDLE -> MOVING_TO_TREE -> CHOPPING -> COLLECTING loop over a
+ * synthetic forest.
+ *
+ * Every decision comes from the AI's own code - tree ranking, tree models, next-log selection and
+ * sight lines - reading the {@link VoxelWorld} through {@link BlockAccess}. What the client and
+ * the game do is modelled simply: the agent walks straight at walking speed (trunks do not block
+ * it), breaks the block it is aiming at (the first leaf or log in the way, else the target) in a
+ * fixed number of ticks, and spends a fixed time collecting after each tree.
+ *
+ * Reports trees per minute of game time, blocks read per tree and AI CPU time per tree.
+ * Usage: {@code ForestSimulator [species|ALL] [density] [radius] [minutes] [seed]}
+ */
+final class ForestSimulator {
+    // Same values as TreeChopperAI
+    private static final int AI_INTERVAL = 3;
+    private static final int SEARCH_RADIUS = 16;
+    private static final int EXPLORATION_RADIUS = 25;
+    private static final int MAX_CANDIDATES = 32;
+    private static final double REACH = 4.5;
+    private static final int COLLECT_TICKS = 60;
+
+    private static final double WALK_PER_TICK = 4.317 / 20;
+    private static final int LOG_BREAK_TICKS = 12; // Roughly an iron axe
+    private static final int LEAF_BREAK_TICKS = 4;
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    enum Task {
+        IDLE, MOVING_TO_TREE, CHOPPING, COLLECTING
+    }
+
+    record Report(String forest, int trees, int logs, long ticks, long blockReads, long cpuNanos) {
+        double treesPerMinute() {
+            return ticks == 0 ? 0 : trees * 1200.0 / ticks;
+        }
+
+        long readsPerTree() {
+            return trees == 0 ? 0 : blockReads / trees;
+        }
+
+        double cpuMillisPerTree() {
+            return trees == 0 ? 0 : cpuNanos / 1_000_000.0 / trees;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                "%s: trees=%d logs=%d minutes=%.1f trees/min=%.2f reads/tree=%d cpu/tree=%.3fms",
+                forest, trees, logs, ticks / 1200.0, treesPerMinute(), readsPerTree(), cpuMillisPerTree());
+        }
+    }
+
+    private final VoxelWorld world;
+    private final LongOpenHashSet bases; // What the tree index would hold
+    private final TreeChopperAI.OptimizedIntelligence intelligence = new TreeChopperAI.OptimizedIntelligence(0);
+    private final TreeChopperAI.AIDecisionTracker tracker = new TreeChopperAI.AIDecisionTracker();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private Task task = Task.IDLE;
+    private double x = 0.5;
+    private double z = 0.5;
+    private BlockPos target;
+    private TreeModel model;
+    private BlockPos breaking;
+    private int busyTicks;
+    private int trees;
+    private int logs;
+
+    ForestSimulator(VoxelWorld world) {
+        this.world = world;
+        this.bases = new LongOpenHashSet();
+        for (long base : SyntheticForest.treeBases(world)) {
+            bases.add(base);
+        }
+    }
+
+    public static void main(String[] args) {
+        String species = args.length > 0 ? args[0] : "ALL";
+        double density = args.length > 1 ? Double.parseDouble(args[1]) : 0.03;
+        int radius = args.length > 2 ? Integer.parseInt(args[2]) : 48;
+        double minutes = args.length > 3 ? Double.parseDouble(args[3]) : 10;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+
+        SyntheticForest.bootstrap();
+        for (SyntheticForest.Species forest : SyntheticForest.Species.values()) {
+            if (species.equalsIgnoreCase("ALL") || forest == SyntheticForest.Species.parse(species)) {
+                VoxelWorld world = SyntheticForest.generate(forest, density, radius, seed);
+                Report report = new ForestSimulator(world).run(forest.name(), Math.round(minutes * 1200));
+                System.out.println(report);
+            }
+        }
+    }
+
+    /**
+     * Run until {@code maxTicks} have passed or no tree is left in reach of a search.
+     */
+    Report run(String forest, long maxTicks) {
+        long readsBefore = world.reads();
+        long cpuNanos = 0;
+        long tick = 0;
+        while (tick < maxTicks) {
+            tick++;
+            if (task == Task.MOVING_TO_TREE) {
+                walk();
+            }
+            if (busyTicks > 0 && --busyTicks == 0 && breaking != null) {
+                breakBlock();
+            }
+            if (tick % AI_INTERVAL == 0) {
+                long start = threads.getCurrentThreadCpuTime();
+                boolean working = turn(tick);
+                cpuNanos += threads.getCurrentThreadCpuTime() - start;
+                if (!working) {
+                    break;
+                }
+            }
+        }
+        return new Report(forest, trees, logs, tick, world.reads() - readsBefore, cpuNanos);
+    }
+
+    /**
+     * One agent turn.
+     *
+     * @return {@code false} once there is nothing left to chop
+     */
+    private boolean turn(long tick) {
+        intelligence.advanceTo(tick);
+        BlockPos feet = feet();
+        switch (task) {
+            case IDLE -> {
+                target = findTree(feet, SEARCH_RADIUS);
+                if (target == null) {
+                    target = findTree(feet, EXPLORATION_RADIUS);
+                }
+                if (target == null) {
+                    return false;
+                }
+                model = TreeModel.of(world, target);
+                task = Task.MOVING_TO_TREE;
+            }
+            case MOVING_TO_TREE -> {
+                if (distanceTo(target) <= REACH) {
+                    task = Task.CHOPPING;
+                }
+            }
+            case CHOPPING -> {
+                if (busyTicks > 0) {
+                    return true;
+                }
+                if (!TreeChopperAI.isLogBlock(world.getBlockState(target))) {
+                    BlockPos next = model.isComplete() ? null
+                        : TreeChopperAI.selectNextLog(world, model, feet, target, tracker);
+                    if (next == null) {
+                        if (!model.isComplete()) {
+                            abandonTree();
+                        }
+                        trees++;
+                        task = Task.COLLECTING;
+                        busyTicks = COLLECT_TICKS;
+                        return true;
+                    }
+                    target = next;
+                }
+                // The client breaks whatever its crosshair hits first
+                VoxelRay.Trace sight = world.sightLine(feet, target);
+                if (sight.firstLeaf() != null) {
+                    breaking = sight.firstLeaf();
+                    busyTicks = LEAF_BREAK_TICKS;
+                } else if (sight.firstBlocker() != null && TreeChopperAI.isLogBlock(world.getBlockState(sight.firstBlocker()))) {
+                    breaking = sight.firstBlocker();
+                    busyTicks = LOG_BREAK_TICKS;
+                } else {
+                    breaking = target;
+                    busyTicks = LOG_BREAK_TICKS;
+                }
+            }
+            case COLLECTING -> {
+                if (busyTicks == 0) {
+                    task = Task.IDLE;
+                }
+            }
+        }
+        return true;
+    }
+
+    private BlockPos findTree(BlockPos feet, int radius) {
+        LongArrayList allowed = new LongArrayList(bases.size());
+        LongIterator iterator = bases.iterator();
+        while (iterator.hasNext()) {
+            long packed = iterator.nextLong();
+            if (!intelligence.isBlacklisted(packed)) {
+                allowed.add(packed);
+            }
+        }
+        long[] nearest = SyntheticForest.nearestBases(allowed.toLongArray(), feet, radius, -3, 6, MAX_CANDIDATES);
+        LogDensityGrid logDensity = LogDensityGrid.of(world, nearest, LogDensityGrid.TREE_RADIUS);
+        return TreeRanker.best(nearest, world, logDensity, feet, intelligence.snapshotScorer(radius > SEARCH_RADIUS, radius), -1)
+            .bestTree();
+    }
+
+    // Keep the search from coming back to what is left of the tree
+    private void abandonTree() {
+        LongIterator remaining = model.logIterator();
+        while (remaining.hasNext()) {
+            long log = remaining.nextLong();
+            if (bases.contains(log)) {
+                intelligence.blacklistTarget(BlockPos.fromLong(log), "No selectable logs left");
+            }
+        }
+    }
+
+    private void breakBlock() {
+        boolean log = TreeChopperAI.isLogBlock(world.getBlockState(breaking));
+        world.setBlockState(breaking.getX(), breaking.getY(), breaking.getZ(), AIR);
+        model.onBlockChanged(breaking.asLong(), AIR);
+        bases.remove(breaking.asLong());
+        if (log) {
+            logs++;
+        }
+        breaking = null;
+    }
+
+    private void walk() {
+        double dx = target.getX() + 0.5 - x;
+        double dz = target.getZ() + 0.5 - z;
+        double distance = Math.sqrt(dx * dx + dz * dz);
+        if (distance > REACH - 1) {
+            double step = Math.min(WALK_PER_TICK, distance - (REACH - 1));
+            x += dx / distance * step;
+            z += dz / distance * step;
+        }
+    }
+
+    private double distanceTo(BlockPos pos) {
+        double dx = pos.getX() + 0.5 - x;
+        double dy = pos.getY() + 0.5 - SyntheticForest.GROUND_Y;
+        double dz = pos.getZ() + 0.5 - z;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private BlockPos feet() {
+        return new BlockPos((int) Math.floor(x), SyntheticForest.GROUND_Y, (int) Math.floor(z));
+    }
+}
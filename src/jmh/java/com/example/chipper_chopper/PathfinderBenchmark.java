@@ -0,0 +1,74 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The client's A* search from the forest's origin to a standable spot at the given distance.
+ *
+ * Runs the uncached search, so every invocation pays for the full path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfinderBenchmark {
+    private static final int MAX_NODES = 1000; // As ActionCalculatePathToTarget
+
+    @Param({"OAK", "BIRCH", "SPRUCE", "JUNGLE", "DARK_OAK", "MIXED"})
+    public String species;
+
+    @Param({"0.01", "0.03", "0.06"})
+    public double density;
+
+    @Param({"8", "16"})
+    public int distance;
+
+    private VoxelWorld world;
+    private BlockPos start;
+    private BlockPos end;
+
+    @Setup
+    public void setUp() {
+        SyntheticForest.bootstrap();
+        world = SyntheticForest.generate(SyntheticForest.Species.parse(species), density, distance + 8, 42L);
+        start = SyntheticForest.ORIGIN;
+
+        // First free ground spot on the ring at the given distance, walking around from +x
+        end = start.add(distance, 0, 0);
+        for (int i = 0; i < 8 * distance && !isStandable(end); i++) {
+            int side = i / (2 * distance);
+            int step = i % (2 * distance);
+            end = switch (side) {
+                case 0 -> start.add(distance, 0, -distance + step);
+                case 1 -> start.add(distance - step, 0, distance);
+                case 2 -> start.add(-distance, 0, distance - step);
+                default -> start.add(-distance + step, 0, -distance);
+            };
+        }
+    }
+
+    @Benchmark
+    public List<BlockPos> findPath() {
+        return new AStarPathfinder(MAX_NODES).findPath(world, start, end);
+    }
+
+    private boolean isStandable(BlockPos pos) {
+        return world.getBlockState(pos).isAir() && world.getBlockState(pos.up()).isAir();
+    }
+}
@@ -0,0 +1,498 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * Replays a session recorded with {@code /chipper record} through the AI's own turn code, headless.
+ *
+ * The recorded blocks go into a {@link VoxelWorld} and every turn runs {@link TreeChopperAI#runTurn}
+ * on a host that serves the recorded answers back in the order the turn asks for them. After each
+ * turn the agent's state digest must match the recorded one: a change that alters decisions fails
+ * at the first turn that decided differently, a change that only alters speed shows in the
+ * per-phase latencies and the AI CPU time per task. Block reads go to memory rather than to
+ * chunks, so compare timings between replays, not with the game.
+ *
+ * The session must come from a game with the same block registry (vanilla, or the same mods).
+ * Usage: {@code SessionReplay <session file> [repeats]} - every repeat but the last warms up the JIT.
+ */
+final class SessionReplay {
+    record Section(int x, int y, int z, int[] ids) {
+    }
+
+    record BlockChange(int x, int y, int z, int id) {
+    }
+
+    record Turn(int tick, Vec3d pos, float yaw, float pitch, double eyeHeight, List<Object> answers, long digest) {
+    }
+
+    record Trees(long[] bases) {
+    }
+
+    record Slice(boolean finished, long[] bases) {
+    }
+
+    record Items(List<Vec3d> positions) {
+    }
+
+    /**
+     * A decoded session: palette, then sections, block changes and turns in recorded order.
+     */
+    record Session(String player, int startTick, List<BlockState> palette, List<Object> events, int turns) {
+    }
+
+    /**
+     * The replayed agent asked something the recording cannot answer.
+     */
+    static final class DivergenceException extends RuntimeException {
+        DivergenceException(String message) {
+            super(message);
+        }
+    }
+
+    private final Session session;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    SessionReplay(Session session) {
+        this.session = session;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SessionReplay <session file> [repeats]");
+            System.exit(2);
+        }
+        int repeats = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+        Session session = read(Files.readAllBytes(Path.of(args[0])));
+        System.out.printf(Locale.ROOT, "%s: agent of %s, %d turns, %d block states%n",
+            args[0], session.player(), session.turns(), session.palette().size());
+
+        SessionReplay replay = new SessionReplay(session);
+        for (int run = 1; run <= repeats; run++) {
+            boolean last = run == repeats;
+            if (!replay.run(last)) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Replay the whole session on a fresh agent.
+     *
+     * @return {@code false} if the agent decided differently than in the recording
+     */
+    boolean run(boolean report) {
+        VoxelWorld world = newWorld();
+        TreeChopperAI.AIState state = new TreeChopperAI.AIState();
+        TreeChopperAI.OptimizedIntelligence intelligence = new TreeChopperAI.OptimizedIntelligence(session.startTick());
+        ReplayHost host = new ReplayHost(world);
+        TaskCpu cpu = new TaskCpu();
+        BlockState[] palette = session.palette().toArray(new BlockState[0]);
+        long chain = 0;
+        int turn = 0;
+
+        for (Object event : session.events()) {
+            if (event instanceof Section section) {
+                int baseX = section.x() << 4;
+                int baseY = section.y() << 4;
+                int baseZ = section.z() << 4;
+                for (int i = 0; i < section.ids().length; i++) {
+                    world.setBlockState(baseX + (i & 15), baseY + (i >> 8), baseZ + ((i >> 4) & 15), palette[section.ids()[i]]);
+                }
+            } else if (event instanceof BlockChange change) {
+                BlockState oldState = world.getBlockState(change.x(), change.y(), change.z());
+                BlockState newState = palette[change.id()];
+                world.setBlockState(change.x(), change.y(), change.z(), newState);
+                // As BlockChangeListener forwards it in game
+                if (BlockChangeListener.affectsTrees(oldState, newState) && state.treeModel != null) {
+                    state.treeModel.onBlockChanged(BlockPos.asLong(change.x(), change.y(), change.z()), newState);
+                }
+            } else if (event instanceof Turn recorded) {
+                turn++;
+                TreeChopperAI.setTick(recorded.tick());
+                host.begin(recorded);
+                TreeChopperAI.AIState.Task task = state.currentTask;
+                long digest;
+                long start = threads.getCurrentThreadCpuTime();
+                try {
+                    TreeChopperAI.runTurn(host, state, intelligence);
+                    host.end();
+                    digest = TreeChopperAI.stateDigest(state, host);
+                } catch (DivergenceException e) {
+                    System.out.printf(Locale.ROOT, "Diverged at turn %d (tick %d): %s%n", turn, recorded.tick(), e.getMessage());
+                    return false;
+                }
+                cpu.add(task, threads.getCurrentThreadCpuTime() - start);
+                if (digest != recorded.digest()) {
+                    System.out.printf(Locale.ROOT, "Diverged at turn %d (tick %d): the agent decided differently (%s, target %s)%n",
+                        turn, recorded.tick(), state.currentTask, state.targetTree);
+                    return false;
+                }
+                chain = (chain + digest) * 0x9E3779B97F4A7C15L;
+            }
+        }
+
+        if (report) {
+            System.out.printf(Locale.ROOT, "All %d turns matched, decision digest %016x, %d blocks read%n", turn, chain, world.reads());
+            cpu.print();
+            for (String line : state.perf.describe()) {
+                System.out.println("  " + line);
+            }
+        }
+        return true;
+    }
+
+    private VoxelWorld newWorld() {
+        int minX = 0, minY = 0, minZ = 0, maxX = 0, maxY = 0, maxZ = 0;
+        boolean any = false;
+        for (Object event : session.events()) {
+            if (event instanceof Section section) {
+                minX = any ? Math.min(minX, section.x()) : section.x();
+                minY = any ? Math.min(minY, section.y()) : section.y();
+                minZ = any ? Math.min(minZ, section.z()) : section.z();
+                maxX = any ? Math.max(maxX, section.x()) : section.x();
+                maxY = any ? Math.max(maxY, section.y()) : section.y();
+                maxZ = any ? Math.max(maxZ, section.z()) : section.z();
+                any = true;
+            } else if (event instanceof BlockChange change) {
+                // Captured sections that were empty have no SECTION record
+                minX = any ? Math.min(minX, change.x() >> 4) : change.x() >> 4;
+                minY = any ? Math.min(minY, change.y() >> 4) : change.y() >> 4;
+                minZ = any ? Math.min(minZ, change.z() >> 4) : change.z() >> 4;
+                maxX = any ? Math.max(maxX, change.x() >> 4) : change.x() >> 4;
+                maxY = any ? Math.max(maxY, change.y() >> 4) : change.y() >> 4;
+                maxZ = any ? Math.max(maxZ, change.z() >> 4) : change.z() >> 4;
+                any = true;
+            }
+        }
+        return new VoxelWorld(minX << 4, minY << 4, minZ << 4, (maxX << 4) + 15, (maxY << 4) + 15, (maxZ << 4) + 15);
+    }
+
+    /**
+     * Decode a session and rebuild the block classifier from the flags it was recorded with.
+     */
+    static Session read(byte[] bytes) {
+        SessionFile.Input in = new SessionFile.Input(bytes);
+        if (in.readInt() != SessionFile.MAGIC) {
+            throw new IllegalStateException("Not a Chipper Chopper session");
+        }
+        int version = in.readVarInt();
+        if (version != SessionFile.VERSION) {
+            throw new IllegalStateException("Session version " + version + ", this replayer reads " + SessionFile.VERSION);
+        }
+        int startTick = in.readVarInt();
+        String player = in.readString();
+
+        List<BlockState> palette = new ArrayList<>();
+        Map<BlockState, Integer> recordedFlags = new IdentityHashMap<>();
+        List<Object> events = new ArrayList<>();
+        int turns = 0;
+        int tick = startTick;
+        int blockX = 0, blockY = 0, blockZ = 0;
+        double x = 0, y = 0, z = 0, eyeHeight = 0;
+        float yaw = 0, pitch = 0;
+
+        boolean ended = false;
+        while (!ended && in.hasMore()) {
+            int tag = in.readByte();
+            switch (tag) {
+                case SessionFile.PALETTE -> {
+                    int rawId = in.readVarInt();
+                    int flags = in.readVarInt();
+                    String name = in.readString();
+                    BlockState state = Block.getStateFromRawId(rawId);
+                    if (state == null || !state.toString().equals(name)) {
+                        throw new IllegalStateException("Recorded block state " + name
+                            + " is not in this game's registry - was the session recorded with other mods?");
+                    }
+                    palette.add(state);
+                    recordedFlags.put(state, flags);
+                }
+                case SessionFile.SECTION -> {
+                    int sectionX = in.readSignedVarInt();
+                    int sectionY = in.readSignedVarInt();
+                    int sectionZ = in.readSignedVarInt();
+                    int[] ids = new int[16 * 16 * 16];
+                    for (int i = 0; i < ids.length; ) {
+                        int run = in.readVarInt();
+                        int id = in.readVarInt();
+                        if (run <= 0 || i + run > ids.length || id >= palette.size()) {
+                            throw new IllegalStateException("Malformed section " + sectionX + "," + sectionY + "," + sectionZ);
+                        }
+                        for (int end = i + run; i < end; i++) {
+                            ids[i] = id;
+                        }
+                    }
+                    events.add(new Section(sectionX, sectionY, sectionZ, ids));
+                }
+                case SessionFile.BLOCK -> {
+                    blockX += in.readSignedVarInt();
+                    blockY += in.readSignedVarInt();
+                    blockZ += in.readSignedVarInt();
+                    events.add(new BlockChange(blockX, blockY, blockZ, in.readVarInt()));
+                }
+                case SessionFile.TURN -> {
+                    tick += in.readVarInt();
+                    x = in.readDouble(x);
+                    y = in.readDouble(y);
+                    z = in.readDouble(z);
+                    yaw = in.readFloat(yaw);
+                    pitch = in.readFloat(pitch);
+                    eyeHeight = in.readDouble(eyeHeight);
+                    Vec3d pos = new Vec3d(x, y, z);
+                    BlockPos origin = BlockPos.ofFloored(pos);
+                    List<Object> answers = new ArrayList<>();
+                    long digest = readAnswers(in, pos, origin, answers);
+                    events.add(new Turn(tick, pos, yaw, pitch, eyeHeight, answers, digest));
+                    turns++;
+                }
+                case SessionFile.END -> ended = true;
+                default -> throw new IllegalStateException("Unknown record " + tag);
+            }
+        }
+        if (!ended) {
+            System.out.println("Session has no end record (the server stopped while recording), replaying what it has");
+        }
+
+        BlockClassifier.rebuild(state -> hasFlag(recordedFlags, state, BlockClassifier.LOG),
+            state -> hasFlag(recordedFlags, state, BlockClassifier.LEAF),
+            state -> hasFlag(recordedFlags, state, BlockClassifier.TREE_SOIL));
+        for (Map.Entry<BlockState, Integer> entry : recordedFlags.entrySet()) {
+            if (BlockClassifier.flags(entry.getKey()) != entry.getValue()) {
+                System.out.println("Warning: " + entry.getKey() + " is classified differently than in the recording");
+            }
+        }
+        return new Session(player, startTick, palette, events, turns);
+    }
+
+    // Tree searches and item queries are recorded relative to where the question was asked from
+    private static long readAnswers(SessionFile.Input in, Vec3d pos, BlockPos origin, List<Object> answers) {
+        while (true) {
+            int tag = in.readByte();
+            switch (tag) {
+                case SessionFile.REPORT -> answers.add(ClientReport.values()[in.readVarInt()]);
+                case SessionFile.TREES -> answers.add(new Trees(in.readPositions(origin.getX(), origin.getY(), origin.getZ())));
+                case SessionFile.SEARCH -> {
+                    boolean finished = in.readByte() != 0;
+                    // Relative to where the search was started, which only the replayed search knows
+                    answers.add(new Slice(finished, finished ? in.readPositions(0, 0, 0) : new long[0]));
+                }
+                case SessionFile.ITEMS -> {
+                    int count = in.readVarInt();
+                    List<Vec3d> items = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        items.add(new Vec3d(in.readDouble(pos.x), in.readDouble(pos.y), in.readDouble(pos.z)));
+                    }
+                    answers.add(new Items(items));
+                }
+                case SessionFile.END_TURN -> {
+                    return in.readLong();
+                }
+                default -> throw new IllegalStateException("Unknown answer " + tag);
+            }
+        }
+    }
+
+    private static boolean hasFlag(Map<BlockState, Integer> recordedFlags, BlockState state, int flag) {
+        Integer flags = recordedFlags.get(state);
+        return flags != null && (flags & flag) != 0;
+    }
+
+    /**
+     * AI CPU time by the task each turn started in.
+     */
+    private static final class TaskCpu {
+        private final long[] nanos = new long[TreeChopperAI.AIState.Task.values().length];
+        private final int[] turns = new int[nanos.length];
+
+        void add(TreeChopperAI.AIState.Task task, long cpuNanos) {
+            nanos[task.ordinal()] += cpuNanos;
+            turns[task.ordinal()]++;
+        }
+
+        void print() {
+            for (TreeChopperAI.AIState.Task task : TreeChopperAI.AIState.Task.values()) {
+                int i = task.ordinal();
+                if (turns[i] > 0) {
+                    System.out.printf(Locale.ROOT, "  cpu %s: turns=%d total=%.2fms per turn=%.1fµs%n",
+                        task, turns[i], nanos[i] / 1_000_000.0, nanos[i] / 1000.0 / turns[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Serves one recorded turn's answers back in the order the turn asked for them.
+     */
+    private static final class ReplayHost implements AgentHost {
+        private final VoxelWorld world;
+        private final PerfStats perf = new PerfStats();
+        private Turn turn;
+        private BlockPos blockPos;
+        private int next;
+        private float yaw;
+        private float pitch;
+
+        ReplayHost(VoxelWorld world) {
+            this.world = world;
+        }
+
+        void begin(Turn turn) {
+            this.turn = turn;
+            this.blockPos = BlockPos.ofFloored(turn.pos());
+            this.next = 0;
+            this.yaw = turn.yaw();
+            this.pitch = turn.pitch();
+        }
+
+        void end() {
+            if (next < turn.answers().size()) {
+                throw new DivergenceException("the turn ended before asking for " + describe(turn.answers().get(next)));
+            }
+        }
+
+        private <T> T answer(Class<T> type, String question) {
+            if (next == turn.answers().size()) {
+                throw new DivergenceException("asked for " + question + " after the recorded turn ended");
+            }
+            Object answer = turn.answers().get(next);
+            if (!type.isInstance(answer)) {
+                throw new DivergenceException("asked for " + question + ", the recorded turn asked for " + describe(answer));
+            }
+            next++;
+            return type.cast(answer);
+        }
+
+        private static String describe(Object answer) {
+            return answer instanceof ClientReport report ? "a client report (" + report + ")"
+                : answer instanceof Trees ? "nearest trees"
+                : answer instanceof Slice ? "a tree search slice"
+                : "nearby items";
+        }
+
+        @Override
+        public BlockAccess blocks() {
+            return world;
+        }
+
+        @Override
+        public PerfStats perf() {
+            return perf;
+        }
+
+        @Override
+        public ServerWorld serverWorld() {
+            return null;
+        }
+
+        @Override
+        public Vec3d pos() {
+            return turn.pos();
+        }
+
+        @Override
+        public BlockPos blockPos() {
+            return blockPos;
+        }
+
+        @Override
+        public double eyeHeight() {
+            return turn.eyeHeight();
+        }
+
+        @Override
+        public float yaw() {
+            return yaw;
+        }
+
+        @Override
+        public float pitch() {
+            return pitch;
+        }
+
+        @Override
+        public void setRotation(float yaw, float pitch) {
+            this.yaw = yaw;
+            this.pitch = pitch;
+        }
+
+        @Override
+        public TreeModel treeModel(BlockPos pos) {
+            return TreeModel.of(world, pos);
+        }
+
+        @Override
+        public long[] findTrees(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept) {
+            return answer(Trees.class, "nearest trees").bases();
+        }
+
+        @Override
+        public TreeSearch searchTrees(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept) {
+            return new ReplaySearch(origin);
+        }
+
+        @Override
+        public boolean isCurrent(TreeSearch search) {
+            return search instanceof ReplaySearch;
+        }
+
+        @Override
+        public List<Vec3d> nearbyItems(int radius) {
+            return answer(Items.class, "nearby items").positions();
+        }
+
+        @Override
+        public ClientReport pollReport() {
+            boolean pending = next < turn.answers().size() && turn.answers().get(next) instanceof ClientReport;
+            return pending ? answer(ClientReport.class, "a client report") : null;
+        }
+
+        private final class ReplaySearch implements TreeSearch {
+            private final BlockPos origin;
+            private long[] result = new long[0];
+
+            ReplaySearch(BlockPos origin) {
+                this.origin = origin;
+            }
+
+            @Override
+            public boolean advance(long budgetNanos, int maxColumns) {
+                Slice slice = answer(Slice.class, "a tree search slice");
+                if (slice.finished()) {
+                    long[] bases = slice.bases();
+                    result = new long[bases.length];
+                    for (int i = 0; i < bases.length; i++) {
+                        result[i] = BlockPos.asLong(origin.getX() + BlockPos.unpackLongX(bases[i]),
+                            origin.getY() + BlockPos.unpackLongY(bases[i]), origin.getZ() + BlockPos.unpackLongZ(bases[i]));
+                    }
+                }
+                return slice.finished();
+            }
+
+            @Override
+            public long[] result() {
+                return result;
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.chipper_chopper;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic forests for the benchmarks.
+ *
+ * A forest is a flat grass plain around the origin with trees of one species (or a mix of all of
+ * them) scattered at a given density, in trees per ground block. The same arguments always give
+ * the same world, block for block, so runs on different machines and commits are comparable.
+ */
+final class SyntheticForest {
+    /**
+     * First air block above the grass; agents stand at this height.
+     */
+    static final int GROUND_Y = 64;
+    static final BlockPos ORIGIN = new BlockPos(0, GROUND_Y, 0);
+
+    private static final int CLEARING = 2; // No trunk this close to the origin, so the agent has room to stand
+    private static final int HEADROOM = 40;
+
+    private static boolean bootstrapped;
+
+    enum Species {
+        OAK(Blocks.OAK_LOG, Blocks.OAK_LEAVES),
+        BIRCH(Blocks.BIRCH_LOG, Blocks.BIRCH_LEAVES),
+        SPRUCE(Blocks.SPRUCE_LOG, Blocks.SPRUCE_LEAVES), // 2x2 mega spruce
+        JUNGLE(Blocks.JUNGLE_LOG, Blocks.JUNGLE_LEAVES),
+        DARK_OAK(Blocks.DARK_OAK_LOG, Blocks.DARK_OAK_LEAVES), // Always 2x2
+        MIXED(null, null);
+
+        private final Block log;
+        private final Block leaves;
+
+        Species(Block log, Block leaves) {
+            this.log = log;
+            this.leaves = leaves;
+        }
+
+        static Species parse(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private SyntheticForest() {
+    }
+
+    /**
+     * Bootstrap the game registries once per JVM. There are no data packs, so no tag is bound:
+     * the block classifier is built from the blocks the forests are made of instead.
+     */
+    static synchronized void bootstrap() {
+        if (bootstrapped) {
+            return;
+        }
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+        BlockClassifier.rebuild(state -> isLog(state.getBlock()), state -> isLeaves(state.getBlock()),
+            state -> state.isOf(Blocks.GRASS_BLOCK) || state.isOf(Blocks.DIRT));
+        bootstrapped = true;
+    }
+
+    /**
+     * Forest covering at least {@code radius} blocks around {@link #ORIGIN}.
+     */
+    static VoxelWorld generate(Species species, double density, int radius, long seed) {
+        VoxelWorld world = new VoxelWorld(-radius, GROUND_Y - 4, -radius, radius, GROUND_Y + HEADROOM, radius);
+        BlockState grass = Blocks.GRASS_BLOCK.getDefaultState();
+        BlockState dirt = Blocks.DIRT.getDefaultState();
+        for (int x = world.minX(); x <= world.maxX(); x++) {
+            for (int z = world.minZ(); z <= world.maxZ(); z++) {
+                for (int y = GROUND_Y - 4; y < GROUND_Y - 1; y++) {
+                    world.setBlockState(x, y, z, dirt);
+                }
+                world.setBlockState(x, GROUND_Y - 1, z, grass);
+            }
+        }
+
+        // Fixed number of placement attempts per area; trees that would touch another trunk are dropped
+        SplittableRandom random = new SplittableRandom(seed);
+        int width = world.maxX() - world.minX() + 1;
+        int depth = world.maxZ() - world.minZ() + 1;
+        long attempts = Math.round(density * width * depth);
+        Species[] mix = {Species.OAK, Species.BIRCH, Species.SPRUCE, Species.JUNGLE, Species.DARK_OAK};
+        for (long i = 0; i < attempts; i++) {
+            int x = world.minX() + 3 + random.nextInt(width - 6);
+            int z = world.minZ() + 3 + random.nextInt(depth - 6);
+            Species tree = species == Species.MIXED ? mix[random.nextInt(mix.length)] : species;
+            plant(world, tree, x, z, random);
+        }
+        return world;
+    }
+
+    /**
+     * Packed positions of every tree base, as {@link TreeIndex} would index them.
+     */
+    static long[] treeBases(VoxelWorld world) {
+        LongArrayList bases = new LongArrayList();
+        world.scan(world.minX(), world.minY(), world.minZ(), world.maxX(), world.maxY(), world.maxZ(),
+            TreeChopperAI::isLogBlock, (x, y, z, state) -> {
+                if (TreeChopperAI.isTreeBase(world, x, y, z)) {
+                    bases.add(BlockPos.asLong(x, y, z));
+                }
+                return true;
+            });
+        return bases.toLongArray();
+    }
+
+    /**
+     * Up to {@code k} of {@code bases} inside the tree index's query box around {@code origin}, nearest first.
+     */
+    static long[] nearestBases(long[] bases, BlockPos origin, int radius, int minDy, int maxDy, int k) {
+        long[] keyed = new long[bases.length];
+        int count = 0;
+        for (int i = 0; i < bases.length; i++) {
+            int dx = BlockPos.unpackLongX(bases[i]) - origin.getX();
+            int dy = BlockPos.unpackLongY(bases[i]) - origin.getY();
+            int dz = BlockPos.unpackLongZ(bases[i]) - origin.getZ();
+            if (Math.abs(dx) <= radius && Math.abs(dz) <= radius && dy >= minDy && dy <= maxDy) {
+                keyed[count++] = (long) (dx * dx + dy * dy + dz * dz) << 32 | i;
+            }
+        }
+        Arrays.sort(keyed, 0, count);
+        long[] nearest = new long[Math.min(k, count)];
+        for (int i = 0; i < nearest.length; i++) {
+            nearest[i] = bases[(int) keyed[i]];
+        }
+        return nearest;
+    }
+
+    private static void plant(VoxelWorld world, Species species, int x, int z, SplittableRandom random) {
+        boolean wide = species == Species.SPRUCE || species == Species.DARK_OAK;
+        int trunk = wide ? 2 : 1;
+        if (Math.abs(x) <= CLEARING + trunk && Math.abs(z) <= CLEARING + trunk) {
+            return;
+        }
+        // Keep a block of space between trunks, as worldgen does
+        for (int dx = -1; dx <= trunk; dx++) {
+            for (int dz = -1; dz <= trunk; dz++) {
+                if (isLog(world.getBlockState(x + dx, GROUND_Y, z + dz).getBlock())) {
+                    return;
+                }
+            }
+        }
+
+        BlockState log = species.log.getDefaultState();
+        BlockState leaves = species.leaves.getDefaultState();
+        int height = switch (species) {
+            case OAK -> 4 + random.nextInt(3);
+            case BIRCH -> 5 + random.nextInt(3);
+            case SPRUCE -> 13 + random.nextInt(6);
+            case JUNGLE -> 8 + random.nextInt(5);
+            case DARK_OAK -> 6 + random.nextInt(3);
+            case MIXED -> throw new IllegalArgumentException("Not a tree species");
+        };
+        int top = GROUND_Y + height - 1;
+
+        // Leaves first, so the trunk overwrites the leaves around it
+        switch (species) {
+            case OAK, BIRCH -> {
+                canopy(world, leaves, x, top - 2, z, trunk, 2);
+                canopy(world, leaves, x, top - 1, z, trunk, 2);
+                canopy(world, leaves, x, top, z, trunk, 1);
+                canopy(world, leaves, x, top + 1, z, trunk, 1);
+            }
+            case SPRUCE -> {
+                // Cone over the upper two thirds of the trunk
+                int crown = height * 2 / 3;
+                for (int dy = 0; dy < crown; dy++) {
+                    canopy(world, leaves, x, top - dy, z, trunk, Math.min(3, 1 + dy / 3));
+                }
+                canopy(world, leaves, x, top + 1, z, trunk, 0);
+            }
+            case JUNGLE -> {
+                canopy(world, leaves, x, top - 1, z, trunk, 3);
+                canopy(world, leaves, x, top, z, trunk, 2);
+                canopy(world, leaves, x, top + 1, z, trunk, 1);
+            }
+            case DARK_OAK -> {
+                canopy(world, leaves, x, top - 1, z, trunk, 3);
+                canopy(world, leaves, x, top, z, trunk, 3);
+                canopy(world, leaves, x, top + 1, z, trunk, 2);
+            }
+            default -> {
+            }
+        }
+        for (int y = GROUND_Y; y <= top; y++) {
+            for (int dx = 0; dx < trunk; dx++) {
+                for (int dz = 0; dz < trunk; dz++) {
+                    world.setBlockState(x + dx, y, z + dz, log);
+                }
+            }
+        }
+    }
+
+    // Rounded disk of leaves around a trunk of the given width; never replaces logs
+    private static void canopy(VoxelWorld world, BlockState leaves, int x, int y, int z, int trunk, int radius) {
+        for (int dx = -radius; dx < trunk + radius; dx++) {
+            for (int dz = -radius; dz < trunk + radius; dz++) {
+                int ox = dx < 0 ? -dx : Math.max(0, dx - trunk + 1);
+                int oz = dz < 0 ? -dz : Math.max(0, dz - trunk + 1);
+                if (ox * ox + oz * oz > radius * radius + 1) {
+                    continue;
+                }
+                if (world.getBlockState(x + dx, y, z + dz).isAir()) {
+                    world.setBlockState(x + dx, y, z + dz, leaves);
+                }
+            }
+        }
+    }
+
+    private static boolean isLog(Block block) {
+        for (Species species : Species.values()) {
+            if (species.log == block && block != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLeaves(Block block) {
+        for (Species species : Species.values()) {
+            if (species.leaves == block && block != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
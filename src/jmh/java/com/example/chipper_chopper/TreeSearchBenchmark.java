@@ -0,0 +1,94 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tree acquisition: picking the nearest indexed trees, scoring them and tracing sight lines to them.
+ *
+ * {@code findNearestTree} is the headless equivalent of {@code findNearestTreeOptimized}: the
+ * index query is replaced by a nearest-k selection over the forest's tree bases (the index itself
+ * needs a server world), followed by the same log density grid and ranking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeSearchBenchmark {
+    // Same limits as the synchronous search in TreeChopperAI
+    private static final int MAX_CANDIDATES = 32;
+    private static final int MIN_DY = -3;
+    private static final int MAX_DY = 6;
+
+    @Param({"OAK", "BIRCH", "SPRUCE", "JUNGLE", "DARK_OAK", "MIXED"})
+    public String species;
+
+    @Param({"0.01", "0.03", "0.06"})
+    public double density;
+
+    @Param({"16", "25"})
+    public int radius;
+
+    private VoxelWorld world;
+    private BlockPos player;
+    private long[] bases;
+    private long[] candidates;
+    private LogDensityGrid logDensity;
+    private TreeRanker.Scorer scorer;
+
+    @Setup
+    public void setUp() {
+        SyntheticForest.bootstrap();
+        world = SyntheticForest.generate(SyntheticForest.Species.parse(species), density, radius + 8, 42L);
+        player = SyntheticForest.ORIGIN;
+        bases = SyntheticForest.treeBases(world);
+        candidates = SyntheticForest.nearestBases(bases, player, radius, MIN_DY, MAX_DY, MAX_CANDIDATES);
+        logDensity = LogDensityGrid.of(world, candidates, LogDensityGrid.TREE_RADIUS);
+        scorer = new TreeChopperAI.OptimizedIntelligence(0).snapshotScorer(false, radius);
+    }
+
+    @Benchmark
+    public BlockPos findNearestTree() {
+        long[] nearest = SyntheticForest.nearestBases(bases, player, radius, MIN_DY, MAX_DY, MAX_CANDIDATES);
+        LogDensityGrid grid = LogDensityGrid.of(world, nearest, LogDensityGrid.TREE_RADIUS);
+        return TreeRanker.best(nearest, world, grid, player, scorer, -1).bestTree();
+    }
+
+    /**
+     * Full score of every candidate, without the ranker's early exit: what {@code calculateTreeScore} used to do.
+     */
+    @Benchmark
+    public void treeScore(Blackhole blackhole) {
+        for (long packed : candidates) {
+            BlockPos tree = BlockPos.fromLong(packed);
+            double bound = scorer.bound(logDensity, player, tree);
+            if (bound != Double.NEGATIVE_INFINITY) {
+                blackhole.consume(scorer.score(world, player, tree, bound));
+            }
+        }
+    }
+
+    @Benchmark
+    public int countObstructingLeaves() {
+        int leaves = 0;
+        for (long packed : candidates) {
+            leaves += TreeChopperAI.countObstructingLeaves(world, player, BlockPos.fromLong(packed));
+        }
+        return leaves;
+    }
+}
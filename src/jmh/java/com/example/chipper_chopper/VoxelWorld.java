@@ -0,0 +1,170 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Compact array-backed block world for the benchmarks and the simulator.
+ *
+ * Blocks are stored per 16x16x16 section as indices into one world-wide palette. Sections that
+ * were never written read as air and take no memory, and every section remembers which palette
+ * entries it holds, so scans skip sections that cannot match - like {@link ChunkSnapshot} does.
+ * Positions outside the world read as air. Every block read is counted, for the simulator's
+ * reads-per-tree figure.
+ *
+ * Not thread-safe while being written. Concurrent readers are fine, but the read count is then
+ * approximate.
+ */
+final class VoxelWorld implements BlockAccess {
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final int minSectionX, minSectionY, minSectionZ;
+    private final int sizeX, sizeY, sizeZ; // In sections
+    private final char[][] sections; // Palette index per block, 0 = air
+    private final long[] present; // Per section, bit i set if palette entry i (or, for bit 63, any above it) occurs
+
+    private final List<BlockState> palette = new ArrayList<>();
+    private final Map<BlockState, Integer> paletteIndex = new IdentityHashMap<>();
+    private long reads;
+
+    /**
+     * World covering at least the inclusive box [min, max].
+     */
+    VoxelWorld(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.minSectionX = minX >> 4;
+        this.minSectionY = minY >> 4;
+        this.minSectionZ = minZ >> 4;
+        this.sizeX = (maxX >> 4) - minSectionX + 1;
+        this.sizeY = (maxY >> 4) - minSectionY + 1;
+        this.sizeZ = (maxZ >> 4) - minSectionZ + 1;
+        this.sections = new char[sizeX * sizeY * sizeZ][];
+        this.present = new long[sections.length];
+        paletteId(AIR);
+    }
+
+    @Override
+    public BlockState getBlockState(int x, int y, int z) {
+        reads++;
+        int section = sectionIndex(x, y, z);
+        if (section < 0 || sections[section] == null) {
+            return AIR;
+        }
+        return palette.get(sections[section][blockIndex(x, y, z)]);
+    }
+
+    void setBlockState(int x, int y, int z, BlockState state) {
+        int section = sectionIndex(x, y, z);
+        if (section < 0) {
+            throw new IllegalArgumentException("Outside the world: " + x + "," + y + "," + z);
+        }
+        int id = paletteId(state);
+        if (sections[section] == null) {
+            if (id == 0) {
+                return;
+            }
+            sections[section] = new char[16 * 16 * 16];
+        }
+        sections[section][blockIndex(x, y, z)] = (char) id;
+        present[section] |= 1L << Math.min(id, 63);
+    }
+
+    @Override
+    public boolean scan(int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                        Predicate<BlockState> filter, ChunkSectionScanner.Visitor visitor) {
+        long matching = 0;
+        for (int id = 0; id < palette.size(); id++) {
+            if (filter.test(palette.get(id))) {
+                matching |= 1L << Math.min(id, 63);
+            }
+        }
+
+        for (int sectionX = minX >> 4; sectionX <= maxX >> 4; sectionX++) {
+            for (int sectionZ = minZ >> 4; sectionZ <= maxZ >> 4; sectionZ++) {
+                for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+                    int baseX = sectionX << 4;
+                    int baseY = sectionY << 4;
+                    int baseZ = sectionZ << 4;
+                    int section = sectionIndex(baseX, baseY, baseZ);
+                    if (section < 0 || (present[section] & matching) == 0) {
+                        continue;
+                    }
+
+                    char[] blocks = sections[section];
+                    for (int y = Math.max(minY, baseY); y <= Math.min(maxY, baseY + 15); y++) {
+                        for (int z = Math.max(minZ, baseZ); z <= Math.min(maxZ, baseZ + 15); z++) {
+                            for (int x = Math.max(minX, baseX); x <= Math.min(maxX, baseX + 15); x++) {
+                                reads++;
+                                BlockState state = palette.get(blocks[blockIndex(x, y, z)]);
+                                if (filter.test(state) && !visitor.visit(x, y, z, state)) {
+                                    return false;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Blocks read so far, by single reads and scans.
+     */
+    long reads() {
+        return reads;
+    }
+
+    int minX() {
+        return minSectionX << 4;
+    }
+
+    int minY() {
+        return minSectionY << 4;
+    }
+
+    int minZ() {
+        return minSectionZ << 4;
+    }
+
+    int maxX() {
+        return ((minSectionX + sizeX) << 4) - 1;
+    }
+
+    int maxY() {
+        return ((minSectionY + sizeY) << 4) - 1;
+    }
+
+    int maxZ() {
+        return ((minSectionZ + sizeZ) << 4) - 1;
+    }
+
+    private int paletteId(BlockState state) {
+        Integer id = paletteIndex.get(state);
+        if (id == null) {
+            id = palette.size();
+            palette.add(state);
+            paletteIndex.put(state, id);
+        }
+        return id;
+    }
+
+    private int sectionIndex(int x, int y, int z) {
+        int dx = (x >> 4) - minSectionX;
+        int dy = (y >> 4) - minSectionY;
+        int dz = (z >> 4) - minSectionZ;
+        if (dx < 0 || dx >= sizeX || dy < 0 || dy >= sizeY || dz < 0 || dz >= sizeZ) {
+            return -1;
+        }
+        return (dx * sizeZ + dz) * sizeY + dy;
+    }
+
+    private static int blockIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+}
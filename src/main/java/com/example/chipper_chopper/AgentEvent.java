@@ -0,0 +1,48 @@
+package com.example.chipper_chopper;
+
+/**
+ * Codes for the events an agent records in its {@link AgentTrace}.
+ *
+ * Each event carries an optional block position and one int value; {@code valueName} says what
+ * the value means, or is {@code null} if the event has none.
+ */
+enum AgentEvent {
+    TASK_CHANGED("task changed", null), // Value: task ordinal, shown by name in traces
+    TREE_SEARCH("searching for trees", "radius"),
+    LOOK_AT("looking at", null),
+    LOG_CANDIDATES("log candidates around", "count"),
+    LOG_CANDIDATE("log candidate", "leaves"),
+    LOG_SELECTED("selected log", "leaves"),
+    LOG_SELECTED_CLOSEST("every log has leaves in the way, selected the closest", null),
+    NO_LOGS("no logs near", null),
+    NEXT_LOG("next log", null),
+    OBSTRUCTING_LEAF("obstructing leaf", "leaves on line"),
+    LEAF_TARGETED("targeting leaf", null),
+    BETTER_TARGET("switched to better target", null),
+    LOS_FAILURE("line of sight failure", "failures"),
+    LOS_RESPONSE("responding to line of sight failures", "failures"),
+    ALTERNATIVE_LOG("switched to alternative log", null),
+    ALTERNATIVE_LEAF("switched to alternative leaf", null),
+    ALTERNATIVE_APPROACH("alternative approach", null),
+    ITEM_NEARBY("item in pickup range", null),
+    PROGRESS("progress", null),
+    COLLECTION_RESET("collection attempts reset", null),
+    PARKED("nothing to do, sleeping at", "ticks"),
+    WOKEN("woke up at", "ticks slept");
+
+    private final String description;
+    private final String valueName;
+
+    AgentEvent(String description, String valueName) {
+        this.description = description;
+        this.valueName = valueName;
+    }
+
+    String description() {
+        return description;
+    }
+
+    String valueName() {
+        return valueName;
+    }
+}
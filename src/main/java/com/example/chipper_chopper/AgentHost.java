@@ -0,0 +1,91 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * Everything an agent's turn reads from or does to the game: the player it drives, the world
+ * that player stands in and what the client reported since the last turn.
+ *
+ * {@link PlayerHost} is the live implementation. {@link SessionRecorder} wraps it to log every
+ * answer it gives, and the replayer of the benchmark source set serves those answers back, so
+ * {@code processAI} runs unchanged on the server and on a recorded session.
+ */
+interface AgentHost {
+    /**
+     * Blocks of the player's world, as the current turn reads them.
+     */
+    BlockAccess blocks();
+
+    /**
+     * Latency histograms of the player's world.
+     */
+    PerfStats perf();
+
+    /**
+     * The live world, for work that cannot be recorded (the asynchronous tree search), or
+     * {@code null} to keep everything on the calling thread.
+     */
+    ServerWorld serverWorld();
+
+    Vec3d pos();
+
+    BlockPos blockPos();
+
+    double eyeHeight();
+
+    float yaw();
+
+    float pitch();
+
+    void setRotation(float yaw, float pitch);
+
+    /**
+     * Model of the tree containing (or touching) {@code pos}.
+     */
+    TreeModel treeModel(BlockPos pos);
+
+    /**
+     * Nearest indexed tree bases, as {@link TreeIndex#findNearest(BlockPos, int, int, int, int, LongPredicate)}.
+     */
+    long[] findTrees(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept);
+
+    /**
+     * Resumable search of the tree index, as {@link TreeIndex#search}.
+     */
+    TreeSearch searchTrees(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept);
+
+    /**
+     * False if {@code search} was started in another world than the player's current one.
+     */
+    boolean isCurrent(TreeSearch search);
+
+    /**
+     * Positions of the items within {@code radius} blocks of the player's block that it can pick up.
+     */
+    List<Vec3d> nearbyItems(int radius);
+
+    /**
+     * Next client report since the last call, oldest first, or {@code null} if there is none.
+     */
+    ClientReport pollReport();
+
+    /**
+     * Tree search that can stop after a budget and resume on a later turn, like {@link TreeSearchCursor}.
+     */
+    interface TreeSearch {
+        /**
+         * @return {@code true} once the search has finished
+         */
+        boolean advance(long budgetNanos, int maxColumns);
+
+        /**
+         * Bases found, nearest first. Final once {@link #advance} returned {@code true}.
+         */
+        long[] result();
+    }
+}
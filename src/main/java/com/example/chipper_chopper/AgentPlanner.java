@@ -0,0 +1,54 @@
+package com.example.chipper_chopper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool for the plan phase of a tick: agents' turns that only read a {@link FrozenWorld} run side
+ * by side, while the server thread waits for all of them before it commits their results.
+ */
+final class AgentPlanner {
+    private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ForkJoinPool POOL = new ForkJoinPool(THREADS, pool -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Chipper Chopper Planner #" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }, null, false);
+
+    private AgentPlanner() {
+    }
+
+    static int threads() {
+        return THREADS;
+    }
+
+    /**
+     * Run every turn on the pool and wait until all of them are done, even if some fail - the
+     * world must stay frozen until no planner reads it any more. The first failure is rethrown.
+     */
+    static void runAll(List<? extends Runnable> turns) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(turns.size());
+        for (Runnable turn : turns) {
+            tasks.add(POOL.submit(turn));
+        }
+        RuntimeException failure = null;
+        for (ForkJoinTask<?> task : tasks) {
+            try {
+                task.join();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
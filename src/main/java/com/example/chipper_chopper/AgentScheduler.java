@@ -0,0 +1,173 @@
+package com.example.chipper_chopper;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Due-tick scheduler that gives every active agent a turn each {@code interval} ticks and shares a
+ * fixed per-tick time budget between the agents due.
+ *
+ * Agents wait in one bucket per phase of the interval; a new agent gets the phase with the fewest
+ * agents, so their turns are spread over the ticks of the interval instead of all landing on the
+ * same one. {@link #advanceTo} moves the bucket of the tick into the due queue, so a tick only ever
+ * touches the agents due in it. Each agent that had its turn goes back to the bucket of its own
+ * phase, even if the budget delayed it to a later tick. When the budget is spent the remaining agents stay at the front of the due queue, so they
+ * are the first to run on the next tick and nobody starves however many agents are active. At
+ * least one agent runs per tick.
+ *
+ * Must be used on the server thread.
+ */
+final class AgentScheduler {
+    private final ArrayDeque<UUID>[] buckets; // Agents waiting for the tick of their phase, by tick % interval
+    private final ArrayDeque<UUID> due = new ArrayDeque<>();
+    private final Map<UUID, Cost> costs = new HashMap<>();
+    private final int[] agentsPerPhase;
+    private int now = Integer.MIN_VALUE; // Last tick advanced to
+
+    /**
+     * Time accounting for one agent, and the phase it is scheduled in.
+     */
+    static final class Cost {
+        private int phase;
+        private long lastNanos;
+        private long averageNanos; // Exponential moving average, weight 1/8
+        private long maxNanos;
+        private long runs;
+        private long deferrals;
+
+        private void record(long nanos) {
+            lastNanos = nanos;
+            averageNanos = runs == 0 ? nanos : averageNanos + (nanos - averageNanos) / 8;
+            maxNanos = Math.max(maxNanos, nanos);
+            runs++;
+        }
+
+        long lastNanos() {
+            return lastNanos;
+        }
+
+        long averageNanos() {
+            return averageNanos;
+        }
+
+        long maxNanos() {
+            return maxNanos;
+        }
+
+        long runs() {
+            return runs;
+        }
+
+        long deferrals() {
+            return deferrals;
+        }
+    }
+
+    /**
+     * @param interval ticks between two turns of an agent
+     */
+    @SuppressWarnings("unchecked")
+    AgentScheduler(int interval) {
+        buckets = new ArrayDeque[interval];
+        agentsPerPhase = new int[interval];
+        for (int i = 0; i < interval; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    void add(UUID agent) {
+        Cost cost = new Cost();
+        if (costs.putIfAbsent(agent, cost) == null) {
+            for (int phase = 1; phase < agentsPerPhase.length; phase++) {
+                if (agentsPerPhase[phase] < agentsPerPhase[cost.phase]) {
+                    cost.phase = phase;
+                }
+            }
+            agentsPerPhase[cost.phase]++;
+            buckets[cost.phase].addLast(agent);
+        }
+    }
+
+    void remove(UUID agent) {
+        Cost cost = costs.remove(agent);
+        if (cost != null) {
+            agentsPerPhase[cost.phase]--;
+            if (!due.remove(agent)) {
+                buckets[cost.phase].remove(agent);
+            }
+        }
+    }
+
+    /**
+     * Make the agents whose phase comes round by {@code tick} due, behind any deferred ones.
+     */
+    void advanceTo(int tick) {
+        int steps = now == Integer.MIN_VALUE ? 1 : (int) Math.min((long) tick - now, buckets.length);
+        for (int i = steps - 1; i >= 0; i--) {
+            ArrayDeque<UUID> bucket = buckets[Math.floorMod(tick - i, buckets.length)];
+            while (!bucket.isEmpty()) {
+                due.addLast(bucket.pollFirst());
+            }
+        }
+        now = tick;
+    }
+
+    /**
+     * Agents due on the current tick, in the order {@link #run} takes them. Read-only.
+     */
+    Iterable<UUID> due() {
+        return due;
+    }
+
+    Cost cost(UUID agent) {
+        return costs.get(agent);
+    }
+
+    /**
+     * Account for a turn that ran outside {@link #run}, e.g. on a planner thread.
+     */
+    void charge(UUID agent, long nanos) {
+        Cost cost = costs.get(agent);
+        if (cost != null) {
+            cost.record(nanos);
+        }
+    }
+
+    /**
+     * Run due agents until every one of them had its turn or {@code budgetNanos} is spent.
+     *
+     * @param runner runs one agent, returning {@code false} if it had nothing to do (offline,
+     *               parked...) - such agents still wait for their next turn but are not charged
+     * @return number of agents that were deferred to the next tick
+     */
+    int run(long budgetNanos, Predicate<UUID> runner) {
+        long start = System.nanoTime();
+        int ran = 0;
+
+        while (!due.isEmpty()) {
+            if (ran > 0 && System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+            UUID agent = due.pollFirst();
+            buckets[costs.get(agent).phase].addLast(agent); // Due again when its phase comes round
+
+            long agentStart = System.nanoTime();
+            if (runner.test(agent)) {
+                Cost cost = costs.get(agent);
+                if (cost != null) { // The runner may have stopped the agent
+                    cost.record(System.nanoTime() - agentStart);
+                }
+                ran++;
+            }
+        }
+
+        // Whoever did not get a turn stays at the front of the due queue for the next tick
+        for (UUID deferred : due) {
+            costs.get(deferred).deferrals++;
+        }
+        return due.size();
+    }
+}
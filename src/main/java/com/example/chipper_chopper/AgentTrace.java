@@ -0,0 +1,55 @@
+package com.example.chipper_chopper;
+
+/**
+ * Fixed-size ring buffer of an agent's most recent events.
+ *
+ * Events are stored as primitive columns (tick, event code, packed position, value), so
+ * recording one is a handful of array writes: no strings are built and nothing is allocated.
+ * Text only gets made when someone asks for the trace.
+ *
+ * Not thread-safe.
+ */
+final class AgentTrace {
+    static final int CAPACITY = 256; // Power of two
+    static final long NO_POSITION = Long.MIN_VALUE;
+
+    private static final AgentEvent[] EVENTS = AgentEvent.values();
+
+    private final int[] ticks = new int[CAPACITY];
+    private final byte[] events = new byte[CAPACITY];
+    private final long[] positions = new long[CAPACITY];
+    private final int[] values = new int[CAPACITY];
+    private long recorded;
+
+    /**
+     * Receives recorded events, oldest first.
+     */
+    @FunctionalInterface
+    interface Visitor {
+        void visit(int tick, AgentEvent event, long position, int value);
+    }
+
+    void record(int tick, AgentEvent event, long position, int value) {
+        int slot = (int) recorded & (CAPACITY - 1);
+        ticks[slot] = tick;
+        events[slot] = (byte) event.ordinal();
+        positions[slot] = position;
+        values[slot] = value;
+        recorded++;
+    }
+
+    void forEach(Visitor visitor) {
+        long first = Math.max(0, recorded - CAPACITY);
+        for (long i = first; i < recorded; i++) {
+            int slot = (int) i & (CAPACITY - 1);
+            visitor.visit(ticks[slot], EVENTS[events[slot]], positions[slot], values[slot]);
+        }
+    }
+
+    /**
+     * Events recorded over the agent's lifetime, including those already overwritten.
+     */
+    long recorded() {
+        return recorded;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.chipper_chopper;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tree search that runs off the server thread.
+ *
+ * The server thread gathers the inputs - candidates from the {@link TreeIndex}, a
+ * {@link ChunkSnapshot} of the surrounding sections, copies of the agent's blacklist and attempt
+ * history - and submits a job. Chunks the index has not reached yet are scanned through
+ * {@link TreeIndex#scanAsync}, so agents searching the same area share those scans. Once they
+ * are done a worker ranks the candidates against the snapshot and hands back the best tree,
+ * which the AI applies on a later tick.
+ */
+final class AsyncTreeSearch {
+    private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "Chipper Chopper Tree Search #" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Everything a job needs, captured on the server thread.
+     */
+    record Request(BlockPos playerPos, int radius, int minDy, int maxDy, int maxCandidates,
+                   long[] indexedCandidates, List<CompletableFuture<LongOpenHashSet>> chunkScans, LongOpenHashSet blacklist,
+                   ChunkSnapshot snapshot, TreeRanker.Scorer scorer, PerfStats perf) {
+    }
+
+    record Result(BlockPos bestTree, double bestScore, int candidates) {
+        static final Result NONE = new Result(null, -1, 0);
+    }
+
+    private AsyncTreeSearch() {
+    }
+
+    static CompletableFuture<Result> submit(Request request) {
+        return CompletableFuture.allOf(request.chunkScans().toArray(new CompletableFuture[0]))
+            .thenApplyAsync(done -> run(request), EXECUTOR);
+    }
+
+    static Executor executor() {
+        return EXECUTOR;
+    }
+
+    private static Result run(Request request) {
+        BlockPos playerPos = request.playerPos();
+        ChunkSnapshot snapshot = request.snapshot();
+
+        // Candidates from the index, plus tree bases from the shared scans of chunks it has not reached yet
+        LongArrayList candidates = new LongArrayList(request.indexedCandidates().length + 16);
+        for (long packed : request.indexedCandidates()) {
+            candidates.add(packed);
+        }
+        for (CompletableFuture<LongOpenHashSet> scan : request.chunkScans()) {
+            LongIterator iterator = scan.join().iterator();
+            while (iterator.hasNext()) {
+                long packed = iterator.nextLong();
+                int dx = BlockPos.unpackLongX(packed) - playerPos.getX();
+                int dy = BlockPos.unpackLongY(packed) - playerPos.getY();
+                int dz = BlockPos.unpackLongZ(packed) - playerPos.getZ();
+                if (Math.abs(dx) <= request.radius() && Math.abs(dz) <= request.radius()
+                        && dy >= request.minDy() && dy <= request.maxDy() && !request.blacklist().contains(packed)) {
+                    candidates.add(packed);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Result.NONE;
+        }
+
+        // Keep the nearest ones, like the synchronous index query does
+        long[] ordered = candidates.toLongArray();
+        if (ordered.length > request.maxCandidates()) {
+            // PERFORMANCE OPTIMIZATION: Sort primitive (squared distance, index) keys - no boxing, no BlockPos per comparison
+            long[] keyed = new long[ordered.length];
+            for (int i = 0; i < ordered.length; i++) {
+                int dx = BlockPos.unpackLongX(ordered[i]) - playerPos.getX();
+                int dy = BlockPos.unpackLongY(ordered[i]) - playerPos.getY();
+                int dz = BlockPos.unpackLongZ(ordered[i]) - playerPos.getZ();
+                keyed[i] = (long) (dx * dx + dy * dy + dz * dz) << 32 | i;
+            }
+            Arrays.sort(keyed);
+            long[] nearest = new long[request.maxCandidates()];
+            for (int i = 0; i < nearest.length; i++) {
+                nearest[i] = ordered[(int) keyed[i]];
+            }
+            ordered = nearest;
+        }
+
+        // One summed-volume table answers every candidate's log count
+        long scoringStart = System.nanoTime();
+        LogDensityGrid logDensity = LogDensityGrid.of(snapshot, ordered, LogDensityGrid.TREE_RADIUS);
+        TreeRanker.Ranking ranking = TreeRanker.best(ordered, snapshot, logDensity, playerPos, request.scorer(), -1);
+        request.perf().recordSince(PerfPhase.CANDIDATE_SCORING, scoringStart);
+        return new Result(ranking.bestTree(), ranking.bestScore(), ordered.length);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.function.Predicate;
+
+/**
+ * Read-only block access used by the tree search, scoring and target selection code, so the
+ * same algorithms can run against the live world on the server thread, against a
+ * {@link ChunkSnapshot} on a worker thread, or against an offline voxel world in the benchmarks
+ * and the simulator.
+ */
+@FunctionalInterface
+interface BlockAccess {
+    BlockState getBlockState(int x, int y, int z);
+
+    default BlockState getBlockState(BlockPos pos) {
+        return getBlockState(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    /**
+     * Sight line from {@code from}'s eye height to {@code to}, as {@link VoxelRay#trace(BlockAccess, BlockPos, BlockPos)}.
+     * Views of a live world override this to share traces within a tick.
+     */
+    default VoxelRay.Trace sightLine(BlockPos from, BlockPos to) {
+        return VoxelRay.trace(this, from, to);
+    }
+
+    /**
+     * Same contract as {@link ChunkSectionScanner#scan}. This version reads every position;
+     * sources that know which regions cannot match override it to skip them.
+     */
+    default boolean scan(int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                         Predicate<BlockState> filter, ChunkSectionScanner.Visitor visitor) {
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    BlockState state = getBlockState(x, y, z);
+                    if (filter.test(state) && !visitor.visit(x, y, z, state)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Live view of the loaded chunks of a world, for a single query. Unloaded positions read as air.
+     */
+    static BlockAccess of(World world) {
+        return new WorldBlockCursor(world);
+    }
+}
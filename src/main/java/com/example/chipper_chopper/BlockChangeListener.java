@@ -0,0 +1,38 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Entry point for block changes reported by {@code WorldChunkMixin}.
+ *
+ * Public only because mixin classes live in their own package; everything it forwards to
+ * stays package-private.
+ */
+public final class BlockChangeListener {
+    private BlockChangeListener() {
+    }
+
+    public static void onBlockChanged(ServerWorld world, BlockPos pos, BlockState oldState, BlockState newState) {
+        // Block updates can fire during chunk loading off the server thread; the index is server-thread only
+        if (!world.getServer().isOnThread()) {
+            return;
+        }
+        SessionRecorder.onBlockChanged(world, pos, newState);
+        if (!affectsTrees(oldState, newState)) {
+            return;
+        }
+        TreeIndex.onBlockChanged(world, pos, oldState, newState);
+        TreeModel.onBlockChanged(world, pos, newState);
+        TreeChopperAI.onBlockChanged(world, pos, newState);
+    }
+
+    /**
+     * False for the vast majority of block updates, which never touch trees. One table lookup per state.
+     */
+    static boolean affectsTrees(BlockState oldState, BlockState newState) {
+        int flags = BlockClassifier.flags(oldState) | BlockClassifier.flags(newState);
+        return (flags & (BlockClassifier.LOG | BlockClassifier.LEAF | BlockClassifier.TREE_SOIL)) != 0;
+    }
+}
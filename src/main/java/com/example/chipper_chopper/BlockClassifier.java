@@ -0,0 +1,114 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.tag.BlockTags;
+import net.minecraft.resource.LifecycledResourceManager;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.EmptyBlockView;
+
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Precomputed per-{@link BlockState} classification for the AI's hot predicates.
+ *
+ * Every block state gets a byte of flags, stored in an array indexed by its raw state id.
+ * The table is built from {@link BlockTags#LOGS} and {@link BlockTags#LEAVES} (plus the blocks
+ * the AI always treated as logs or leaves), so modded trees are recognised without code changes.
+ * It is rebuilt whenever tags can change: on server start and after a data pack reload.
+ */
+final class BlockClassifier {
+    static final int LOG = 1;
+    static final int LEAF = 1 << 1;
+    static final int TREE_SOIL = 1 << 2;
+    /** No collision shape: the player can stand inside it (air, grass, flowers...) */
+    static final int PASSABLE = 1 << 3;
+    /** Has a collision shape and is not air: the player can stand on top of it */
+    static final int STANDABLE = 1 << 4;
+    static final int AIR = 1 << 5;
+
+    // Vanilla blocks the AI has always chopped that are not in BlockTags.LOGS
+    private static final Set<Block> EXTRA_LOGS = Set.of(Blocks.BAMBOO_BLOCK);
+
+    private static final Set<Block> EXTRA_SOIL = Set.of(
+        Blocks.DIRT, Blocks.GRASS_BLOCK, Blocks.PODZOL, Blocks.COARSE_DIRT, Blocks.ROOTED_DIRT, Blocks.MYCELIUM);
+
+    private static volatile byte[] flagsByRawId;
+
+    private BlockClassifier() {
+    }
+
+    static void rebuild() {
+        rebuild(state -> state.isIn(BlockTags.LOGS) || EXTRA_LOGS.contains(state.getBlock()),
+            state -> state.isIn(BlockTags.LEAVES),
+            state -> state.isIn(BlockTags.DIRT) || EXTRA_SOIL.contains(state.getBlock()));
+    }
+
+    /**
+     * Build the table from explicit predicates, for runs without data packs (benchmarks) where
+     * no tag is bound.
+     */
+    static void rebuild(Predicate<BlockState> isLog, Predicate<BlockState> isLeaf, Predicate<BlockState> isSoil) {
+        byte[] table = new byte[Block.STATE_IDS.size()];
+        int logStates = 0;
+        int leafStates = 0;
+
+        for (BlockState state : Block.STATE_IDS) {
+            int flags = 0;
+            if (isLog.test(state)) {
+                flags |= LOG;
+                logStates++;
+            }
+            if (isLeaf.test(state)) {
+                flags |= LEAF;
+                leafStates++;
+            }
+            if (isSoil.test(state)) {
+                flags |= TREE_SOIL;
+            }
+            if (state.isAir()) {
+                flags |= AIR;
+            }
+            if (state.getCollisionShape(EmptyBlockView.INSTANCE, BlockPos.ORIGIN).isEmpty()) {
+                flags |= PASSABLE;
+            } else if (!state.isAir()) {
+                flags |= STANDABLE;
+            }
+            table[Block.getRawIdFromState(state)] = (byte) flags;
+        }
+
+        flagsByRawId = table;
+        ChipperChopperMod.LOGGER.info("Block classifier built: " + table.length + " states, "
+            + logStates + " log states, " + leafStates + " leaf states");
+    }
+
+    static void onServerStarted(MinecraftServer server) {
+        rebuild();
+    }
+
+    static void onDataPackReload(MinecraftServer server, LifecycledResourceManager resourceManager, boolean success) {
+        if (success) {
+            rebuild();
+        }
+    }
+
+    static int flags(BlockState state) {
+        byte[] table = flagsByRawId;
+        if (table == null) {
+            rebuild(); // Used before the server finished starting
+            table = flagsByRawId;
+        }
+        int rawId = Block.getRawIdFromState(state);
+        return rawId >= 0 && rawId < table.length ? table[rawId] : 0;
+    }
+
+    /**
+     * @return {@code true} if the state has any of the given flags
+     */
+    static boolean is(BlockState state, int mask) {
+        return (flags(state) & mask) != 0;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Block-state memo for one agent's turn.
+ *
+ * Between {@link #begin} and {@link #end} every read goes through a fixed open-addressing table
+ * (linear probing on the packed position), so the helpers of one {@code processAI} call can read
+ * the same trunk and ground blocks over and over and pay for the chunk lookup once. Once the
+ * table is half full further misses read through without being remembered.
+ *
+ * Hit and miss counts accumulate across turns for reporting. One thread at a time: the server
+ * thread, or the planner thread running the agent's turn over a {@link FrozenWorld}.
+ */
+final class BlockStateMemo implements BlockAccess {
+    private static final int SLOTS = 4096; // Power of two
+    private static final int MAX_ENTRIES = SLOTS / 2;
+
+    private final long[] keys = new long[SLOTS];
+    private final BlockState[] states = new BlockState[SLOTS]; // null marks an empty slot
+    private int size;
+
+    private World world; // null while reading a frozen view
+    private BlockAccess source;
+    private long hits;
+    private long misses;
+
+    /**
+     * Start a turn reading from {@code world}.
+     */
+    void begin(World world) {
+        this.world = world;
+        this.source = new WorldBlockCursor(world);
+    }
+
+    /**
+     * Start a turn reading from a frozen view, off the server thread.
+     */
+    void begin(FrozenWorld view) {
+        this.world = null;
+        this.source = view;
+    }
+
+    /**
+     * End the turn: forget every memoized state and let go of the world.
+     */
+    void end() {
+        if (size > 0) {
+            Arrays.fill(states, null);
+            size = 0;
+        }
+        world = null;
+        source = null;
+    }
+
+    /**
+     * True while a turn on {@code world} is in progress.
+     */
+    boolean isReading(World world) {
+        return this.world == world && world != null;
+    }
+
+    @Override
+    public VoxelRay.Trace sightLine(BlockPos from, BlockPos to) {
+        // The per-tick trace memo is server thread only
+        return world != null ? VoxelRay.trace(world, this, from, to) : VoxelRay.trace(this, from, to);
+    }
+
+    // PERFORMANCE OPTIMIZATION: Box scans keep walking palettes section by section instead of going through the table
+    @Override
+    public boolean scan(int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                        Predicate<BlockState> filter, ChunkSectionScanner.Visitor visitor) {
+        return source.scan(minX, minY, minZ, maxX, maxY, maxZ, filter, visitor);
+    }
+
+    @Override
+    public BlockState getBlockState(int x, int y, int z) {
+        long key = BlockPos.asLong(x, y, z);
+        int slot = hash(key);
+        while (states[slot] != null) {
+            if (keys[slot] == key) {
+                hits++;
+                return states[slot];
+            }
+            slot = (slot + 1) & (SLOTS - 1);
+        }
+
+        misses++;
+        BlockState state = source.getBlockState(x, y, z);
+        if (size < MAX_ENTRIES) {
+            keys[slot] = key;
+            states[slot] = state;
+            size++;
+        }
+        return state;
+    }
+
+    /**
+     * Drop the memoized state at a position that just changed.
+     */
+    void forget(BlockPos pos) {
+        long key = pos.asLong();
+        int slot = hash(key);
+        while (states[slot] != null) {
+            if (keys[slot] == key) {
+                removeSlot(slot);
+                size--;
+                return;
+            }
+            slot = (slot + 1) & (SLOTS - 1);
+        }
+    }
+
+    long hits() {
+        return hits;
+    }
+
+    long misses() {
+        return misses;
+    }
+
+    /**
+     * Share of reads answered from the memo, 0 to 1.
+     */
+    double hitRate() {
+        long reads = hits + misses;
+        return reads == 0 ? 0.0 : (double) hits / reads;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (SLOTS - 1);
+    }
+
+    // Backward-shift deletion, as in BoundedLongMap
+    private void removeSlot(int gap) {
+        int slot = (gap + 1) & (SLOTS - 1);
+        while (states[slot] != null) {
+            int ideal = hash(keys[slot]);
+            if (((slot - ideal) & (SLOTS - 1)) >= ((slot - gap) & (SLOTS - 1))) {
+                keys[gap] = keys[slot];
+                states[gap] = states[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & (SLOTS - 1);
+        }
+        states[gap] = null;
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.chipper_chopper;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Fixed-capacity map from packed block positions to a small row of {@code long} values, with
+ * least-recently-used eviction.
+ *
+ * Entries live in preallocated parallel arrays and are found through an open-addressing
+ * (linear probing) index, so the map never boxes, never allocates after construction and never
+ * grows: once {@code capacity} keys are stored, inserting another one evicts the key that was
+ * read or written longest ago. Each entry holds {@code width} values, all zero when it is
+ * created.
+ *
+ * Not thread-safe.
+ */
+final class BoundedLongMap {
+    private static final int NONE = -1;
+
+    private final int capacity;
+    private final int width;
+    private final long[] keys;
+    private final long[] values;
+    // Recency list over entry indices: head is the least recently used, tail the most recent
+    private final int[] prev;
+    private final int[] next;
+    private int head = NONE;
+    private int tail = NONE;
+    // Open-addressing index: entry index + 1, or 0 for an empty slot
+    private final int[] table;
+    private final int mask;
+    private int size;
+    private long evictions;
+
+    BoundedLongMap(int capacity, int width) {
+        this.capacity = capacity;
+        this.width = width;
+        this.keys = new long[capacity];
+        this.values = new long[capacity * width];
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1; // Load factor <= 0.5
+        this.table = new int[tableSize];
+        this.mask = tableSize - 1;
+    }
+
+    private BoundedLongMap(BoundedLongMap other) {
+        this.capacity = other.capacity;
+        this.width = other.width;
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.prev = other.prev.clone();
+        this.next = other.next.clone();
+        this.head = other.head;
+        this.tail = other.tail;
+        this.table = other.table.clone();
+        this.mask = other.mask;
+        this.size = other.size;
+        this.evictions = other.evictions;
+    }
+
+    /**
+     * Independent copy, e.g. to hand to a worker thread.
+     */
+    BoundedLongMap copy() {
+        return new BoundedLongMap(this);
+    }
+
+    // === Single-value convenience ===
+
+    boolean containsKey(long key) {
+        return slotOf(key) != NONE;
+    }
+
+    /**
+     * First value of {@code key}, or {@code defaultValue} if absent. Counts as a use.
+     */
+    long get(long key, long defaultValue) {
+        return get(key, 0, defaultValue);
+    }
+
+    void put(long key, long value) {
+        set(insert(key), 0, value);
+    }
+
+    /**
+     * Add {@code delta} to the first value of {@code key} (starting from zero) and return the result.
+     */
+    long increment(long key, long delta) {
+        int entry = insert(key);
+        long value = value(entry, 0) + delta;
+        set(entry, 0, value);
+        return value;
+    }
+
+    // === Row access ===
+
+    long get(long key, int column, long defaultValue) {
+        int entry = find(key);
+        return entry != NONE ? value(entry, column) : defaultValue;
+    }
+
+    /**
+     * Entry index of {@code key}, or -1 if absent. Counts as a use.
+     */
+    int find(long key) {
+        int slot = slotOf(key);
+        if (slot == NONE) {
+            return NONE;
+        }
+        int entry = table[slot] - 1;
+        touch(entry);
+        return entry;
+    }
+
+    /**
+     * Entry index of {@code key}, or -1 if absent, without counting as a use.
+     */
+    int peek(long key) {
+        int slot = slotOf(key);
+        return slot != NONE ? table[slot] - 1 : NONE;
+    }
+
+    /**
+     * Entry index of {@code key}, creating a zeroed entry (and evicting the least recently used
+     * one if the map is full) if it is absent. Counts as a use.
+     */
+    int insert(long key) {
+        int entry = find(key);
+        if (entry != NONE) {
+            return entry;
+        }
+
+        if (size < capacity) {
+            entry = size++;
+        } else {
+            entry = head;
+            removeSlot(slotOf(keys[entry]));
+            unlink(entry);
+            evictions++;
+        }
+        keys[entry] = key;
+        Arrays.fill(values, entry * width, entry * width + width, 0L);
+        linkLast(entry);
+
+        int slot = hash(key);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry + 1;
+        return entry;
+    }
+
+    long value(int entry, int column) {
+        return values[entry * width + column];
+    }
+
+    void set(int entry, int column, long value) {
+        values[entry * width + column] = value;
+    }
+
+    boolean remove(long key) {
+        int slot = slotOf(key);
+        if (slot == NONE) {
+            return false;
+        }
+        int entry = table[slot] - 1;
+        removeSlot(slot);
+        unlink(entry);
+
+        // Keep entries dense: move the last entry into the freed index
+        int last = --size;
+        if (entry != last) {
+            int lastSlot = slotOf(keys[last]);
+            keys[entry] = keys[last];
+            System.arraycopy(values, last * width, values, entry * width, width);
+            table[lastSlot] = entry + 1;
+            prev[entry] = prev[last];
+            next[entry] = next[last];
+            if (prev[entry] != NONE) next[prev[entry]] = entry; else head = entry;
+            if (next[entry] != NONE) prev[next[entry]] = entry; else tail = entry;
+        }
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(table, 0);
+        head = tail = NONE;
+        size = 0;
+    }
+
+    void forEachKey(LongConsumer consumer) {
+        for (int entry = 0; entry < size; entry++) {
+            consumer.accept(keys[entry]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Bytes held by the backing arrays. Constant for the lifetime of the map.
+     */
+    long footprintBytes() {
+        return 8L * keys.length + 8L * values.length + 4L * prev.length + 4L * next.length + 4L * table.length;
+    }
+
+    // === Internals ===
+
+    private int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private int slotOf(long key) {
+        int slot = hash(key);
+        while (table[slot] != 0) {
+            if (keys[table[slot] - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NONE;
+    }
+
+    // Backward-shift deletion keeps probe sequences intact without tombstones
+    private void removeSlot(int gap) {
+        int slot = (gap + 1) & mask;
+        while (table[slot] != 0) {
+            int ideal = hash(keys[table[slot] - 1]);
+            if (((slot - ideal) & mask) >= ((slot - gap) & mask)) {
+                table[gap] = table[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[gap] = 0;
+    }
+
+    private void touch(int entry) {
+        if (entry != tail) {
+            unlink(entry);
+            linkLast(entry);
+        }
+    }
+
+    private void unlink(int entry) {
+        if (prev[entry] != NONE) next[prev[entry]] = next[entry]; else head = next[entry];
+        if (next[entry] != NONE) prev[next[entry]] = prev[entry]; else tail = prev[entry];
+    }
+
+    private void linkLast(int entry) {
+        prev[entry] = tail;
+        next[entry] = NONE;
+        if (tail != NONE) next[tail] = entry; else head = entry;
+        tail = entry;
+    }
+}
@@ -1,14 +1,24 @@
 package com.example.chipper_chopper;
 
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.command.argument.EntityArgumentType;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.text.Text;
 import net.minecraft.server.network.ServerPlayerEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static net.minecraft.server.command.CommandManager.argument;
 import static net.minecraft.server.command.CommandManager.literal;
 
 public class ChipperChopperMod implements ModInitializer {
@@ -82,17 +92,144 @@ public class ChipperChopperMod implements ModInitializer {
                             boolean active = TreeChopperAI.isActive(player);
                             String status = active ? "§aACTIVE" : "§cINACTIVE";
                             source.sendFeedback(() -> Text.literal("Chipper Chopper AI status: " + status), false);
+                            String cost = TreeChopperAI.getCostSummary(player);
+                            if (cost != null) {
+                                source.sendFeedback(() -> Text.literal("§7" + cost), false);
+                            }
                             return 1;
                         }
                         return 0;
                     })
                 )
+                .then(literal("async")
+                    .requires(source -> source.hasPermissionLevel(2))
+                    .executes(context -> {
+                        // Server-wide switch: run tree search and scoring on worker threads
+                        boolean enabled = !TreeChopperAI.isAsyncSearchEnabled();
+                        TreeChopperAI.setAsyncSearchEnabled(enabled);
+                        String mode = enabled ? "§aASYNC" : "§cSERVER THREAD";
+                        context.getSource().sendFeedback(() -> Text.literal("Chipper Chopper tree search: " + mode), true);
+                        return 1;
+                    })
+                )
+                .then(literal("parallel")
+                    .requires(source -> source.hasPermissionLevel(2))
+                    .executes(context -> {
+                        // Server-wide switch: plan agents' turns on worker threads, commit them on the server thread
+                        boolean enabled = !TreeChopperAI.isParallelPlanningEnabled();
+                        TreeChopperAI.setParallelPlanningEnabled(enabled);
+                        String mode = enabled ? "§aPARALLEL" : "§cSERVER THREAD";
+                        context.getSource().sendFeedback(() -> Text.literal("Chipper Chopper agent turns: " + mode), true);
+                        return 1;
+                    })
+                )
+                .then(literal("wake")
+                    .requires(source -> source.hasPermissionLevel(2))
+                    .then(argument("blocks", IntegerArgumentType.integer(1, 64))
+                        .executes(context -> {
+                            // Server-wide: how far a player walks before its sleeping idle agent searches again
+                            int blocks = IntegerArgumentType.getInteger(context, "blocks");
+                            TreeChopperAI.setIdleWakeDistance(blocks);
+                            context.getSource().sendFeedback(() -> Text.literal("Chipper Chopper idle agents wake after §a" + blocks + "§r blocks of movement"), true);
+                            return blocks;
+                        })
+                    )
+                )
+                .then(literal("perf")
+                    .requires(source -> source.hasPermissionLevel(2))
+                    .executes(context -> {
+                        // Per-phase latency of the AI, per world and per agent
+                        ServerCommandSource source = context.getSource();
+                        for (String line : TreeChopperAI.getPerfReport(source.getServer())) {
+                            source.sendFeedback(() -> Text.literal(line), false);
+                        }
+                        return 1;
+                    })
+                    .then(literal("reset")
+                        .executes(context -> {
+                            TreeChopperAI.resetPerf();
+                            context.getSource().sendFeedback(() -> Text.literal("§aChipper Chopper perf stats reset"), true);
+                            return 1;
+                        })
+                    )
+                )
+                .then(literal("record")
+                    .requires(source -> source.hasPermissionLevel(2))
+                    .then(literal("start")
+                        .executes(context -> {
+                            // Restart the agent and log its session for offline replay
+                            ServerCommandSource source = context.getSource();
+                            if (source.getEntity() instanceof ServerPlayerEntity player) {
+                                try {
+                                    Path file = TreeChopperAI.startRecording(player);
+                                    source.sendFeedback(() -> Text.literal("§aRecording Chipper Chopper session to " + file), false);
+                                    return 1;
+                                } catch (IOException e) {
+                                    LOGGER.error("Could not start a session recording", e);
+                                    source.sendFeedback(() -> Text.literal("§cCould not create the session file: " + e.getMessage()), false);
+                                }
+                            }
+                            return 0;
+                        })
+                    )
+                    .then(literal("stop")
+                        .executes(context -> {
+                            ServerCommandSource source = context.getSource();
+                            if (source.getEntity() instanceof ServerPlayerEntity player) {
+                                String session = TreeChopperAI.stopRecording(player);
+                                if (session == null) {
+                                    source.sendFeedback(() -> Text.literal("§cNo Chipper Chopper session is being recorded"), false);
+                                    return 0;
+                                }
+                                source.sendFeedback(() -> Text.literal("§aSession saved: " + session), false);
+                                return 1;
+                            }
+                            return 0;
+                        })
+                    )
+                )
+                .then(literal("trace")
+                    .requires(source -> source.hasPermissionLevel(2))
+                    .then(argument("player", EntityArgumentType.player())
+                        .executes(context -> {
+                            // Dump the agent's recent events - cheap to record, only formatted here
+                            ServerCommandSource source = context.getSource();
+                            ServerPlayerEntity target = EntityArgumentType.getPlayer(context, "player");
+                            List<String> events = TreeChopperAI.getTrace(target);
+                            if (events == null) {
+                                source.sendFeedback(() -> Text.literal("§cChipper Chopper AI is not running for " + target.getName().getString()), false);
+                                return 0;
+                            }
+                            source.sendFeedback(() -> Text.literal("§7Last " + events.size() + " events of " + target.getName().getString() + ":"), false);
+                            for (String event : events) {
+                                source.sendFeedback(() -> Text.literal(event), false);
+                            }
+                            return events.size();
+                        })
+                    )
+                )
             );
         });
 
         // Register server tick event for AI processing
         ServerTickEvents.END_SERVER_TICK.register(TreeChopperAI::tick);
 
+        // Block classification depends on tags, so rebuild it whenever they are (re)loaded
+        ServerLifecycleEvents.SERVER_STARTED.register(BlockClassifier::onServerStarted);
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register(BlockClassifier::onDataPackReload);
+
+        // Keep the per-world tree index in step with loaded chunks
+        ServerChunkEvents.CHUNK_LOAD.register(TreeIndex::onChunkLoad);
+        ServerChunkEvents.CHUNK_UNLOAD.register(TreeIndex::onChunkUnload);
+        ServerWorldEvents.UNLOAD.register(TreeIndex::onWorldUnload);
+        ServerWorldEvents.UNLOAD.register(TreeModel::onWorldUnload);
+        ServerWorldEvents.UNLOAD.register(PerfStats::onWorldUnload);
+        ServerLifecycleEvents.SERVER_STOPPING.register(TreeIndex::onServerStopping);
+        ServerLifecycleEvents.SERVER_STOPPING.register(TreeModel::onServerStopping);
+        ServerLifecycleEvents.SERVER_STOPPING.register(VoxelRay::onServerStopping);
+        ServerLifecycleEvents.SERVER_STOPPING.register(PerfStats::onServerStopping);
+        ServerLifecycleEvents.SERVER_STOPPING.register(SessionRecorder::onServerStopping);
+
         LOGGER.info("Chipper Chopper Mod initialized successfully!");
     }
 } 
\ No newline at end of file
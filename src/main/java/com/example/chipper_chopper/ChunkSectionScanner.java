@@ -0,0 +1,118 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.function.Predicate;
+
+/**
+ * Section-at-a-time block scanner used by the tree search.
+ *
+ * Instead of calling {@code world.getBlockState} for every position in the search box, the
+ * scanner walks the box one 16x16x16 {@link ChunkSection} at a time. Each section's palette is
+ * checked with {@link ChunkSection#hasAny} first, so sections that cannot contain a matching
+ * state (stone, air, water...) are skipped without reading a single block. Only sections whose
+ * palette holds a match are iterated, and those reads go straight to the section's container.
+ *
+ * Chunks that are not loaded are skipped rather than loaded, so a scan never triggers chunk
+ * generation.
+ */
+final class ChunkSectionScanner {
+
+    /**
+     * Receives every matching block inside the scanned box.
+     */
+    @FunctionalInterface
+    interface Visitor {
+        /**
+         * @return {@code true} to keep scanning, {@code false} to stop the scan early
+         */
+        boolean visit(int x, int y, int z, BlockState state);
+    }
+
+    private ChunkSectionScanner() {
+    }
+
+    /**
+     * Visit every block matching {@code filter} inside the inclusive box [min, max].
+     *
+     * @return {@code false} if the visitor stopped the scan early, {@code true} otherwise
+     */
+    static boolean scan(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                        Predicate<BlockState> filter, Visitor visitor) {
+        int bottomY = world.getBottomY();
+        int topY = bottomY + world.getHeight() - 1;
+        minY = Math.max(minY, bottomY);
+        maxY = Math.min(maxY, topY);
+        if (minY > maxY) {
+            return true;
+        }
+
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                WorldChunk chunk = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+                if (chunk == null) {
+                    continue; // Never force-load chunks just to look for trees
+                }
+                if (!scanChunk(chunk, minX, minY, minZ, maxX, maxY, maxZ, filter, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The part of {@link #scan} inside one chunk. {@code minY} and {@code maxY} must already be
+     * clamped to the world's build height.
+     */
+    static boolean scanChunk(WorldChunk chunk, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                             Predicate<BlockState> filter, Visitor visitor) {
+        int baseX = chunk.getPos().x << 4;
+        int baseZ = chunk.getPos().z << 4;
+        int fromX = Math.max(minX, baseX) - baseX;
+        int toX = Math.min(maxX, baseX + 15) - baseX;
+        int fromZ = Math.max(minZ, baseZ) - baseZ;
+        int toZ = Math.min(maxZ, baseZ + 15) - baseZ;
+
+        ChunkSection[] sections = chunk.getSectionArray();
+        for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+            int baseY = sectionY << 4;
+            ChunkSection section = sections[chunk.getSectionIndex(baseY)];
+
+            // Palette check: skip the whole section if no state in it can match
+            if (section == null || section.isEmpty() || !section.hasAny(filter)) {
+                continue;
+            }
+
+            int fromY = Math.max(minY, baseY) - baseY;
+            int toY = Math.min(maxY, baseY + 15) - baseY;
+
+            // y/z/x order matches the container's storage layout
+            for (int localY = fromY; localY <= toY; localY++) {
+                for (int localZ = fromZ; localZ <= toZ; localZ++) {
+                    for (int localX = fromX; localX <= toX; localX++) {
+                        BlockState state = section.getBlockState(localX, localY, localZ);
+                        if (filter.test(state)
+                                && !visitor.visit(baseX + localX, baseY + localY, baseZ + localZ, state)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Read a block without loading its chunk. Unloaded positions read as air.
+     */
+    static BlockState getLoadedBlockState(World world, BlockPos pos) {
+        WorldChunk chunk = world.getChunkManager().getWorldChunk(pos.getX() >> 4, pos.getZ() >> 4);
+        return chunk != null ? chunk.getBlockState(pos) : Blocks.AIR.getDefaultState();
+    }
+}
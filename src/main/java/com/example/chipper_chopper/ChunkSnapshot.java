@@ -0,0 +1,123 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.function.Predicate;
+
+/**
+ * Immutable copy of the chunk sections around an agent, safe to read from any thread.
+ *
+ * Capturing copies every non-empty section, so line of sight and ground checks see stone and
+ * dirt just like the live world does. Empty sections and unloaded chunks read as air.
+ */
+final class ChunkSnapshot implements BlockAccess {
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final int minChunkX, minChunkZ, minSectionY;
+    private final int sizeX, sizeZ, sizeY;
+    private final PalettedContainer<BlockState>[] sections;
+    private int copiedSections;
+
+    @SuppressWarnings("unchecked")
+    private ChunkSnapshot(int minChunkX, int minChunkZ, int minSectionY, int sizeX, int sizeZ, int sizeY) {
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.minSectionY = minSectionY;
+        this.sizeX = sizeX;
+        this.sizeZ = sizeZ;
+        this.sizeY = sizeY;
+        this.sections = (PalettedContainer<BlockState>[]) new PalettedContainer[sizeX * sizeZ * sizeY];
+    }
+
+    /**
+     * Copy the sections covering the inclusive box [min, max]. Must run on the server thread.
+     */
+    static ChunkSnapshot capture(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        int bottomY = world.getBottomY();
+        minY = Math.max(minY, bottomY);
+        maxY = Math.min(maxY, bottomY + world.getHeight() - 1);
+
+        ChunkSnapshot snapshot = new ChunkSnapshot(minX >> 4, minZ >> 4, minY >> 4,
+            (maxX >> 4) - (minX >> 4) + 1, (maxZ >> 4) - (minZ >> 4) + 1, Math.max(0, (maxY >> 4) - (minY >> 4) + 1));
+
+        for (int dx = 0; dx < snapshot.sizeX; dx++) {
+            for (int dz = 0; dz < snapshot.sizeZ; dz++) {
+                WorldChunk chunk = world.getChunkManager().getWorldChunk(snapshot.minChunkX + dx, snapshot.minChunkZ + dz);
+                if (chunk == null) {
+                    continue;
+                }
+                ChunkSection[] chunkSections = chunk.getSectionArray();
+                for (int dy = 0; dy < snapshot.sizeY; dy++) {
+                    ChunkSection section = chunkSections[chunk.getSectionIndex((snapshot.minSectionY + dy) << 4)];
+                    if (section != null && !section.isEmpty()) {
+                        snapshot.sections[snapshot.index(dx, dz, dy)] = section.getBlockStateContainer().copy();
+                        snapshot.copiedSections++;
+                    }
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private int index(int dx, int dz, int dy) {
+        return (dx * sizeZ + dz) * sizeY + dy;
+    }
+
+    private PalettedContainer<BlockState> sectionAt(int x, int y, int z) {
+        int dx = (x >> 4) - minChunkX;
+        int dz = (z >> 4) - minChunkZ;
+        int dy = (y >> 4) - minSectionY;
+        if (dx < 0 || dx >= sizeX || dz < 0 || dz >= sizeZ || dy < 0 || dy >= sizeY) {
+            return null;
+        }
+        return sections[index(dx, dz, dy)];
+    }
+
+    @Override
+    public BlockState getBlockState(int x, int y, int z) {
+        PalettedContainer<BlockState> section = sectionAt(x, y, z);
+        return section != null ? section.get(x & 15, y & 15, z & 15) : AIR;
+    }
+
+    /**
+     * Same contract as {@link ChunkSectionScanner#scan}, over the snapshot instead of the world.
+     */
+    @Override
+    public boolean scan(int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                        Predicate<BlockState> filter, ChunkSectionScanner.Visitor visitor) {
+        for (int sectionX = minX >> 4; sectionX <= maxX >> 4; sectionX++) {
+            for (int sectionZ = minZ >> 4; sectionZ <= maxZ >> 4; sectionZ++) {
+                for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+                    int baseX = sectionX << 4;
+                    int baseY = sectionY << 4;
+                    int baseZ = sectionZ << 4;
+                    PalettedContainer<BlockState> section = sectionAt(baseX, baseY, baseZ);
+                    if (section == null || !section.hasAny(filter)) {
+                        continue;
+                    }
+
+                    for (int y = Math.max(minY, baseY); y <= Math.min(maxY, baseY + 15); y++) {
+                        for (int z = Math.max(minZ, baseZ); z <= Math.min(maxZ, baseZ + 15); z++) {
+                            for (int x = Math.max(minX, baseX); x <= Math.min(maxX, baseX + 15); x++) {
+                                BlockState state = section.get(x & 15, y & 15, z & 15);
+                                if (filter.test(state) && !visitor.visit(x, y, z, state)) {
+                                    return false;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    int copiedSections() {
+        return copiedSections;
+    }
+}
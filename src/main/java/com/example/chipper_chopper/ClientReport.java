@@ -0,0 +1,14 @@
+package com.example.chipper_chopper;
+
+/**
+ * What the client tells the agent about its mining. The client thread queues reports on the
+ * agent, which applies them at the start of its next turn.
+ */
+enum ClientReport {
+    /** The block being mined cracked further */
+    MINING_PROGRESS,
+    /** The client could not see the block it should mine */
+    LINE_OF_SIGHT_FAILURE,
+    /** The client gave up on the block it should mine */
+    TARGET_INACCESSIBLE
+}
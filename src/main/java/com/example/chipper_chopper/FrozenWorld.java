@@ -0,0 +1,87 @@
+package com.example.chipper_chopper;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.function.Predicate;
+
+/**
+ * View of the loaded chunks around the agents of one world, for the plan phase of a tick.
+ *
+ * The server thread looks the chunks up once; after that the view only reads their sections, so
+ * any number of planner threads can share it while the server thread waits for them. Nothing
+ * copies a section - the world is frozen simply because the only thread that changes it is
+ * blocked until planning is over. Positions outside the captured chunks read as air, like
+ * unloaded chunks do.
+ *
+ * Only valid until the server thread moves on: never keep a view across ticks.
+ */
+final class FrozenWorld implements BlockAccess {
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final World world;
+    private final int bottomY;
+    private final int topY;
+    private final Long2ObjectOpenHashMap<WorldChunk> chunks = new Long2ObjectOpenHashMap<>();
+
+    FrozenWorld(World world) {
+        this.world = world;
+        this.bottomY = world.getBottomY();
+        this.topY = bottomY + world.getHeight() - 1;
+    }
+
+    /**
+     * Add the loaded chunks within {@code radius} blocks of {@code center}. Server thread only, before planning.
+     */
+    void capture(BlockPos center, int radius) {
+        for (int chunkX = (center.getX() - radius) >> 4; chunkX <= (center.getX() + radius) >> 4; chunkX++) {
+            for (int chunkZ = (center.getZ() - radius) >> 4; chunkZ <= (center.getZ() + radius) >> 4; chunkZ++) {
+                long key = ChunkPos.toLong(chunkX, chunkZ);
+                if (!chunks.containsKey(key)) {
+                    chunks.put(key, world.getChunkManager().getWorldChunk(chunkX, chunkZ)); // Never loads; null if unloaded
+                }
+            }
+        }
+    }
+
+    @Override
+    public BlockState getBlockState(int x, int y, int z) {
+        if (y < bottomY || y > topY) {
+            return AIR;
+        }
+        WorldChunk chunk = chunks.get(ChunkPos.toLong(x >> 4, z >> 4));
+        if (chunk == null) {
+            return AIR;
+        }
+        ChunkSection section = chunk.getSectionArray()[chunk.getSectionIndex(y)];
+        return section == null || section.isEmpty() ? AIR : section.getBlockState(x & 15, y & 15, z & 15);
+    }
+
+    /**
+     * Same contract as {@link ChunkSectionScanner#scan}, over the captured chunks.
+     */
+    @Override
+    public boolean scan(int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                        Predicate<BlockState> filter, ChunkSectionScanner.Visitor visitor) {
+        minY = Math.max(minY, bottomY);
+        maxY = Math.min(maxY, topY);
+        if (minY > maxY) {
+            return true;
+        }
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                WorldChunk chunk = chunks.get(ChunkPos.toLong(chunkX, chunkZ));
+                if (chunk != null && !ChunkSectionScanner.scanChunk(chunk, minX, minY, minZ, maxX, maxY, maxZ, filter, visitor)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.function.Predicate;
+
+/**
+ * Summed-volume table of log occupancy around a set of candidate trees.
+ *
+ * The grid covers the candidates' bounding box grown by a margin. Logs are found with a
+ * section scan (sections without logs are never read), then turned into a 3D prefix sum, so the
+ * number of logs in any box inside the grid costs eight array reads however large the box is.
+ *
+ * Immutable once built; safe to share with worker threads.
+ */
+final class LogDensityGrid {
+    /**
+     * Radius of the log count the tree scorers use.
+     */
+    static final int TREE_RADIUS = 3;
+
+    private static final Predicate<BlockState> IS_LOG = state -> BlockClassifier.is(state, BlockClassifier.LOG);
+    private static final LogDensityGrid EMPTY = new LogDensityGrid(0, 0, 0, 0, 0, 0);
+
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+    // sums[index(x, y, z)] = logs in [min, min + (x, y, z)), with a zero plane on each low face
+    private final int[] sums;
+
+    private LogDensityGrid(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.sums = new int[(sizeX + 1) * (sizeY + 1) * (sizeZ + 1)];
+    }
+
+    /**
+     * Grid around {@code candidates} (packed positions) over the live world. Server thread only.
+     */
+    static LogDensityGrid of(World world, long[] candidates, int margin) {
+        LogDensityGrid grid = around(candidates, margin);
+        if (grid != EMPTY) {
+            ChunkSectionScanner.scan(world, grid.minX, grid.minY, grid.minZ, grid.maxX(), grid.maxY(), grid.maxZ(),
+                IS_LOG, grid::mark);
+            grid.accumulate();
+        }
+        return grid;
+    }
+
+    /**
+     * Grid around {@code candidates} (packed positions) over a snapshot or another block source.
+     */
+    static LogDensityGrid of(BlockAccess blocks, long[] candidates, int margin) {
+        LogDensityGrid grid = around(candidates, margin);
+        if (grid != EMPTY) {
+            blocks.scan(grid.minX, grid.minY, grid.minZ, grid.maxX(), grid.maxY(), grid.maxZ(), IS_LOG, grid::mark);
+            grid.accumulate();
+        }
+        return grid;
+    }
+
+    private static LogDensityGrid around(long[] candidates, int margin) {
+        if (candidates.length == 0) {
+            return EMPTY;
+        }
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        for (long packed : candidates) {
+            int x = BlockPos.unpackLongX(packed), y = BlockPos.unpackLongY(packed), z = BlockPos.unpackLongZ(packed);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        return new LogDensityGrid(minX - margin, minY - margin, minZ - margin,
+            maxX - minX + 2 * margin + 1, maxY - minY + 2 * margin + 1, maxZ - minZ + 2 * margin + 1);
+    }
+
+    /**
+     * Number of logs in the cube of the given radius around {@code center}. Parts of the cube
+     * outside the grid count as empty.
+     */
+    int countLogs(BlockPos center, int radius) {
+        int x0 = clamp(center.getX() - radius - minX, sizeX), x1 = clamp(center.getX() + radius + 1 - minX, sizeX);
+        int y0 = clamp(center.getY() - radius - minY, sizeY), y1 = clamp(center.getY() + radius + 1 - minY, sizeY);
+        int z0 = clamp(center.getZ() - radius - minZ, sizeZ), z1 = clamp(center.getZ() + radius + 1 - minZ, sizeZ);
+        if (x0 >= x1 || y0 >= y1 || z0 >= z1) {
+            return 0;
+        }
+        return sums[index(x1, y1, z1)] - sums[index(x0, y1, z1)] - sums[index(x1, y0, z1)] - sums[index(x1, y1, z0)]
+            + sums[index(x0, y0, z1)] + sums[index(x0, y1, z0)] + sums[index(x1, y0, z0)] - sums[index(x0, y0, z0)];
+    }
+
+    private boolean mark(int x, int y, int z, BlockState state) {
+        sums[index(x - minX + 1, y - minY + 1, z - minZ + 1)] = 1;
+        return true;
+    }
+
+    // Running sums along z, then y, then x turn occupancy into summed volumes
+    private void accumulate() {
+        for (int x = 1; x <= sizeX; x++) {
+            for (int y = 1; y <= sizeY; y++) {
+                int row = index(x, y, 0);
+                for (int z = 1; z <= sizeZ; z++) {
+                    sums[row + z] += sums[row + z - 1];
+                }
+            }
+        }
+        int strideY = sizeZ + 1;
+        for (int x = 1; x <= sizeX; x++) {
+            for (int y = 1; y <= sizeY; y++) {
+                int row = index(x, y, 0);
+                for (int z = 1; z <= sizeZ; z++) {
+                    sums[row + z] += sums[row - strideY + z];
+                }
+            }
+        }
+        int strideX = (sizeY + 1) * strideY;
+        for (int x = 1; x <= sizeX; x++) {
+            for (int y = 1; y <= sizeY; y++) {
+                int row = index(x, y, 0);
+                for (int z = 1; z <= sizeZ; z++) {
+                    sums[row + z] += sums[row - strideX + z];
+                }
+            }
+        }
+    }
+
+    private int index(int x, int y, int z) {
+        return (x * (sizeY + 1) + y) * (sizeZ + 1) + z;
+    }
+
+    private static int clamp(int offset, int size) {
+        return Math.max(0, Math.min(size, offset));
+    }
+
+    private int maxX() {
+        return minX + sizeX - 1;
+    }
+
+    private int maxY() {
+        return minY + sizeY - 1;
+    }
+
+    private int maxZ() {
+        return minZ + sizeZ - 1;
+    }
+}
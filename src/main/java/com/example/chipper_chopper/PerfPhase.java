@@ -0,0 +1,34 @@
+package com.example.chipper_chopper;
+
+/**
+ * Instrumented phases of the AI tick, for {@code /chipper perf}.
+ *
+ * Phases nest: an agent's task phase includes the searches and traces it ran.
+ */
+enum PerfPhase {
+    TICK("tick"),
+    PLAN("plan phase"),
+    COMMIT("commit phase"),
+    INDEX_SCAN("tree index scan"),
+    TREE_SEARCH("tree search"),
+    CANDIDATE_SCORING("candidate scoring"),
+    SIGHT_TRACE("LOS/leaf trace"),
+    ITEM_QUERY("item query"),
+    TASK_IDLE("task: idle"),
+    TASK_MOVING_TO_TREE("task: moving to tree"),
+    TASK_CHOPPING("task: chopping"),
+    TASK_COLLECTING("task: collecting"),
+    TASK_MOVING_TO_ITEM("task: moving to item"),
+    TASK_REPOSITIONING("task: repositioning"),
+    TASK_CLEARING_LEAVES("task: clearing leaves");
+
+    private final String label;
+
+    PerfPhase(String label) {
+        this.label = label;
+    }
+
+    String label() {
+        return label;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One latency histogram per {@link PerfPhase}.
+ *
+ * There is a set for the whole server and one per world (kept here), and one per agent (kept in
+ * the agent's state). Recording is lock-free, so worker threads can record into the same sets as
+ * the server thread.
+ */
+final class PerfStats {
+    private static final PerfPhase[] PHASES = PerfPhase.values();
+    private static final Map<World, PerfStats> BY_WORLD = new ConcurrentHashMap<>();
+    private static final PerfStats SERVER = new PerfStats();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+
+    PerfStats() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    static PerfStats of(World world) {
+        return BY_WORLD.computeIfAbsent(world, w -> new PerfStats());
+    }
+
+    /**
+     * Phases that belong to no single world, such as the whole AI tick.
+     */
+    static PerfStats server() {
+        return SERVER;
+    }
+
+    static Map<World, PerfStats> byWorld() {
+        return BY_WORLD;
+    }
+
+    static void onWorldUnload(MinecraftServer server, ServerWorld world) {
+        BY_WORLD.remove(world);
+    }
+
+    static void onServerStopping(MinecraftServer server) {
+        BY_WORLD.clear();
+        SERVER.reset();
+    }
+
+    /**
+     * Record a phase that started at {@code startNanos} (from {@link System#nanoTime()}) and just ended.
+     */
+    void recordSince(PerfPhase phase, long startNanos) {
+        record(phase, System.nanoTime() - startNanos);
+    }
+
+    void record(PerfPhase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+    }
+
+    void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * One line per phase that has samples.
+     */
+    List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (PerfPhase phase : PHASES) {
+            LatencyHistogram.Summary summary = histograms[phase.ordinal()].summary();
+            if (summary.count() > 0) {
+                lines.add(String.format("%s: n=%d p50=%.1fµs p99=%.1fµs max=%.1fµs total=%.1fms", phase.label(),
+                    summary.count(), summary.p50() / 1000.0, summary.p99() / 1000.0, summary.max() / 1000.0,
+                    summary.totalNanos() / 1_000_000.0));
+            }
+        }
+        return lines;
+    }
+}
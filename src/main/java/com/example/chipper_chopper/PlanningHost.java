@@ -0,0 +1,156 @@
+package com.example.chipper_chopper;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.function.LongPredicate;
+
+/**
+ * {@link AgentHost} for a turn planned off the server thread.
+ *
+ * Made on the server thread, which captures everything the turn may read from the player - its
+ * position, view, the client reports queued so far and, if the turn may collect, the items around
+ * it. The turn itself then runs on a planner thread, reading blocks from a {@link FrozenWorld} and
+ * trees from the index without indexing anything. What it would change outside the agent's own state - the player's
+ * view and the chunks it found unindexed - is held back until {@link #commit} on the server thread.
+ */
+final class PlanningHost implements AgentHost {
+    private final ServerPlayerEntity player;
+    private final BlockAccess blocks;
+    private final PerfStats perf;
+    private final TreeIndex index;
+    private final Queue<ClientReport> reports;
+    private final Vec3d pos;
+    private final BlockPos blockPos;
+    private final double eyeHeight;
+    private final List<Vec3d> items;
+    private final int itemRadius;
+    private final LongArrayList unindexedChunks = new LongArrayList();
+    private float yaw;
+    private float pitch;
+    private boolean rotated;
+
+    /**
+     * @param blocks     the agent's turn memo over the frozen view of the player's world
+     * @param reports    client reports taken from the agent's queue for this turn
+     * @param items      items around the player, or {@code null} if the turn cannot need them
+     * @param itemRadius radius {@code items} were gathered in
+     */
+    PlanningHost(ServerPlayerEntity player, BlockAccess blocks, Queue<ClientReport> reports,
+                 List<Vec3d> items, int itemRadius) {
+        ServerWorld world = player.getServerWorld();
+        this.player = player;
+        this.blocks = blocks;
+        this.perf = PerfStats.of(world);
+        this.index = TreeIndex.get(world);
+        this.reports = reports;
+        this.pos = player.getPos();
+        this.blockPos = player.getBlockPos();
+        this.eyeHeight = player.getEyeHeight(player.getPose());
+        this.items = items;
+        this.itemRadius = itemRadius;
+        this.yaw = player.getYaw();
+        this.pitch = player.getPitch();
+    }
+
+    /**
+     * Apply what the turn decided to the game. Server thread only, after planning.
+     */
+    void commit() {
+        if (rotated) {
+            player.setYaw(yaw);
+            player.setPitch(pitch);
+        }
+        // PERFORMANCE OPTIMIZATION: Chunks the turn could not index are scanned in the background, shared with every other agent
+        for (int i = 0; i < unindexedChunks.size(); i++) {
+            index.scanAsync(unindexedChunks.getLong(i));
+        }
+    }
+
+    @Override
+    public BlockAccess blocks() {
+        return blocks;
+    }
+
+    @Override
+    public PerfStats perf() {
+        return perf;
+    }
+
+    @Override
+    public ServerWorld serverWorld() {
+        return null; // Submitting an asynchronous search captures chunks, which only the server thread may do
+    }
+
+    @Override
+    public Vec3d pos() {
+        return pos;
+    }
+
+    @Override
+    public BlockPos blockPos() {
+        return blockPos;
+    }
+
+    @Override
+    public double eyeHeight() {
+        return eyeHeight;
+    }
+
+    @Override
+    public float yaw() {
+        return yaw;
+    }
+
+    @Override
+    public float pitch() {
+        return pitch;
+    }
+
+    @Override
+    public void setRotation(float yaw, float pitch) {
+        this.yaw = yaw;
+        this.pitch = pitch;
+        this.rotated = true;
+    }
+
+    @Override
+    public TreeModel treeModel(BlockPos pos) {
+        return TreeModel.of(blocks, pos); // The shared model cache is server thread only
+    }
+
+    @Override
+    public long[] findTrees(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept) {
+        return index.findNearest(origin, radius, minDy, maxDy, k, accept, unindexedChunks);
+    }
+
+    @Override
+    public TreeSearch searchTrees(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept) {
+        // Chunks skipped by the slices of later turns are left to the background indexing
+        return index.search(origin, radius, minDy, maxDy, k, accept, unindexedChunks);
+    }
+
+    @Override
+    public boolean isCurrent(TreeSearch search) {
+        // A search started by a server thread turn indexes chunks as it goes - start over instead
+        return search instanceof TreeSearchCursor cursor && cursor.index() == index && cursor.skipsQueuedChunks();
+    }
+
+    @Override
+    public List<Vec3d> nearbyItems(int radius) {
+        if (items == null || radius > itemRadius) {
+            throw new IllegalStateException("Items within " + radius + " blocks were not captured for this turn");
+        }
+        return items;
+    }
+
+    @Override
+    public ClientReport pollReport() {
+        return reports.poll();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.entity.ItemEntity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.LongPredicate;
+
+/**
+ * {@link AgentHost} over a live player and its world. Server thread only; made for one turn.
+ */
+final class PlayerHost implements AgentHost {
+    private final ServerPlayerEntity player;
+    private final BlockAccess blocks;
+    private final Queue<ClientReport> reports;
+
+    /**
+     * @param blocks  how the turn reads the player's world, usually the agent's turn memo
+     * @param reports client reports to hand out, or {@code null} for none
+     */
+    PlayerHost(ServerPlayerEntity player, BlockAccess blocks, Queue<ClientReport> reports) {
+        this.player = player;
+        this.blocks = blocks;
+        this.reports = reports;
+    }
+
+    @Override
+    public BlockAccess blocks() {
+        return blocks;
+    }
+
+    @Override
+    public PerfStats perf() {
+        return PerfStats.of(player.getWorld());
+    }
+
+    @Override
+    public ServerWorld serverWorld() {
+        return player.getServerWorld();
+    }
+
+    @Override
+    public Vec3d pos() {
+        return player.getPos();
+    }
+
+    @Override
+    public BlockPos blockPos() {
+        return player.getBlockPos();
+    }
+
+    @Override
+    public double eyeHeight() {
+        return player.getEyeHeight(player.getPose());
+    }
+
+    @Override
+    public float yaw() {
+        return player.getYaw();
+    }
+
+    @Override
+    public float pitch() {
+        return player.getPitch();
+    }
+
+    @Override
+    public void setRotation(float yaw, float pitch) {
+        // Applied directly - this syncs to the client automatically
+        player.setYaw(yaw);
+        player.setPitch(pitch);
+    }
+
+    @Override
+    public TreeModel treeModel(BlockPos pos) {
+        return TreeModel.of(player.getWorld(), pos);
+    }
+
+    @Override
+    public long[] findTrees(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept) {
+        return TreeIndex.get(player.getServerWorld()).findNearest(origin, radius, minDy, maxDy, k, accept);
+    }
+
+    @Override
+    public TreeSearch searchTrees(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept) {
+        return TreeIndex.get(player.getServerWorld()).search(origin, radius, minDy, maxDy, k, accept);
+    }
+
+    @Override
+    public boolean isCurrent(TreeSearch search) {
+        return search instanceof TreeSearchCursor cursor && cursor.index() == TreeIndex.get(player.getServerWorld());
+    }
+
+    @Override
+    public List<Vec3d> nearbyItems(int radius) {
+        return itemsAround(player, radius);
+    }
+
+    /**
+     * Positions of the items within {@code radius} blocks of the player's block that it can pick up.
+     */
+    static List<Vec3d> itemsAround(ServerPlayerEntity player, int radius) {
+        List<ItemEntity> items = player.getWorld().getEntitiesByClass(
+            ItemEntity.class,
+            new Box(player.getBlockPos()).expand(radius),
+            item -> item.isAlive() && !item.cannotPickup()
+        );
+        List<Vec3d> positions = new ArrayList<>(items.size());
+        for (ItemEntity item : items) {
+            positions.add(item.getPos());
+        }
+        return positions;
+    }
+
+    @Override
+    public ClientReport pollReport() {
+        return reports != null ? reports.poll() : null;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Layout of a recorded agent session, written by {@link SessionRecorder} and read back by the
+ * replayer of the benchmark source set.
+ *
+ * A session is a header followed by tagged records. Counts and ids are unsigned varints (7 bits
+ * per byte, low bits first); coordinates are zigzag varints relative to a nearby position;
+ * doubles and floats are the XOR of their bits with the previous value of the same field, so a
+ * value that did not change costs one byte.
+ *
+ * <pre>
+ * header    MAGIC, VERSION, agent start tick, player name
+ * PALETTE   raw state id, classifier flags, state name        (defines the next palette index)
+ * SECTION   section x, y, z, then (run length, palette index) pairs over its 4096 blocks in y, z, x order
+ * BLOCK     x, y, z relative to the previous BLOCK, palette index   (a captured block changed)
+ * TURN      tick relative to the previous turn, x, y, z, yaw, pitch, eye height,
+ *           then the answers the turn was given, in the order it asked, up to END_TURN
+ * END
+ * </pre>
+ *
+ * Answers: REPORT (report ordinal), TREES (count, then bases relative to the player's block),
+ * SEARCH (1 if this slice finished the search, then its result as for TREES), ITEMS (count, then
+ * x, y, z of each item as doubles) and END_TURN (the agent's state digest, 8 bytes).
+ */
+final class SessionFile {
+    static final int MAGIC = 0x43485353; // "CHSS"
+    static final int VERSION = 1;
+    static final String EXTENSION = ".chsession";
+
+    // Records
+    static final int PALETTE = 1;
+    static final int SECTION = 2;
+    static final int BLOCK = 3;
+    static final int TURN = 4;
+    static final int END = 5;
+
+    // Answers inside a turn
+    static final int REPORT = 16;
+    static final int TREES = 17;
+    static final int SEARCH = 18;
+    static final int ITEMS = 19;
+    static final int END_TURN = 20;
+
+    private SessionFile() {
+    }
+
+    /**
+     * Growable byte buffer with the session encodings. Never throws; {@link #drainTo} does the I/O.
+     */
+    static final class Output {
+        private byte[] bytes = new byte[8192];
+        private int size;
+
+        void writeByte(int value) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeInt(int value) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                writeByte(value >>> shift);
+            }
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        /**
+         * @return {@code value}, to be passed as {@code previous} next time
+         */
+        double writeDouble(double value, double previous) {
+            writeVarLong(Double.doubleToRawLongBits(value) ^ Double.doubleToRawLongBits(previous));
+            return value;
+        }
+
+        float writeFloat(float value, float previous) {
+            writeVarLong((Float.floatToRawIntBits(value) ^ Float.floatToRawIntBits(previous)) & 0xFFFFFFFFL);
+            return value;
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            for (byte b : utf8) {
+                writeByte(b);
+            }
+        }
+
+        /**
+         * Packed positions relative to {@code originX/Y/Z}, preceded by their count.
+         */
+        void writePositions(long[] positions, int originX, int originY, int originZ) {
+            writeVarLong(positions.length);
+            for (long packed : positions) {
+                writeSignedVarLong(BlockPos.unpackLongX(packed) - originX);
+                writeSignedVarLong(BlockPos.unpackLongY(packed) - originY);
+                writeSignedVarLong(BlockPos.unpackLongZ(packed) - originZ);
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        void drainTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+            size = 0;
+        }
+    }
+
+    /**
+     * Reader over a whole session in memory.
+     */
+    static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        boolean hasMore() {
+            return position < bytes.length;
+        }
+
+        int readByte() {
+            if (position == bytes.length) {
+                throw new IllegalStateException("Session ends in the middle of a record");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Malformed varint at byte " + position);
+        }
+
+        int readVarInt() {
+            return Math.toIntExact(readVarLong());
+        }
+
+        long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        int readSignedVarInt() {
+            return Math.toIntExact(readSignedVarLong());
+        }
+
+        int readInt() {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = value << 8 | readByte();
+            }
+            return value;
+        }
+
+        long readLong() {
+            return (long) readInt() << 32 | (readInt() & 0xFFFFFFFFL);
+        }
+
+        double readDouble(double previous) {
+            return Double.longBitsToDouble(readVarLong() ^ Double.doubleToRawLongBits(previous));
+        }
+
+        float readFloat(float previous) {
+            return Float.intBitsToFloat((int) readVarLong() ^ Float.floatToRawIntBits(previous));
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length > bytes.length - position) {
+                throw new IllegalStateException("Session ends in the middle of a record");
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        long[] readPositions(int originX, int originY, int originZ) {
+            long[] positions = new long[readVarInt()];
+            for (int i = 0; i < positions.length; i++) {
+                int x = originX + readSignedVarInt();
+                int y = originY + readSignedVarInt();
+                int z = originZ + readSignedVarInt();
+                positions[i] = BlockPos.asLong(x, y, z);
+            }
+            return positions;
+        }
+    }
+}
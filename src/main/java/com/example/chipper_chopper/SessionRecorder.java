@@ -0,0 +1,420 @@
+package com.example.chipper_chopper;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * Records one agent's session for {@code /chipper record}, to be replayed outside the game by
+ * the replayer of the benchmark source set. The file layout is described in {@link SessionFile}.
+ *
+ * For each turn the recorder wraps the live {@link AgentHost} and logs where the player stands
+ * and looks, then every answer the turn gets from the game: client reports, tree index results
+ * and nearby items. The blocks around the player are captured a section at a time as the player
+ * comes near them, and every later change to a captured section is logged as it happens, so the
+ * replay reads exactly what the turn read. While recording, tree searches stay on the server
+ * thread and tree models are built from the turn's blocks rather than taken from the shared cache.
+ *
+ * Server thread only. Output is buffered and written between turns.
+ */
+final class SessionRecorder implements AgentHost {
+    // Sections captured around the player's section: at least 48 blocks sideways, 32 down and
+    // 48 up, enough for the widest tree search plus the reach of a tree model
+    private static final int CAPTURE_SIDEWAYS = 3;
+    private static final int CAPTURE_DOWN = 2;
+    private static final int CAPTURE_UP = 3;
+    private static final int FLUSH_BYTES = 64 * 1024;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final List<SessionRecorder> OPEN = new ArrayList<>();
+
+    private final Path path;
+    private final OutputStream file;
+    private final ServerWorld world;
+    private final SessionFile.Output out = new SessionFile.Output();
+    private final LongOpenHashSet capturedSections = new LongOpenHashSet();
+    private final Map<BlockState, Integer> palette = new IdentityHashMap<>();
+    private final int[] sectionIds = new int[16 * 16 * 16];
+
+    private AgentHost live; // Host of the turn in progress
+    private boolean closed;
+    private long bytesWritten;
+    private int turns;
+    private int lastTick;
+    private long completeAround = Long.MIN_VALUE; // Player section whose surroundings are all captured
+    private int lastBlockX, lastBlockY, lastBlockZ;
+    private double lastX, lastY, lastZ, lastEyeHeight;
+    private float lastYaw, lastPitch;
+
+    private SessionRecorder(Path path, OutputStream file, ServerWorld world, int startTick) {
+        this.path = path;
+        this.file = file;
+        this.world = world;
+        this.lastTick = startTick;
+    }
+
+    /**
+     * Create the session file for an agent that starts at {@code startTick}.
+     */
+    static SessionRecorder open(ServerPlayerEntity player, int startTick) throws IOException {
+        Path directory = FabricLoader.getInstance().getGameDir().resolve("chipper-sessions");
+        Files.createDirectories(directory);
+        String name = player.getName().getString();
+        Path path = directory.resolve(name + "-" + LocalDateTime.now().format(FILE_TIME) + SessionFile.EXTENSION);
+        SessionRecorder recorder = new SessionRecorder(path, new BufferedOutputStream(Files.newOutputStream(path)),
+            player.getServerWorld(), startTick);
+        recorder.out.writeInt(SessionFile.MAGIC);
+        recorder.out.writeVarLong(SessionFile.VERSION);
+        recorder.out.writeVarLong(startTick);
+        recorder.out.writeString(name);
+        OPEN.add(recorder);
+        ChipperChopperMod.LOGGER.info("Recording the agent of " + name + " to " + path);
+        return recorder;
+    }
+
+    /**
+     * Start logging a turn.
+     *
+     * @return the host the turn should run on: this recorder, or {@code live} once recording has stopped
+     */
+    AgentHost beginTurn(AgentHost live, int tick) {
+        if (closed) {
+            return live;
+        }
+        if (live.serverWorld() != world) {
+            ChipperChopperMod.LOGGER.info("Session recording to " + path + " stopped: the player changed worlds");
+            close();
+            return live;
+        }
+        this.live = live;
+        captureAround(live.blockPos());
+
+        out.writeByte(SessionFile.TURN);
+        out.writeVarLong(tick - lastTick);
+        lastTick = tick;
+        Vec3d pos = live.pos();
+        lastX = out.writeDouble(pos.x, lastX);
+        lastY = out.writeDouble(pos.y, lastY);
+        lastZ = out.writeDouble(pos.z, lastZ);
+        lastYaw = out.writeFloat(live.yaw(), lastYaw);
+        lastPitch = out.writeFloat(live.pitch(), lastPitch);
+        lastEyeHeight = out.writeDouble(live.eyeHeight(), lastEyeHeight);
+        return this;
+    }
+
+    /**
+     * Finish logging a turn with the agent's {@link TreeChopperAI#stateDigest}.
+     */
+    void endTurn(long digest) {
+        if (closed || live == null) {
+            return;
+        }
+        out.writeByte(SessionFile.END_TURN);
+        out.writeLong(digest);
+        live = null;
+        turns++;
+        if (out.size() >= FLUSH_BYTES) {
+            flush();
+        }
+    }
+
+    /**
+     * Log a block change if it falls into a captured section of a recorded world.
+     */
+    static void onBlockChanged(ServerWorld world, BlockPos pos, BlockState newState) {
+        for (int i = 0; i < OPEN.size(); i++) {
+            OPEN.get(i).blockChanged(world, pos, newState);
+        }
+    }
+
+    static void onServerStopping(MinecraftServer server) {
+        for (SessionRecorder recorder : new ArrayList<>(OPEN)) {
+            recorder.close();
+        }
+    }
+
+    /**
+     * Finish the file. Safe to call more than once.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        out.writeByte(SessionFile.END);
+        flush();
+        finish(null);
+        ChipperChopperMod.LOGGER.info("Session recording finished: " + describe());
+    }
+
+    Path path() {
+        return path;
+    }
+
+    String describe() {
+        return String.format("%s (%d turns, %.1f KiB)", path, turns, (bytesWritten + out.size()) / 1024.0);
+    }
+
+    private void blockChanged(ServerWorld world, BlockPos pos, BlockState newState) {
+        if (world != this.world || !capturedSections.contains(BlockPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4))) {
+            return;
+        }
+        int id = paletteId(newState);
+        out.writeByte(SessionFile.BLOCK);
+        out.writeSignedVarLong(pos.getX() - lastBlockX);
+        out.writeSignedVarLong(pos.getY() - lastBlockY);
+        out.writeSignedVarLong(pos.getZ() - lastBlockZ);
+        out.writeVarLong(id);
+        lastBlockX = pos.getX();
+        lastBlockY = pos.getY();
+        lastBlockZ = pos.getZ();
+    }
+
+    // PERFORMANCE OPTIMIZATION: Nothing to do while the player stays in a section whose surroundings are captured
+    private void captureAround(BlockPos pos) {
+        int centerX = pos.getX() >> 4;
+        int centerY = pos.getY() >> 4;
+        int centerZ = pos.getZ() >> 4;
+        long center = BlockPos.asLong(centerX, centerY, centerZ);
+        if (center == completeAround) {
+            return;
+        }
+        boolean complete = true;
+        for (int sx = centerX - CAPTURE_SIDEWAYS; sx <= centerX + CAPTURE_SIDEWAYS; sx++) {
+            for (int sz = centerZ - CAPTURE_SIDEWAYS; sz <= centerZ + CAPTURE_SIDEWAYS; sz++) {
+                for (int sy = centerY - CAPTURE_DOWN; sy <= centerY + CAPTURE_UP; sy++) {
+                    long key = BlockPos.asLong(sx, sy, sz);
+                    if (capturedSections.contains(key)) {
+                        continue;
+                    }
+                    if (captureSection(sx, sy, sz)) {
+                        capturedSections.add(key);
+                    } else {
+                        complete = false;
+                    }
+                }
+            }
+        }
+        completeAround = complete ? center : Long.MIN_VALUE;
+    }
+
+    /**
+     * @return {@code false} if the section's chunk is not loaded yet
+     */
+    private boolean captureSection(int sectionX, int sectionY, int sectionZ) {
+        WorldChunk chunk = world.getChunkManager().getWorldChunk(sectionX, sectionZ); // Never loads
+        if (chunk == null) {
+            return false;
+        }
+        int y = sectionY << 4;
+        if (y < world.getBottomY() || y >= world.getBottomY() + world.getHeight()) {
+            return true; // Outside the build height, reads as air
+        }
+        ChunkSection section = chunk.getSectionArray()[chunk.getSectionIndex(y)];
+        if (section == null || section.isEmpty()) {
+            return true; // The replay reads every section it was not given as air
+        }
+
+        // Palette records must come before the section that uses them
+        for (int i = 0; i < sectionIds.length; i++) {
+            sectionIds[i] = paletteId(section.getBlockState(i & 15, i >> 8, (i >> 4) & 15));
+        }
+        out.writeByte(SessionFile.SECTION);
+        out.writeSignedVarLong(sectionX);
+        out.writeSignedVarLong(sectionY);
+        out.writeSignedVarLong(sectionZ);
+        int run = 1;
+        for (int i = 1; i <= sectionIds.length; i++) {
+            if (i < sectionIds.length && sectionIds[i] == sectionIds[i - 1]) {
+                run++;
+            } else {
+                out.writeVarLong(run);
+                out.writeVarLong(sectionIds[i - 1]);
+                run = 1;
+            }
+        }
+        return true;
+    }
+
+    private int paletteId(BlockState state) {
+        Integer id = palette.get(state);
+        if (id == null) {
+            id = palette.size();
+            palette.put(state, id);
+            out.writeByte(SessionFile.PALETTE);
+            out.writeVarLong(Block.getRawIdFromState(state));
+            out.writeVarLong(BlockClassifier.flags(state));
+            out.writeString(state.toString());
+        }
+        return id;
+    }
+
+    private void flush() {
+        try {
+            bytesWritten += out.size();
+            out.drainTo(file);
+        } catch (IOException e) {
+            ChipperChopperMod.LOGGER.error("Session recording to " + path + " failed, stopping it", e);
+            finish(e);
+        }
+    }
+
+    private void finish(IOException failure) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        live = null;
+        OPEN.remove(this);
+        try {
+            file.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                ChipperChopperMod.LOGGER.error("Could not close session file " + path, e);
+            }
+        }
+    }
+
+    @Override
+    public BlockAccess blocks() {
+        return live.blocks();
+    }
+
+    @Override
+    public PerfStats perf() {
+        return live.perf();
+    }
+
+    @Override
+    public ServerWorld serverWorld() {
+        return null; // Everything the turn does has to be on the record
+    }
+
+    @Override
+    public Vec3d pos() {
+        return live.pos();
+    }
+
+    @Override
+    public BlockPos blockPos() {
+        return live.blockPos();
+    }
+
+    @Override
+    public double eyeHeight() {
+        return live.eyeHeight();
+    }
+
+    @Override
+    public float yaw() {
+        return live.yaw();
+    }
+
+    @Override
+    public float pitch() {
+        return live.pitch();
+    }
+
+    @Override
+    public void setRotation(float yaw, float pitch) {
+        live.setRotation(yaw, pitch);
+    }
+
+    @Override
+    public TreeModel treeModel(BlockPos pos) {
+        // Built from the captured blocks, as the replay builds it; the cache may hold models from before the recording
+        return TreeModel.of(live.blocks(), pos);
+    }
+
+    @Override
+    public long[] findTrees(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept) {
+        long[] trees = live.findTrees(origin, radius, minDy, maxDy, k, accept);
+        out.writeByte(SessionFile.TREES);
+        out.writePositions(trees, origin.getX(), origin.getY(), origin.getZ());
+        return trees;
+    }
+
+    @Override
+    public TreeSearch searchTrees(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept) {
+        return new RecordedSearch(live.searchTrees(origin, radius, minDy, maxDy, k, accept), origin);
+    }
+
+    @Override
+    public boolean isCurrent(TreeSearch search) {
+        return search instanceof RecordedSearch;
+    }
+
+    @Override
+    public List<Vec3d> nearbyItems(int radius) {
+        List<Vec3d> items = live.nearbyItems(radius);
+        Vec3d pos = live.pos();
+        out.writeByte(SessionFile.ITEMS);
+        out.writeVarLong(items.size());
+        for (Vec3d item : items) {
+            out.writeDouble(item.x, pos.x);
+            out.writeDouble(item.y, pos.y);
+            out.writeDouble(item.z, pos.z);
+        }
+        return items;
+    }
+
+    @Override
+    public ClientReport pollReport() {
+        ClientReport report = live.pollReport();
+        if (report != null) {
+            out.writeByte(SessionFile.REPORT);
+            out.writeVarLong(report.ordinal());
+        }
+        return report;
+    }
+
+    /**
+     * Logs each slice of a search started during the recording.
+     */
+    private final class RecordedSearch implements TreeSearch {
+        private final TreeSearch search;
+        private final BlockPos origin;
+
+        RecordedSearch(TreeSearch search, BlockPos origin) {
+            this.search = search;
+            this.origin = origin;
+        }
+
+        @Override
+        public boolean advance(long budgetNanos, int maxColumns) {
+            boolean finished = search.advance(budgetNanos, maxColumns);
+            if (!closed) {
+                out.writeByte(SessionFile.SEARCH);
+                out.writeByte(finished ? 1 : 0);
+                if (finished) {
+                    out.writePositions(search.result(), origin.getX(), origin.getY(), origin.getZ());
+                }
+            }
+            return finished;
+        }
+
+        @Override
+        public long[] result() {
+            return search.result();
+        }
+    }
+}
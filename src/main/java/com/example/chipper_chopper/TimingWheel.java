@@ -0,0 +1,177 @@
+package com.example.chipper_chopper;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timing wheel over server ticks.
+ *
+ * Four levels of 64 slots cover 64^4 ticks (about 9.7 days). A timer sits in the lowest level
+ * whose slot span still separates its due tick from the current tick; when a level's slot comes
+ * round, its timers cascade down one level, and timers reaching level 0 fire in their exact tick.
+ * Scheduling and firing are O(1) amortized and nothing ever sweeps a whole collection.
+ *
+ * Timers are primitive (kind, key, stamp) triples in pooled arrays, so the wheel does not
+ * allocate per timer. Timers cannot be cancelled: the handler is expected to check the stamp
+ * against the current state of its entry and ignore timers that no longer apply.
+ *
+ * Not thread-safe.
+ */
+final class TimingWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final int NONE = -1;
+
+    /**
+     * Receives expired timers.
+     */
+    @FunctionalInterface
+    interface Handler {
+        void expire(int kind, long key, long stamp);
+    }
+
+    private final Handler handler;
+    private final int[][] slotHeads = new int[LEVELS][SLOTS];
+
+    // Timer pool, linked per slot through next[]
+    private int[] kinds = new int[64];
+    private long[] keys = new long[64];
+    private long[] stamps = new long[64];
+    private long[] dueTicks = new long[64];
+    private int[] next = new int[64];
+    private int freeHead = NONE;
+    private int used;
+    private int pending;
+
+    private long now;
+
+    TimingWheel(Handler handler, long startTick) {
+        this.handler = handler;
+        this.now = startTick;
+        for (int[] heads : slotHeads) {
+            Arrays.fill(heads, NONE);
+        }
+    }
+
+    long now() {
+        return now;
+    }
+
+    int pending() {
+        return pending;
+    }
+
+    /**
+     * Fire {@code kind, key, stamp} once {@code delayTicks} ticks have passed (at least one).
+     */
+    void schedule(long delayTicks, int kind, long key, long stamp) {
+        int timer = allocate();
+        kinds[timer] = kind;
+        keys[timer] = key;
+        stamps[timer] = stamp;
+        dueTicks[timer] = now + Math.max(1, delayTicks);
+        place(timer);
+        pending++;
+    }
+
+    /**
+     * Move the clock forward to {@code tick}, firing every timer that falls due on the way.
+     */
+    void advanceTo(long tick) {
+        if (pending == 0) {
+            now = Math.max(now, tick); // Nothing to fire - skip straight there
+            return;
+        }
+        while (now < tick) {
+            now++;
+            // Cascade every level whose lower levels just wrapped around
+            for (int level = 1; level < LEVELS; level++) {
+                if ((now & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(level, (int) (now >>> (SLOT_BITS * level)) & SLOT_MASK);
+            }
+
+            int slot = (int) now & SLOT_MASK;
+            int timer = slotHeads[0][slot];
+            slotHeads[0][slot] = NONE;
+            while (timer != NONE) {
+                int following = next[timer];
+                int kind = kinds[timer];
+                long key = keys[timer];
+                long stamp = stamps[timer];
+                release(timer);
+                pending--;
+                handler.expire(kind, key, stamp);
+                timer = following;
+            }
+            if (pending == 0) {
+                now = tick;
+            }
+        }
+    }
+
+    /**
+     * Drop every pending timer.
+     */
+    void clear() {
+        for (int[] heads : slotHeads) {
+            Arrays.fill(heads, NONE);
+        }
+        freeHead = NONE;
+        used = 0;
+        pending = 0;
+    }
+
+    /**
+     * Bytes held by the timer pool and slot tables.
+     */
+    long footprintBytes() {
+        return 4L * LEVELS * SLOTS + (4L + 8L + 8L + 8L + 4L) * kinds.length;
+    }
+
+    private void cascade(int level, int slot) {
+        int timer = slotHeads[level][slot];
+        slotHeads[level][slot] = NONE; // Detach first - a timer may land in this same slot again
+        while (timer != NONE) {
+            int following = next[timer];
+            place(timer);
+            timer = following;
+        }
+    }
+
+    private void place(int timer) {
+        long due = Math.max(dueTicks[timer], now);
+        long differing = due ^ now;
+        int level = 0;
+        while (level < LEVELS - 1 && (differing >>> (SLOT_BITS * (level + 1))) != 0) {
+            level++;
+        }
+        int slot = (int) (due >>> (SLOT_BITS * level)) & SLOT_MASK;
+        next[timer] = slotHeads[level][slot];
+        slotHeads[level][slot] = timer;
+    }
+
+    private int allocate() {
+        if (freeHead != NONE) {
+            int timer = freeHead;
+            freeHead = next[timer];
+            return timer;
+        }
+        if (used == kinds.length) {
+            int capacity = kinds.length * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            stamps = Arrays.copyOf(stamps, capacity);
+            dueTicks = Arrays.copyOf(dueTicks, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return used++;
+    }
+
+    private void release(int timer) {
+        next[timer] = freeHead;
+        freeHead = timer;
+    }
+}
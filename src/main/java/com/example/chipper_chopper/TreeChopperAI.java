@@ -1,20 +1,25 @@
 package com.example.chipper_chopper;
 
-import net.minecraft.block.Block;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
-import net.minecraft.entity.ItemEntity;
-import net.minecraft.util.math.Box;
 import net.minecraft.util.math.MathHelper;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class TreeChopperAI {
     private static final Map<UUID, AIState> playerStates = new ConcurrentHashMap<>();
@@ -46,29 +51,64 @@ public class TreeChopperAI {
     
     // PERFORMANCE OPTIMIZATION: Tick frequency control
     private static int globalTickCounter = 0;
-    private static final int AI_PROCESS_INTERVAL = 3; // Process AI every 3 ticks instead of every tick
-    
-    // PERFORMANCE OPTIMIZATION: Caching system
-    private static final Map<BlockPos, Long> treeLocationCache = new ConcurrentHashMap<>();
-    private static final Map<UUID, Long> lastProcessedTime = new ConcurrentHashMap<>();
-    private static final long CACHE_DURATION_MS = 30000; // 30 seconds cache
-    private static final long PLAYER_PROCESS_INTERVAL_MS = 150; // Process each player max every 150ms
+    private static final ThreadLocal<AIState> activeAgent = new ThreadLocal<>(); // Agent whose turn this thread runs, if any
+    private static final int AI_PROCESS_INTERVAL = 3; // Each agent takes a turn every 3 ticks instead of every tick
+    // Task phases in AIState.Task order, so a turn picks its histogram without a lookup
+    private static final PerfPhase[] TASK_PHASES = {
+        PerfPhase.TASK_IDLE, PerfPhase.TASK_MOVING_TO_TREE, PerfPhase.TASK_CHOPPING, PerfPhase.TASK_COLLECTING,
+        PerfPhase.TASK_MOVING_TO_ITEM, PerfPhase.TASK_REPOSITIONING, PerfPhase.TASK_CLEARING_LEAVES
+    };
+    
+    // PERFORMANCE OPTIMIZATION: Bounded candidate sets (tree locations live in TreeIndex)
+    private static final int MAX_TREE_CANDIDATES = 32; // Nearest indexed trees considered for scoring
+    private static final int MAX_EXPLORATION_CANDIDATES = 256; // Forced exploration looks at (almost) every tree in range
+    
+    // PERFORMANCE OPTIMIZATION: Total AI time per server tick, shared fairly between agents
+    private static final long AI_TICK_BUDGET_NANOS = 5_000_000; // 5 ms of the 50 ms tick
+    private static final AgentScheduler SCHEDULER = new AgentScheduler(AI_PROCESS_INTERVAL); // Active agents only, turns staggered over the interval
+    
+    // PERFORMANCE OPTIMIZATION: Optional off-thread tree search on chunk snapshots
+    private static volatile boolean asyncSearchEnabled = false;
+    private static final int ASYNC_SNAPSHOT_MARGIN = 10; // Matches TreeModel's horizontal flood fill reach
+    
+    // PERFORMANCE OPTIMIZATION: Per-tick budget for resumable large-radius searches
+    private static final long TREE_SEARCH_BUDGET_NANOS = 500_000; // 0.5 ms per agent per AI tick
+    private static final int TREE_SEARCH_COLUMNS_PER_TICK = 16; // Chunk columns visited per AI tick
+    private static final int EXPANDED_SEARCH_IDLE_TICKS = 300; // Idle this long before searching twice as far
+    
+    // PERFORMANCE OPTIMIZATION: Idle agents that find nothing sleep with exponential backoff instead of searching again
+    private static final int MIN_IDLE_BACKOFF_TICKS = 20; // First sleep: 1 second
+    private static final int MAX_IDLE_BACKOFF_TICKS = 1200; // Never sleep longer than a minute
+    private static final int IDLE_WAKE_LOG_RADIUS = SEARCH_RADIUS * 2; // A log appearing this close wakes a sleeping agent
+    private static volatile int idleWakeDistance = 8; // Blocks a player walks before its sleeping agent looks again
+    
+    // PERFORMANCE OPTIMIZATION: Optional parallel plan phase over a frozen world, committed on the server thread
+    private static volatile boolean parallelPlanningEnabled = false;
+    private static final int PARALLEL_PLANNING_MIN_AGENTS = 4; // Fewer agents are cheaper to run in line
+    private static final int PLAN_VIEW_RADIUS = SEARCH_RADIUS * 2 + ASYNC_SNAPSHOT_MARGIN; // Expanded search plus tree models
+    private static final Queue<ClientReport> NO_REPORTS = new ArrayDeque<>(0); // Only ever polled, so shared by all planned turns
     
     public static void start(PlayerEntity player) {
         if (player != null) {
             AIState state = new AIState();
             playerStates.put(player.getUuid(), state);
-            playerIntelligence.put(player.getUuid(), new OptimizedIntelligence());
-            lastProcessedTime.put(player.getUuid(), 0L);
+            SCHEDULER.add(player.getUuid());
+            playerIntelligence.put(player.getUuid(), new OptimizedIntelligence(globalTickCounter));
             ChipperChopperMod.LOGGER.info("Started optimized AI for player: " + player.getName().getString());
         }
     }
     
     public static void stop(PlayerEntity player) {
         if (player != null) {
-            playerStates.remove(player.getUuid());
+            AIState state = playerStates.remove(player.getUuid());
+            SCHEDULER.remove(player.getUuid());
+            if (state != null) {
+                cancelPendingSearch(state);
+                if (state.recorder != null) {
+                    state.recorder.close();
+                }
+            }
             playerIntelligence.remove(player.getUuid());
-            lastProcessedTime.remove(player.getUuid());
             ChipperChopperMod.LOGGER.info("Stopped AI for player: " + player.getName().getString());
         }
     }
@@ -77,47 +117,343 @@ public class TreeChopperAI {
         return player != null && playerStates.containsKey(player.getUuid());
     }
     
+    /**
+     * Restart a player's agent with a {@link SessionRecorder} attached, for {@code /chipper record start}.
+     * The recording starts with the agent, so a replay can start from a fresh agent too.
+     *
+     * @return the session file
+     */
+    public static Path startRecording(ServerPlayerEntity player) throws IOException {
+        SessionRecorder recorder = SessionRecorder.open(player, globalTickCounter);
+        stop(player);
+        start(player);
+        playerStates.get(player.getUuid()).recorder = recorder;
+        return recorder.path();
+    }
+    
+    /**
+     * Finish a player's recording; the agent keeps running.
+     *
+     * @return a description of the finished session, or {@code null} if none was being recorded
+     */
+    public static String stopRecording(PlayerEntity player) {
+        AIState state = player != null ? playerStates.get(player.getUuid()) : null;
+        if (state == null || state.recorder == null) {
+            return null;
+        }
+        SessionRecorder recorder = state.recorder;
+        state.recorder = null;
+        recorder.close();
+        return recorder.describe();
+    }
+    
     public static void tick(MinecraftServer server) {
         globalTickCounter++;
         
-        // PERFORMANCE OPTIMIZATION: Only process AI every few ticks instead of every tick
-        if (globalTickCounter % AI_PROCESS_INTERVAL != 0) {
-            return;
+        long tickStart = System.nanoTime();
+        try {
+            runAgents(server);
+        } finally {
+            PerfStats.server().recordSince(PerfPhase.TICK, tickStart);
+        }
+    }
+    
+    private static void runAgents(MinecraftServer server) {
+        // PERFORMANCE OPTIMIZATION: Index a few freshly loaded chunks while agents are running
+        if (!playerStates.isEmpty() && globalTickCounter % AI_PROCESS_INTERVAL == 0) {
+            TreeIndex.tickAll(server);
         }
         
-        long currentTime = System.currentTimeMillis();
+        // PERFORMANCE OPTIMIZATION: Only the agents whose turn comes round this tick are looked at
+        SCHEDULER.advanceTo(globalTickCounter);
         
-        // PERFORMANCE OPTIMIZATION: Clean up old cache entries periodically
-        if (globalTickCounter % 200 == 0) { // Every 10 seconds
-            cleanupCache(currentTime);
-        }
+        // PERFORMANCE OPTIMIZATION: Turns that only read the world are planned side by side first
+        Set<UUID> planned = parallelPlanningEnabled ? planTurns(server) : Set.of();
         
-        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
-            AIState state = playerStates.get(player.getUuid());
-            OptimizedIntelligence intelligence = playerIntelligence.get(player.getUuid());
+        // PERFORMANCE OPTIMIZATION: Due agents in turn under a global time budget
+        SCHEDULER.run(AI_TICK_BUDGET_NANOS, uuid -> {
+            if (planned.contains(uuid)) {
+                return false; // Already had its turn this tick
+            }
+            ServerPlayerEntity player = server.getPlayerManager().getPlayer(uuid);
+            AIState state = playerStates.get(uuid);
+            OptimizedIntelligence intelligence = playerIntelligence.get(uuid);
+            if (player == null || state == null || intelligence == null) {
+                return false; // Offline - keeps its state until it comes back
+            }
+            if (isParked(state, player.getBlockPos())) {
+                return false; // Nothing to do until it wakes up
+            }
             
-            if (state != null && intelligence != null) {
-                // PERFORMANCE OPTIMIZATION: Throttle per-player processing
-                Long lastProcessed = lastProcessedTime.get(player.getUuid());
-                if (lastProcessed != null && (currentTime - lastProcessed) < PLAYER_PROCESS_INTERVAL_MS) {
-                    continue; // Skip this player this tick
+            // PERFORMANCE OPTIMIZATION: The helpers of one turn re-read the same blocks - memoize them for the turn
+            state.blockMemo.begin(player.getWorld());
+            try {
+                AgentHost host = new PlayerHost(player, state.blockMemo, state.reports);
+                if (state.recorder != null) {
+                    host = state.recorder.beginTurn(host, globalTickCounter);
                 }
-                
-                processAI(player, state, intelligence);
-                lastProcessedTime.put(player.getUuid(), currentTime);
+                runTurn(host, state, intelligence);
+                if (state.recorder != null) {
+                    state.recorder.endTurn(stateDigest(state, host));
+                }
+            } finally {
+                state.blockMemo.end();
             }
+            return true;
+        });
+    }
+    
+    /**
+     * One agent's turn in the plan phase, run on a planner thread
+     */
+    private static final class PlannedTurn implements Runnable {
+        final ServerPlayerEntity player;
+        final AIState state;
+        final OptimizedIntelligence intelligence;
+        final PlanningHost host;
+        long nanos;
+        Throwable failure; // Kept for the server thread instead of failing the whole plan phase
+        
+        PlannedTurn(ServerPlayerEntity player, AIState state, OptimizedIntelligence intelligence, PlanningHost host) {
+            this.player = player;
+            this.state = state;
+            this.intelligence = intelligence;
+            this.host = host;
+        }
+        
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            try {
+                runTurn(host, state, intelligence);
+            } catch (Throwable e) { // Errors too - a stack overflow in one agent must not take the tick down
+                failure = e;
+            }
+            nanos = System.nanoTime() - start;
         }
     }
     
-    // PERFORMANCE OPTIMIZATION: Cache cleanup method
-    private static void cleanupCache(long currentTime) {
-        treeLocationCache.entrySet().removeIf(entry -> 
-            (currentTime - entry.getValue()) > CACHE_DURATION_MS);
+    /**
+     * Plan phase of the tick: every due agent takes its turn on the planner pool, reading a frozen
+     * view of its world, while the server thread waits. The commit phase then applies what the
+     * turns decided for the game - view direction, chunks to index - here, one agent after another.
+     * An agent's own state is only touched by its planner thread, so it needs no commit.
+     *
+     * Recorded agents stay on the server thread, which the recorder needs. An agent whose turn
+     * fails is stopped, without committing anything, rather than taking the server tick down.
+     *
+     * @return the agents that had their turn
+     */
+    private static Set<UUID> planTurns(MinecraftServer server) {
+        List<ServerPlayerEntity> players = new ArrayList<>();
+        for (UUID uuid : SCHEDULER.due()) {
+            AIState state = playerStates.get(uuid);
+            ServerPlayerEntity player = server.getPlayerManager().getPlayer(uuid);
+            if (player != null && state != null && playerIntelligence.containsKey(uuid) && state.recorder == null
+                    && !isParked(state, player.getBlockPos())) {
+                players.add(player);
+            }
+        }
+        if (players.size() < PARALLEL_PLANNING_MIN_AGENTS) {
+            return Set.of(); // Not worth the hand-off - they run in line
+        }
+        
+        List<PlannedTurn> turns = new ArrayList<>(players.size());
+        Map<World, FrozenWorld> views = new HashMap<>();
+        for (ServerPlayerEntity player : players) {
+            AIState state = playerStates.get(player.getUuid());
+            FrozenWorld view = views.computeIfAbsent(player.getWorld(), FrozenWorld::new);
+            view.capture(player.getBlockPos(), PLAN_VIEW_RADIUS);
+            // The turn applies exactly the reports taken here - one of them may switch it to collecting
+            Queue<ClientReport> reports = takeReports(state);
+            // Entities cannot be queried off the server thread - gather the items for the turns that may collect
+            List<Vec3d> items = mayCollectItems(state) || !reports.isEmpty()
+                ? PlayerHost.itemsAround(player, COLLECTION_RADIUS) : null;
+            state.blockMemo.begin(view);
+            turns.add(new PlannedTurn(player, state, playerIntelligence.get(player.getUuid()),
+                new PlanningHost(player, state.blockMemo, reports, items, COLLECTION_RADIUS)));
+        }
+        
+        long planStart = System.nanoTime();
+        try {
+            AgentPlanner.runAll(turns);
+        } finally {
+            for (PlannedTurn turn : turns) {
+                turn.state.blockMemo.end();
+            }
+            PerfStats.server().recordSince(PerfPhase.PLAN, planStart);
+        }
+        
+        long commitStart = System.nanoTime();
+        Set<UUID> planned = new HashSet<>();
+        for (PlannedTurn turn : turns) {
+            UUID uuid = turn.player.getUuid();
+            planned.add(uuid);
+            if (turn.failure != null) {
+                ChipperChopperMod.LOGGER.error("Agent.Lumber: Planned turn of " + turn.player.getName().getString() + " failed, stopping its agent", turn.failure);
+                stop(turn.player);
+                continue;
+            }
+            turn.host.commit();
+            SCHEDULER.charge(uuid, turn.nanos);
+        }
+        PerfStats.server().recordSince(PerfPhase.COMMIT, commitStart);
+        return planned;
+    }
+    
+    /**
+     * Move the reports the client queued so far out of the agent's queue, for a planned turn
+     */
+    private static Queue<ClientReport> takeReports(AIState state) {
+        if (state.reports.isEmpty()) {
+            return NO_REPORTS;
+        }
+        Queue<ClientReport> taken = new ArrayDeque<>();
+        for (ClientReport report = state.reports.poll(); report != null; report = state.reports.poll()) {
+            taken.add(report);
+        }
+        return taken;
     }
     
-    private static void processAI(ServerPlayerEntity player, AIState state, OptimizedIntelligence intelligence) {
-        World world = player.getWorld();
-        BlockPos playerPos = player.getBlockPos();
+    /**
+     * True while a parked idle agent should go on sleeping: its backoff has not run out, no log
+     * appeared near it and its player stayed close to where it was parked
+     */
+    static boolean isParked(AIState state, BlockPos playerPos) {
+        BlockPos parkedAt = state.parkedAt;
+        if (parkedAt == null || globalTickCounter >= state.parkedUntilTick) {
+            return false;
+        }
+        int wakeDistance = idleWakeDistance;
+        return playerPos.getSquaredDistance(parkedAt) < (double) wakeDistance * wakeDistance;
+    }
+    
+    /**
+     * True if the agent's next turn may look for items: it is collecting, or idle long enough to
+     * fall back to collecting when the expanded search finds nothing - counting the sleep a
+     * parked agent is woken from at the start of the turn
+     */
+    private static boolean mayCollectItems(AIState state) {
+        return state.currentTask == AIState.Task.COLLECTING
+            || state.ticksSinceLastAction + sleepCredit(state) + AI_PROCESS_INTERVAL > EXPANDED_SEARCH_IDLE_TICKS;
+    }
+    
+    /**
+     * Set the AI clock, for replaying recorded turns at the ticks they ran at
+     */
+    static void setTick(int tick) {
+        globalTickCounter = tick;
+    }
+    
+    /**
+     * One agent turn on {@code host}, timed into the task's histograms. Also how recorded sessions are replayed.
+     */
+    static void runTurn(AgentHost host, AIState state, OptimizedIntelligence intelligence) {
+        activeAgent.set(state);
+        AIState.Task taskBefore = state.currentTask;
+        long turnStart = System.nanoTime();
+        try {
+            processAI(host, state, intelligence);
+        } finally {
+            activeAgent.remove();
+        }
+        long turnNanos = System.nanoTime() - turnStart;
+        PerfPhase taskPhase = TASK_PHASES[taskBefore.ordinal()];
+        host.perf().record(taskPhase, turnNanos);
+        state.perf.record(taskPhase, turnNanos);
+        if (state.currentTask != taskBefore) {
+            trace(state, AgentEvent.TASK_CHANGED, state.targetTree, state.currentTask.ordinal());
+        }
+    }
+    
+    /**
+     * Processing cost of a player's agent for {@code /chipper status}, or {@code null} if it is not running
+     */
+    public static String getCostSummary(PlayerEntity player) {
+        AgentScheduler.Cost cost = player != null ? SCHEDULER.cost(player.getUuid()) : null;
+        if (cost == null) {
+            return null;
+        }
+        AIState state = playerStates.get(player.getUuid());
+        double memoHitRate = state != null ? state.blockMemo.hitRate() : 0.0;
+        return String.format("Cost: last %.3f ms | avg %.3f ms | max %.3f ms | runs %d | deferred %d | block memo hits %.0f%%",
+            cost.lastNanos() / 1_000_000.0, cost.averageNanos() / 1_000_000.0, cost.maxNanos() / 1_000_000.0,
+            cost.runs(), cost.deferrals(), memoHitRate * 100.0);
+    }
+    
+    /**
+     * Recent events of a player's agent for {@code /chipper trace}, oldest first, or {@code null} if it is not running
+     */
+    public static List<String> getTrace(PlayerEntity player) {
+        AIState state = player != null ? playerStates.get(player.getUuid()) : null;
+        if (state == null) {
+            return null;
+        }
+        List<String> lines = new ArrayList<>();
+        state.trace.forEach((tick, event, position, value) -> {
+            StringBuilder line = new StringBuilder("[").append(tick).append("] ").append(event.description());
+            if (position != AgentTrace.NO_POSITION) {
+                line.append(' ').append(BlockPos.unpackLongX(position)).append(',')
+                    .append(BlockPos.unpackLongY(position)).append(',').append(BlockPos.unpackLongZ(position));
+            }
+            if (event == AgentEvent.TASK_CHANGED) {
+                line.append(" -> ").append(AIState.Task.values()[value]);
+            } else if (event.valueName() != null) {
+                line.append(" (").append(event.valueName()).append(' ').append(value).append(')');
+            }
+            lines.add(line.toString());
+        });
+        return lines;
+    }
+    
+    /**
+     * Per-phase latency for {@code /chipper perf}: the whole AI tick, then each world, then each agent
+     */
+    public static List<String> getPerfReport(MinecraftServer server) {
+        List<String> lines = new ArrayList<>();
+        appendPerf(lines, "Server", PerfStats.server());
+        for (Map.Entry<World, PerfStats> entry : PerfStats.byWorld().entrySet()) {
+            appendPerf(lines, "World " + entry.getKey().getRegistryKey().getValue(), entry.getValue());
+        }
+        for (Map.Entry<UUID, AIState> entry : playerStates.entrySet()) {
+            ServerPlayerEntity player = server.getPlayerManager().getPlayer(entry.getKey());
+            String name = player != null ? player.getName().getString() : entry.getKey().toString();
+            appendPerf(lines, "Agent " + name, entry.getValue().perf);
+        }
+        return lines;
+    }
+    
+    private static void appendPerf(List<String> lines, String heading, PerfStats stats) {
+        List<String> phases = stats.describe();
+        if (!phases.isEmpty()) {
+            lines.add("§6" + heading + ":");
+            for (String phase : phases) {
+                lines.add("  " + phase);
+            }
+        }
+    }
+    
+    public static void resetPerf() {
+        PerfStats.server().reset();
+        PerfStats.byWorld().values().forEach(PerfStats::reset);
+        playerStates.values().forEach(state -> state.perf.reset());
+    }
+    
+    private static void processAI(AgentHost host, AIState state, OptimizedIntelligence intelligence) {
+        BlockPos playerPos = host.blockPos();
+        
+        // Client reports since the last turn, applied as the client used to apply them
+        for (ClientReport report = host.pollReport(); report != null; report = host.pollReport()) {
+            switch (report) {
+                case MINING_PROGRESS -> onMiningProgress(state);
+                case LINE_OF_SIGHT_FAILURE -> onLineOfSightFailure(null, state);
+                case TARGET_INACCESSIBLE -> onTargetInaccessible(null, state);
+            }
+        }
+        
+        if (state.parkedAt != null) {
+            wakeUp(host, state);
+        }
         
         // Increment tick counters (adjusted for reduced frequency)
         state.ticksSinceLastAction += AI_PROCESS_INTERVAL;
@@ -126,6 +462,7 @@ public class TreeChopperAI {
         }
         
         // Update intelligence tracking
+        intelligence.advanceTo(globalTickCounter);
         intelligence.updatePositionHistory(playerPos);
         
         // PERFORMANCE OPTIMIZATION: Less frequent stuck checks
@@ -141,26 +478,45 @@ public class TreeChopperAI {
                 state.targetRotation = null;
                 state.thinkingState = AIThinkingState.SCANNING;
                 
-                // PERFORMANCE OPTIMIZATION: Enhanced tree finding with caching
-                if (!findNearestTreeOptimized(player, state, intelligence)) {
+                // PERFORMANCE OPTIMIZATION: Enhanced tree finding with caching, optionally off the server thread
+                boolean foundTree;
+                if (state.treeSearch != null) {
+                    foundTree = false; // Expanded search in progress - resume it below instead of searching again
+                } else if (asyncSearchEnabled && host.serverWorld() != null) { // Recorded and replayed turns search in line
+                    Boolean acquired = pollAsyncTreeSearch(host, state, intelligence);
+                    if (acquired == null) {
+                        break; // Search in flight - stay in SCANNING and check again next tick
+                    }
+                    foundTree = acquired;
+                } else {
+                    foundTree = findNearestTreeOptimized(host, state, intelligence);
+                }
+                if (!foundTree) {
                     // If no trees found and we've been idle too long, expand search
-                    if (state.ticksSinceLastAction > 300) { // Increased threshold
-                        ChipperChopperMod.LOGGER.info("Agent.Lumber: Expanding search radius due to long idle time");
-                        if (!findNearestTreeOptimized(player, state, intelligence, SEARCH_RADIUS * 2)) {
+                    if (state.ticksSinceLastAction > EXPANDED_SEARCH_IDLE_TICKS) { // Increased threshold
+                        Boolean expanded = continueExpandedTreeSearch(host, state, SEARCH_RADIUS * 2);
+                        if (expanded == null) {
+                            break; // Out of budget - the search resumes next tick
+                        }
+                        if (!expanded) {
                             // Still no trees - try collecting items
                             if (state.collectionAttempts < MAX_COLLECTION_ATTEMPTS) {
-                                if (collectNearbyItems(player, state)) {
+                                if (collectNearbyItems(host, state)) {
                                     state.collectionAttempts++;
                                 }
                             } else {
                                 // Reset collection attempts after a while
                                 if (state.ticksSinceLastAction > 600) { // Increased threshold
                                     state.collectionAttempts = 0;
-                                    ChipperChopperMod.LOGGER.info("Agent.Lumber: Resetting collection attempts");
+                                    trace(state, AgentEvent.COLLECTION_RESET, null, 0);
                                 }
                             }
                         }
                     }
+                    // PERFORMANCE OPTIMIZATION: Nothing found and nothing in progress - sleep instead of searching again next turn
+                    if (state.currentTask == AIState.Task.IDLE && state.treeSearch == null && state.pendingSearch == null) {
+                        parkIdleAgent(host, state);
+                    }
                 }
                 break;
                 
@@ -169,7 +525,7 @@ public class TreeChopperAI {
                 state.thinkingState = AIThinkingState.PATHFINDING;
                 
                 if (state.targetTree != null) {
-                    double distance = player.getPos().distanceTo(Vec3d.ofCenter(state.targetTree));
+                    double distance = host.pos().distanceTo(Vec3d.ofCenter(state.targetTree));
                     
                     // Check if this target is in our blacklist
                     if (intelligence.isBlacklisted(state.targetTree)) {
@@ -183,7 +539,7 @@ public class TreeChopperAI {
                     // PERFORMANCE OPTIMIZATION: Less frequent stagnation checks
                     if (state.ticksSinceLastAction > QUICK_TIMEOUT && intelligence.hasMovementStagnated()) {
                         ChipperChopperMod.LOGGER.info("Agent.Lumber: Movement stagnation detected, finding alternative");
-                        if (!findAlternativeApproach(player, state, intelligence)) {
+                        if (!findAlternativeApproach(host, state, intelligence)) {
                             intelligence.blacklistTarget(state.targetTree, "Movement stagnation");
                             state.currentTask = AIState.Task.IDLE;
                             state.targetTree = null;
@@ -193,7 +549,7 @@ public class TreeChopperAI {
                     }
                     
                     if (distance <= REACH_DISTANCE) {
-                        if (shouldClearLeavesFirst(world, player.getBlockPos(), state.targetTree)) {
+                        if (shouldClearLeavesFirst(host, host.blockPos(), state.targetTree)) {
                             state.currentTask = AIState.Task.CLEARING_LEAVES;
                             state.ticksSinceLastAction = 0;
                             ChipperChopperMod.LOGGER.info("Need to clear leaves before chopping tree");
@@ -204,7 +560,7 @@ public class TreeChopperAI {
                             state.consecutiveLineOfSightFailures = 0;
                             intelligence.recordSuccess("Reached tree for chopping");
                             ChipperChopperMod.LOGGER.info("Reached tree, starting to chop at: " + state.targetTree);
-                            startLookingAt(player, state, state.targetTree);
+                            startLookingAt(host, state, state.targetTree);
                         }
                     } else if (distance > 50) {
                         intelligence.blacklistTarget(state.targetTree, "Too far away");
@@ -214,7 +570,7 @@ public class TreeChopperAI {
                     } else {
                         state.isMoving = true;
                         if (state.targetRotation == null) {
-                            startLookingAt(player, state, state.targetTree);
+                            startLookingAt(host, state, state.targetTree);
                         }
                         
                         // More aggressive timeout for movement
@@ -223,7 +579,7 @@ public class TreeChopperAI {
                             if (distance < 8.0) {
                                 state.currentTask = AIState.Task.CHOPPING;
                                 state.ticksSinceLastAction = 0;
-                                startLookingAt(player, state, state.targetTree);
+                                startLookingAt(host, state, state.targetTree);
                                 intelligence.recordProgress("Forced progression to chopping");
                             } else {
                                 intelligence.blacklistTarget(state.targetTree, "Movement timeout");
@@ -272,12 +628,12 @@ public class TreeChopperAI {
                     
                     // Find leaf target with intelligence
                     if (state.currentLeafTarget == null || state.ticksSinceLastAction % 3 == 0) { // Check even more frequently
-                        BlockPos leafTarget = findObstructingLeaf(world, player.getBlockPos(), state.targetTree);
+                        BlockPos leafTarget = findObstructingLeaf(host, host.blockPos(), state.targetTree);
                         if (leafTarget != null && !intelligence.isProblematic(leafTarget)) {
                             state.currentLeafTarget = leafTarget;
-                            startLookingAt(player, state, leafTarget);
+                            startLookingAt(host, state, leafTarget);
                             intelligence.recordLeafClearingAttempt(state.targetTree, leafTarget);
-                            ChipperChopperMod.LOGGER.info("Agent.Lumber: Targeting leaf obstacle: " + leafTarget);
+                            trace(state, AgentEvent.LEAF_TARGETED, leafTarget, 0);
                         } else if (leafTarget != null && intelligence.isProblematic(leafTarget)) {
                             ChipperChopperMod.LOGGER.info("Agent.Lumber: All accessible leaves are problematic, abandoning tree");
                             intelligence.blacklistTarget(state.targetTree, "All leaves problematic");
@@ -286,7 +642,7 @@ public class TreeChopperAI {
                             break;
                         } else {
                             // No obstructing leaves found - validate this is actually true
-                            if (hasServerLineOfSight(world, player.getBlockPos(), state.targetTree)) {
+                            if (hasServerLineOfSight(host, host.blockPos(), state.targetTree)) {
                                 state.currentTask = AIState.Task.CHOPPING;
                                 state.currentLeafTarget = null;
                                 state.thinkingState = AIThinkingState.CHOPPING;
@@ -332,12 +688,12 @@ public class TreeChopperAI {
                     
                     // Less frequent rotation updates for stability
                     if (state.ticksSinceLastAction % 15 == 0) { // Every 0.75 seconds
-                        updateRotation(player, state);
+                        updateRotation(host, state);
                     }
                     
-                    if (isLogBlock(world.getBlockState(state.targetTree))) {
+                    if (isLogBlock(host.blocks().getBlockState(state.targetTree))) {
                         // Check for leaves - but be much smarter about it
-                        if (shouldClearLeavesFirst(world, player.getBlockPos(), state.targetTree)) {
+                        if (shouldClearLeavesFirst(host, host.blockPos(), state.targetTree)) {
                             // NEW: Before going to leaf clearing, check if we've been stuck in this pattern
                             if (intelligence.hasRecentLeafClearingFailures(state.targetTree)) {
                                 ChipperChopperMod.LOGGER.info("Agent.Lumber: Recent leaf clearing failures, skipping leaves and finding new target");
@@ -350,14 +706,14 @@ public class TreeChopperAI {
                             // Only try intelligent alternatives if we haven't been cycling
                             if (!intelligence.hasRecentlyTriedAlternatives(state.targetTree) && 
                                 !intelligence.isInIntelligentUpgradeLoop(state.targetTree)) {
-                                BlockPos intelligentTarget = findIntelligentTarget(world, player.getBlockPos(), state.targetTree, state);
+                                BlockPos intelligentTarget = findIntelligentTarget(host, host.blockPos(), state.targetTree, state);
                                 if (intelligentTarget != null && !intelligentTarget.equals(state.targetTree)) {
                                     // Validate this target is actually better
-                                    if (hasServerLineOfSight(world, player.getBlockPos(), intelligentTarget) &&
-                                        !shouldClearLeavesFirst(world, player.getBlockPos(), intelligentTarget)) {
-                                        ChipperChopperMod.LOGGER.info("Agent.Lumber: Validated better target: " + intelligentTarget);
+                                    if (hasServerLineOfSight(host, host.blockPos(), intelligentTarget) &&
+                                        !shouldClearLeavesFirst(host, host.blockPos(), intelligentTarget)) {
+                                        trace(state, AgentEvent.BETTER_TARGET, intelligentTarget, 0);
                                         state.targetTree = intelligentTarget;
-                                        startLookingAt(player, state, intelligentTarget);
+                                        startLookingAt(host, state, intelligentTarget);
                                         state.ticksSinceLastAction = 0;
                                         intelligence.recordIntelligentUpgrade(state.targetTree, intelligentTarget);
                                         break;
@@ -375,7 +731,7 @@ public class TreeChopperAI {
                         
                         // Handle line of sight failures more aggressively
                         if (state.consecutiveLineOfSightFailures >= 2) { // Reduced from 3 to 2
-                            ChipperChopperMod.LOGGER.info("Agent.Lumber: Quick LOS failure response");
+                            trace(state, AgentEvent.LOS_RESPONSE, state.targetTree, state.consecutiveLineOfSightFailures);
                             
                             // Don't try alternatives if we've been cycling - just abandon
                             if (intelligence.hasRecentlyRepositioned(state.targetTree) || 
@@ -388,11 +744,11 @@ public class TreeChopperAI {
                             }
                             
                             // Try one alternative, but be strict about it
-                            BlockPos intelligentTarget = findIntelligentTarget(world, player.getBlockPos(), state.targetTree, state);
+                            BlockPos intelligentTarget = findIntelligentTarget(host, host.blockPos(), state.targetTree, state);
                             if (intelligentTarget != null && !intelligentTarget.equals(state.targetTree) &&
-                                hasServerLineOfSight(world, player.getBlockPos(), intelligentTarget)) {
+                                hasServerLineOfSight(host, host.blockPos(), intelligentTarget)) {
                                 state.targetTree = intelligentTarget;
-                                startLookingAt(player, state, intelligentTarget);
+                                startLookingAt(host, state, intelligentTarget);
                                 state.ticksSinceLastAction = 0;
                                 state.consecutiveLineOfSightFailures = 0;
                                 intelligence.recordProgress("LOS failure recovery");
@@ -407,14 +763,15 @@ public class TreeChopperAI {
                             }
                         }
                     } else {
-                        // Current target is no longer a log
-                        BlockPos nextLog = findIntelligentTarget(world, player.getBlockPos(), state.targetTree, state);
+                        // Current target is no longer a log - the tree model knows if anything is left
+                        BlockPos nextLog = treeModelFor(host, state, state.targetTree).isComplete()
+                            ? null : findIntelligentTarget(host, host.blockPos(), state.targetTree, state);
                         if (nextLog != null) {
                             state.targetTree = nextLog;
-                            startLookingAt(player, state, nextLog);
+                            startLookingAt(host, state, nextLog);
                             state.ticksSinceLastAction = 0;
                             intelligence.recordProgress("Found next log");
-                            ChipperChopperMod.LOGGER.info("Current log destroyed, intelligent system found: " + nextLog);
+                            trace(state, AgentEvent.NEXT_LOG, nextLog, 0);
                         } else {
                             ChipperChopperMod.LOGGER.info("Agent.Lumber: Tree completed successfully");
                             state.currentTask = AIState.Task.COLLECTING;
@@ -441,11 +798,11 @@ public class TreeChopperAI {
                         state.targetTree = null;
                     } else {
                         // Try one recovery attempt
-                        BlockPos recoveryTarget = findIntelligentTarget(world, player.getBlockPos(), state.targetTree, state);
+                        BlockPos recoveryTarget = findIntelligentTarget(host, host.blockPos(), state.targetTree, state);
                         if (recoveryTarget != null && !recoveryTarget.equals(state.targetTree) &&
-                            hasServerLineOfSight(world, player.getBlockPos(), recoveryTarget)) {
+                            hasServerLineOfSight(host, host.blockPos(), recoveryTarget)) {
                             state.targetTree = recoveryTarget;
-                            startLookingAt(player, state, recoveryTarget);
+                            startLookingAt(host, state, recoveryTarget);
                             state.ticksSinceLastAction = 0;
                             state.consecutiveLineOfSightFailures = 0;
                             intelligence.recordProgress("Timeout recovery");
@@ -462,7 +819,7 @@ public class TreeChopperAI {
                 
             case REPOSITIONING:
                 if (state.repositionTarget != null) {
-                    double distance = player.getPos().distanceTo(Vec3d.ofCenter(state.repositionTarget));
+                    double distance = host.pos().distanceTo(Vec3d.ofCenter(state.repositionTarget));
                     
                     if (distance <= 1.5) {
                         // Reached reposition target, determine next action
@@ -478,7 +835,7 @@ public class TreeChopperAI {
                         state.repositionTarget = null;
                         ChipperChopperMod.LOGGER.info("Repositioning complete, resuming task");
                         if (state.targetTree != null) {
-                            startLookingAt(player, state, state.targetTree);
+                            startLookingAt(host, state, state.targetTree);
                         }
                     } else if (state.ticksSinceLastAction > 200) { // 10 seconds timeout
                         // Repositioning taking too long, give up
@@ -503,7 +860,7 @@ public class TreeChopperAI {
                 
             case COLLECTING:
                 // Enhanced item collection with actual movement
-                if (collectNearbyItems(player, state)) {
+                if (collectNearbyItems(host, state)) {
                     state.ticksSinceLastAction = 0;
                 } else {
                     // No items found, return to idle after a short delay
@@ -517,7 +874,7 @@ public class TreeChopperAI {
                 
             case MOVING_TO_ITEM:
                 if (state.targetItem != null) {
-                    double distance = player.getPos().distanceTo(Vec3d.ofCenter(state.targetItem));
+                    double distance = host.pos().distanceTo(Vec3d.ofCenter(state.targetItem));
                     
                     if (distance <= 2.0) {
                         // Close enough to collect item
@@ -541,11 +898,99 @@ public class TreeChopperAI {
         }
         
         // Always update rotation if we have a target
-        updateRotation(player, state);
+        updateRotation(host, state);
+    }
+    
+    /**
+     * Model of the tree the agent is working on. Reused until the agent moves on to another tree.
+     */
+    private static TreeModel treeModelFor(AgentHost host, AIState state, BlockPos pos) {
+        TreeModel model = state.treeModel;
+        if (model == null || !(model.containsLog(pos.asLong())
+                || (model.covers(pos, 1) && !isLogBlock(host.blocks().getBlockState(pos))))) {
+            model = host.treeModel(pos);
+            state.treeModel = model;
+        }
+        return model;
+    }
+    
+    /**
+     * Keep the agents' tree models in step with broken logs and leaves in their world, and wake
+     * sleeping agents near a new log - placed, or grown from a sapling
+     */
+    static void onBlockChanged(ServerWorld world, BlockPos pos, BlockState newState) {
+        AIState agent = activeAgent.get();
+        if (agent != null) {
+            agent.blockMemo.forget(pos); // Changed by the agent whose turn it is
+        }
+        long packed = pos.asLong();
+        boolean logAppeared = isLogBlock(newState);
+        for (Map.Entry<UUID, AIState> entry : playerStates.entrySet()) {
+            AIState state = entry.getValue();
+            if (state.treeModel == null && !(logAppeared && state.parkedAt != null)) {
+                continue; // Nothing to update - skip the player lookup
+            }
+            ServerPlayerEntity player = world.getServer().getPlayerManager().getPlayer(entry.getKey());
+            if (player == null) {
+                state.treeModel = null; // Offline - cannot tell which world its tree is in, so rebuild it on its return
+                continue;
+            }
+            if (player.getServerWorld() != world) {
+                continue; // Same coordinates in another dimension
+            }
+            if (state.treeModel != null) {
+                state.treeModel.onBlockChanged(packed, newState);
+            }
+            BlockPos parkedAt = state.parkedAt;
+            if (logAppeared && parkedAt != null
+                    && Math.abs(pos.getX() - parkedAt.getX()) <= IDLE_WAKE_LOG_RADIUS
+                    && Math.abs(pos.getZ() - parkedAt.getZ()) <= IDLE_WAKE_LOG_RADIUS) {
+                state.parkedUntilTick = 0; // Its next turn runs
+                state.idleBackoffTicks = 0;
+            }
+        }
+    }
+    
+    /**
+     * Park an idle agent that found nothing to do. Its turns are skipped until the backoff runs out,
+     * a log appears near it or its player walks away; every sleep that ends with nothing new
+     * doubles the next one.
+     */
+    private static void parkIdleAgent(AgentHost host, AIState state) {
+        state.idleBackoffTicks = state.idleBackoffTicks == 0 ? MIN_IDLE_BACKOFF_TICKS
+            : Math.min(state.idleBackoffTicks * 2, MAX_IDLE_BACKOFF_TICKS);
+        state.parkedAt = host.blockPos();
+        state.parkedSinceTick = globalTickCounter;
+        state.parkedUntilTick = globalTickCounter + state.idleBackoffTicks;
+        state.thinkingState = AIThinkingState.IDLE;
+        trace(state, AgentEvent.PARKED, state.parkedAt, state.idleBackoffTicks);
+    }
+    
+    /**
+     * First turn after a sleep. The sleep counts as idle time, so the expanded search still comes
+     * due; a player that walked away starts over with short sleeps.
+     */
+    private static void wakeUp(AgentHost host, AIState state) {
+        int wakeDistance = idleWakeDistance;
+        if (host.blockPos().getSquaredDistance(state.parkedAt) >= (double) wakeDistance * wakeDistance) {
+            state.idleBackoffTicks = 0;
+        }
+        int slept = globalTickCounter - state.parkedSinceTick;
+        state.ticksSinceLastAction += sleepCredit(state);
+        state.parkedAt = null;
+        state.parkedSinceTick = -1;
+        trace(state, AgentEvent.WOKEN, host.blockPos(), slept);
+    }
+    
+    /**
+     * Idle time a parked agent's turn adds for its sleep, on top of the interval every turn adds
+     */
+    private static int sleepCredit(AIState state) {
+        return state.parkedAt != null ? Math.max(0, globalTickCounter - state.parkedSinceTick - AI_PROCESS_INTERVAL) : 0;
     }
     
-    private static void startLookingAt(ServerPlayerEntity player, AIState state, BlockPos target) {
-        Vec3d playerPos = player.getPos().add(0, player.getEyeHeight(player.getPose()), 0);
+    private static void startLookingAt(AgentHost host, AIState state, BlockPos target) {
+        Vec3d playerPos = host.pos().add(0, host.eyeHeight(), 0);
         Vec3d targetPos = Vec3d.ofCenter(target);
         Vec3d direction = targetPos.subtract(playerPos);
         
@@ -564,16 +1009,14 @@ public class TreeChopperAI {
         
         state.targetRotation = new Vec3d(targetYaw, targetPitch, 0);
         
-        ChipperChopperMod.LOGGER.info("Starting to look at " + target + 
-            " (target yaw: " + String.format("%.1f", targetYaw) + 
-            ", target pitch: " + String.format("%.1f", targetPitch) + ")");
+        trace(state, AgentEvent.LOOK_AT, target, 0);
     }
     
-    private static void updateRotation(ServerPlayerEntity player, AIState state) {
+    private static void updateRotation(AgentHost host, AIState state) {
         if (state.targetRotation == null) return;
         
-        float currentYaw = player.getYaw();
-        float currentPitch = player.getPitch();
+        float currentYaw = host.yaw();
+        float currentPitch = host.pitch();
         float targetYaw = (float) state.targetRotation.x;
         float targetPitch = (float) state.targetRotation.y;
         
@@ -591,9 +1034,7 @@ public class TreeChopperAI {
         float newYaw = currentYaw + yawStep;
         float newPitch = MathHelper.clamp(currentPitch + pitchStep, -90.0f, 90.0f);
         
-        // Apply the rotation directly - this should sync to client automatically
-        player.setYaw(newYaw);
-        player.setPitch(newPitch);
+        host.setRotation(newYaw, newPitch);
         
         // Check if we've reached the target rotation
         if (Math.abs(yawDiff) < 2.0f && Math.abs(pitchDiff) < 2.0f) {
@@ -601,14 +1042,14 @@ public class TreeChopperAI {
         }
     }
     
-    private static boolean isLookingAtTarget(ServerPlayerEntity player, BlockPos target) {
-        Vec3d playerPos = player.getPos().add(0, player.getEyeHeight(player.getPose()), 0);
+    private static boolean isLookingAtTarget(AgentHost host, BlockPos target) {
+        Vec3d playerPos = host.pos().add(0, host.eyeHeight(), 0);
         Vec3d targetPos = Vec3d.ofCenter(target);
         Vec3d direction = targetPos.subtract(playerPos).normalize();
         
         // Get player's look direction
-        float yaw = player.getYaw();
-        float pitch = player.getPitch();
+        float yaw = host.yaw();
+        float pitch = host.pitch();
         Vec3d lookDirection = Vec3d.fromPolar(pitch, yaw);
         
         // Check if directions are close enough (within 5 degrees)
@@ -620,54 +1061,96 @@ public class TreeChopperAI {
     
     // Server-side movement removed - client now handles all movement via key presses
     
-    private static void findNearestTree(ServerPlayerEntity player, AIState state) {
-        World world = player.getWorld();
-        BlockPos playerPos = player.getBlockPos();
-        BlockPos nearestTree = null;
-        double nearestDistance = Double.MAX_VALUE;
-        
-        ChipperChopperMod.LOGGER.info("Searching for trees around player at: " + playerPos);
-        
-        // Search for trees in a radius around the player
-        for (int x = -SEARCH_RADIUS; x <= SEARCH_RADIUS; x += 2) { // Skip every other block for performance
-            for (int z = -SEARCH_RADIUS; z <= SEARCH_RADIUS; z += 2) {
-                for (int y = -5; y <= 10; y++) {
-                    BlockPos pos = playerPos.add(x, y, z);
-                    BlockState blockState = world.getBlockState(pos);
-                    
-                    if (isLogBlock(blockState)) {
-                        // Check if this is a tree base (has ground below)
-                        if (isTreeBase(world, pos)) {
-                            double distance = player.getPos().distanceTo(Vec3d.ofCenter(pos));
-                            if (distance < nearestDistance && distance > 2.0) { // Not too close
-                                nearestDistance = distance;
-                                nearestTree = pos;
-                            }
-                        }
-                    }
-                }
-            }
+    static boolean isTreeBase(World world, BlockPos logPos) {
+        return isTreeBase(blocksFor(world), logPos);
+    }
+    
+    /**
+     * Host for a server-side caller outside the agent's turn
+     */
+    private static AgentHost hostFor(ServerPlayerEntity player) {
+        return new PlayerHost(player, blocksFor(player.getWorld()), null);
+    }
+    
+    /**
+     * Block reader for helpers: the current agent's turn memo when it reads {@code world}, else a fresh cursor
+     */
+    private static BlockAccess blocksFor(World world) {
+        AIState agent = activeAgent.get();
+        return agent != null && agent.blockMemo.isReading(world) ? agent.blockMemo : BlockAccess.of(world);
+    }
+    
+    /**
+     * Hash of what an agent's turn decided - task, targets, counters and view direction - for
+     * comparing a replayed session with its recording
+     */
+    static long stateDigest(AIState state, AgentHost host) {
+        long[] fields = {
+            state.currentTask.ordinal(), state.thinkingState.ordinal(), state.isMoving ? 1 : 0,
+            packedOrZero(state.targetTree), packedOrZero(state.targetItem),
+            packedOrZero(state.repositionTarget), packedOrZero(state.currentLeafTarget),
+            state.ticksSinceLastAction, state.chopCooldown, state.collectionAttempts, state.consecutiveLineOfSightFailures,
+            state.targetRotation != null ? Double.doubleToLongBits(state.targetRotation.x) : 0,
+            state.targetRotation != null ? Double.doubleToLongBits(state.targetRotation.y) : 0,
+            Float.floatToIntBits(host.yaw()), Float.floatToIntBits(host.pitch())
+        };
+        long digest = 0;
+        for (long field : fields) {
+            digest = (digest + field) * 0x9E3779B97F4A7C15L;
+            digest ^= digest >>> 29;
         }
-        
-        if (nearestTree != null) {
-            state.targetTree = nearestTree;
-            state.currentTask = AIState.Task.MOVING_TO_TREE;
-            state.ticksSinceLastAction = 0;
-            ChipperChopperMod.LOGGER.info("Found tree at: " + nearestTree + " (distance: " + String.format("%.2f", nearestDistance) + ")");
-        } else {
-            ChipperChopperMod.LOGGER.info("No trees found in search radius");
+        return digest;
+    }
+    
+    private static long packedOrZero(BlockPos pos) {
+        return pos != null ? pos.asLong() : 0;
+    }
+    
+    // PERFORMANCE OPTIMIZATION: Hot-path diagnostics go to the agent's event ring, not the log
+    private static void trace(AIState state, AgentEvent event, BlockPos pos, int value) {
+        state.trace.record(globalTickCounter, event, pos != null ? pos.asLong() : AgentTrace.NO_POSITION, value);
+    }
+    
+    /**
+     * Record an event for the agent whose turn it is, if any
+     */
+    private static void trace(AgentEvent event, BlockPos pos, int value) {
+        AIState agent = activeAgent.get();
+        if (agent != null) {
+            trace(agent, event, pos, value);
         }
     }
     
-    private static boolean isTreeBase(World world, BlockPos logPos) {
+    /**
+     * Record a phase's latency for its world and for the agent whose turn it is, if any
+     */
+    private static void recordPhase(PerfStats worldStats, PerfPhase phase, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        worldStats.record(phase, nanos);
+        AIState agent = activeAgent.get();
+        if (agent != null) {
+            agent.perf.record(phase, nanos);
+        }
+    }
+    
+    private static VoxelRay.Trace sightLine(AgentHost host, BlockPos fromPos, BlockPos toPos) {
+        long start = System.nanoTime();
+        VoxelRay.Trace trace = host.blocks().sightLine(fromPos, toPos);
+        recordPhase(host.perf(), PerfPhase.SIGHT_TRACE, start);
+        return trace;
+    }
+    
+    static boolean isTreeBase(BlockAccess blocks, BlockPos logPos) {
+        return isTreeBase(blocks, logPos.getX(), logPos.getY(), logPos.getZ());
+    }
+    
+    // PERFORMANCE OPTIMIZATION: Plain coordinates, so indexing a chunk allocates nothing per log
+    static boolean isTreeBase(BlockAccess blocks, int x, int y, int z) {
         // Check if there's ground below this log
         for (int i = 1; i <= 3; i++) {
-            BlockPos below = logPos.down(i);
-            BlockState belowState = world.getBlockState(below);
+            BlockState belowState = blocks.getBlockState(x, y - i, z);
             
-            if (belowState.isOf(Blocks.DIRT) || belowState.isOf(Blocks.GRASS_BLOCK) || 
-                belowState.isOf(Blocks.PODZOL) || belowState.isOf(Blocks.COARSE_DIRT) ||
-                belowState.isOf(Blocks.ROOTED_DIRT) || belowState.isOf(Blocks.MYCELIUM)) {
+            if (isTreeSoil(belowState)) {
                 return true;
             }
             
@@ -678,21 +1161,18 @@ public class TreeChopperAI {
         }
         
         // For 2x2 trees, check if this is part of a 2x2 log pattern at ground level
-        if (world.getBlockState(logPos.down()).isAir() || 
-            world.getBlockState(logPos.down()).isOf(Blocks.SHORT_GRASS) ||
-            world.getBlockState(logPos.down()).isOf(Blocks.TALL_GRASS)) {
+        BlockState groundState = blocks.getBlockState(x, y - 1, z);
+        if (groundState.isAir() || 
+            groundState.isOf(Blocks.SHORT_GRASS) ||
+            groundState.isOf(Blocks.TALL_GRASS)) {
             
             // Check for adjacent logs at the same level (indicating 2x2 base)
-            BlockPos[] adjacent = {
-                logPos.north(), logPos.south(), logPos.east(), logPos.west(),
-                logPos.north().east(), logPos.north().west(), 
-                logPos.south().east(), logPos.south().west()
-            };
-            
             int adjacentLogs = 0;
-            for (BlockPos adj : adjacent) {
-                if (isLogBlock(world.getBlockState(adj))) {
-                    adjacentLogs++;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    if ((dx != 0 || dz != 0) && isLogBlock(blocks.getBlockState(x + dx, y, z + dz))) {
+                        adjacentLogs++;
+                    }
                 }
             }
             
@@ -705,24 +1185,28 @@ public class TreeChopperAI {
         return false;
     }
     
-    private static boolean collectNearbyItems(ServerPlayerEntity player, AIState state) {
-        World world = player.getWorld();
-        BlockPos playerPos = player.getBlockPos();
+    /**
+     * Ground a tree trunk can grow from
+     */
+    static boolean isTreeSoil(BlockState state) {
+        return BlockClassifier.is(state, BlockClassifier.TREE_SOIL);
+    }
+    
+    private static boolean collectNearbyItems(AgentHost host, AIState state) {
+        BlockPos playerPos = host.blockPos();
         
         // Look for items within collection radius
-        List<ItemEntity> nearbyItems = world.getEntitiesByClass(
-            ItemEntity.class,
-            new Box(playerPos).expand(COLLECTION_RADIUS),
-            item -> item.isAlive() && !item.cannotPickup()
-        );
+        long queryStart = System.nanoTime();
+        List<Vec3d> nearbyItems = host.nearbyItems(COLLECTION_RADIUS);
+        recordPhase(host.perf(), PerfPhase.ITEM_QUERY, queryStart);
         
         if (!nearbyItems.isEmpty()) {
             // Find closest item
-            ItemEntity closestItem = null;
+            Vec3d closestItem = null;
             double closestDistance = Double.MAX_VALUE;
             
-            for (ItemEntity item : nearbyItems) {
-                double distance = player.getPos().distanceTo(item.getPos());
+            for (Vec3d item : nearbyItems) {
+                double distance = host.pos().distanceTo(item);
                 if (distance < closestDistance) {
                     closestDistance = distance;
                     closestItem = item;
@@ -730,15 +1214,12 @@ public class TreeChopperAI {
             }
             
             if (closestItem != null) {
-                BlockPos itemPos = closestItem.getBlockPos();
-                double distance = player.getPos().distanceTo(Vec3d.ofCenter(itemPos));
+                BlockPos itemPos = BlockPos.ofFloored(closestItem);
+                double distance = host.pos().distanceTo(Vec3d.ofCenter(itemPos));
                 
                 if (distance <= 2.0) {
                     // Close enough - items should auto-collect
-                    // Only log every 2 seconds to reduce spam
-                    if (state.ticksSinceLastAction % 40 == 0) {
-                        ChipperChopperMod.LOGGER.info("Found item to collect nearby");
-                    }
+                    trace(state, AgentEvent.ITEM_NEARBY, itemPos, 0);
                     return true;
                 } else {
                     // Need to move to the item - but only if we're not already moving to it
@@ -762,73 +1243,41 @@ public class TreeChopperAI {
     /**
      * Find the next log block to chop - improved algorithm for better tree traversal
      */
-    private static BlockPos findNextLogBlock(World world, BlockPos currentPos) {
+    private static BlockPos findNextLogBlock(AgentHost host, TreeModel model, BlockPos currentPos) {
         if (currentPos == null) return null;
         
-        // Get potential log blocks in order of preference
+        // PERFORMANCE OPTIMIZATION: Candidates come from the tree model, not from re-reading the cube around the trunk
         List<BlockPos> candidates = new ArrayList<>();
-        
-        // Priority 1: Check directly above (most efficient for trunk)
-        for (int y = 1; y <= 4; y++) { // Check multiple levels up
-            BlockPos above = currentPos.up(y);
-            if (isLogBlock(world.getBlockState(above))) {
-                candidates.add(above);
+        LongIterator logs = model.logIterator();
+        while (logs.hasNext()) {
+            long log = logs.nextLong();
+            if (nextLogPriority(currentPos, BlockPos.unpackLongX(log), BlockPos.unpackLongY(log), BlockPos.unpackLongZ(log)) >= 0) {
+                candidates.add(BlockPos.fromLong(log)); // Only the few logs within reach become BlockPos objects
             }
         }
         
-        // Priority 2: Check same level adjacent (for 2x2 trees)
-        BlockPos[] adjacentOffsets = {
-            new BlockPos(1, 0, 0), new BlockPos(-1, 0, 0),
-            new BlockPos(0, 0, 1), new BlockPos(0, 0, -1),
-            new BlockPos(1, 0, 1), new BlockPos(-1, 0, -1),
-            new BlockPos(1, 0, -1), new BlockPos(-1, 0, 1)
-        };
-        
-        for (BlockPos offset : adjacentOffsets) {
-            BlockPos checkPos = currentPos.add(offset);
-            if (isLogBlock(world.getBlockState(checkPos))) {
-                candidates.add(checkPos);
-            }
-        }
-        
-        // Priority 3: Check diagonal and elevated positions for 2x2 trees
-        for (int y = 1; y <= 3; y++) {
-            for (BlockPos offset : adjacentOffsets) {
-                BlockPos checkPos = currentPos.up(y).add(offset);
-                if (isLogBlock(world.getBlockState(checkPos))) {
-                    candidates.add(checkPos);
-                }
-            }
-        }
-        
-        // Priority 4: Search in a broader radius for scattered logs (branches, etc.)
-        for (int x = -2; x <= 2; x++) {
-            for (int z = -2; z <= 2; z++) {
-                for (int y = -1; y <= 3; y++) {
-                    BlockPos checkPos = currentPos.add(x, y, z);
-                    if (isLogBlock(world.getBlockState(checkPos)) && !candidates.contains(checkPos)) {
-                        candidates.add(checkPos);
-                    }
-                }
-            }
-        }
+        // Order of preference: straight up the trunk, same level (2x2 trees), elevated neighbours, then branches
+        candidates.sort(Comparator
+            .comparingInt((BlockPos log) -> nextLogPriority(currentPos, log))
+            .thenComparingInt(log -> log.getY() - currentPos.getY())
+            .thenComparingDouble(log -> currentPos.getSquaredDistance(log)));
         
         // If no candidates found, return null
         if (candidates.isEmpty()) {
-            ChipperChopperMod.LOGGER.info("No log blocks found near " + currentPos);
+            trace(AgentEvent.NO_LOGS, currentPos, 0);
             return null;
         }
         
-        ChipperChopperMod.LOGGER.info("Found " + candidates.size() + " potential log blocks");
+        trace(AgentEvent.LOG_CANDIDATES, currentPos, candidates.size());
         
         // Smart selection: prefer blocks that don't require heavy leaf clearing
         for (BlockPos candidate : candidates) {
-            int leafCount = countObstructingLeaves(world, currentPos, candidate);
-            ChipperChopperMod.LOGGER.info("Candidate " + candidate + " has " + leafCount + " obstructing leaves");
+            int leafCount = countObstructingLeaves(host, currentPos, candidate);
+            trace(AgentEvent.LOG_CANDIDATE, candidate, leafCount);
             
             // If this candidate has minimal leaf obstruction, choose it
             if (leafCount <= 2) {
-                ChipperChopperMod.LOGGER.info("Selected easily accessible log: " + candidate);
+                trace(AgentEvent.LOG_SELECTED, candidate, leafCount);
                 return candidate;
             }
         }
@@ -844,45 +1293,43 @@ public class TreeChopperAI {
             }
         }
         
-        ChipperChopperMod.LOGGER.info("Selected closest log (may need leaf clearing): " + closest);
+        trace(AgentEvent.LOG_SELECTED_CLOSEST, closest, 0);
         return closest;
     }
     
+    /**
+     * Preference class of a log relative to the last chopped position, or -1 if it is out of reach
+     */
+    private static int nextLogPriority(BlockPos currentPos, BlockPos log) {
+        return nextLogPriority(currentPos, log.getX(), log.getY(), log.getZ());
+    }
+    
+    private static int nextLogPriority(BlockPos currentPos, int x, int y, int z) {
+        int dx = Math.abs(x - currentPos.getX());
+        int dy = y - currentPos.getY();
+        int dz = Math.abs(z - currentPos.getZ());
+        if (dx == 0 && dz == 0 && dy >= 1 && dy <= 4) return 0; // Directly above
+        if (dx <= 1 && dz <= 1 && dy == 0 && (dx | dz) != 0) return 1; // Same level adjacent
+        if (dx <= 1 && dz <= 1 && dy >= 1 && dy <= 3) return 2; // Elevated adjacent
+        if (dx <= 2 && dz <= 2 && dy >= -1 && dy <= 3 && (dx | dy | dz) != 0) return 3; // Branches nearby
+        return -1;
+    }
+    
     /**
      * Count how many leaves are obstructing the path to a target block
      */
-    private static int countObstructingLeaves(World world, BlockPos fromPos, BlockPos toPos) {
-        Vec3d start = Vec3d.ofCenter(fromPos.up());
-        Vec3d end = Vec3d.ofCenter(toPos);
-        Vec3d direction = end.subtract(start).normalize();
-        double totalDistance = start.distanceTo(end);
-        
-        int leafCount = 0;
-        for (double d = 1.0; d < totalDistance - 0.5; d += 0.5) {
-            Vec3d point = start.add(direction.multiply(d));
-            BlockPos checkPos = BlockPos.ofFloored(point);
-            BlockState state = world.getBlockState(checkPos);
-            
-            if (isLeafBlock(state)) {
-                leafCount++;
-            }
-        }
-        
-        return leafCount;
+    private static int countObstructingLeaves(AgentHost host, BlockPos fromPos, BlockPos toPos) {
+        // PERFORMANCE OPTIMIZATION: One voxel traversal per player/target pair and tick, shared with the sight checks
+        return sightLine(host, fromPos, toPos).leafCount();
+    }
+    
+    static int countObstructingLeaves(BlockAccess blocks, BlockPos fromPos, BlockPos toPos) {
+        return blocks.sightLine(fromPos, toPos).leafCount();
     }
     
-    private static boolean isLogBlock(BlockState state) {
-        Block block = state.getBlock();
-        return block == Blocks.OAK_LOG || block == Blocks.BIRCH_LOG || block == Blocks.SPRUCE_LOG ||
-               block == Blocks.JUNGLE_LOG || block == Blocks.ACACIA_LOG || block == Blocks.DARK_OAK_LOG ||
-               block == Blocks.MANGROVE_LOG || block == Blocks.CHERRY_LOG || block == Blocks.BAMBOO_BLOCK ||
-               block == Blocks.CRIMSON_STEM || block == Blocks.WARPED_STEM ||
-               // Include stripped variants
-               block == Blocks.STRIPPED_OAK_LOG || block == Blocks.STRIPPED_BIRCH_LOG || 
-               block == Blocks.STRIPPED_SPRUCE_LOG || block == Blocks.STRIPPED_JUNGLE_LOG ||
-               block == Blocks.STRIPPED_ACACIA_LOG || block == Blocks.STRIPPED_DARK_OAK_LOG ||
-               block == Blocks.STRIPPED_MANGROVE_LOG || block == Blocks.STRIPPED_CHERRY_LOG ||
-               block == Blocks.STRIPPED_CRIMSON_STEM || block == Blocks.STRIPPED_WARPED_STEM;
+    static boolean isLogBlock(BlockState state) {
+        // PERFORMANCE OPTIMIZATION: Single table lookup, covers BlockTags.LOGS (modded logs included)
+        return BlockClassifier.is(state, BlockClassifier.LOG);
     }
     
     // === NEW: Helper for client-side movement ===
@@ -928,10 +1375,23 @@ public class TreeChopperAI {
      */
     public static void forceNewTarget(PlayerEntity player) {
         AIState state = playerStates.get(player.getUuid());
-        if (state != null && state.currentTask == AIState.Task.CHOPPING) {
+        if (state != null) {
+            if (player instanceof ServerPlayerEntity serverPlayer) {
+                onTargetInaccessible(hostFor(serverPlayer), state);
+            } else {
+                state.reports.add(ClientReport.TARGET_INACCESSIBLE); // Applied on the server thread at the start of the next turn
+            }
+        }
+    }
+    
+    /**
+     * @param host {@code null} when the client reported it, which only lets the server find a new target
+     */
+    private static void onTargetInaccessible(AgentHost host, AIState state) {
+        if (state.currentTask == AIState.Task.CHOPPING) {
             // On client side, we can't access the server world directly
             // So we'll just mark the current target as invalid and let the server-side tick handle it
-            if (!(player instanceof ServerPlayerEntity)) {
+            if (host == null) {
                 // Client-side: just mark target as needing refresh
                 state.targetTree = null;
                 state.currentTask = AIState.Task.IDLE;
@@ -940,13 +1400,11 @@ public class TreeChopperAI {
             }
             
             // Server-side: can do full target finding
-            ServerPlayerEntity serverPlayer = (ServerPlayerEntity) player;
-            World world = serverPlayer.getWorld();
-            BlockPos nextLog = findNextLogBlock(world, state.targetTree);
+            BlockPos nextLog = findNextLogBlock(host, treeModelFor(host, state, state.targetTree), state.targetTree);
             if (nextLog != null) {
                 state.targetTree = nextLog;
-                startLookingAt(serverPlayer, state, nextLog);
-                ChipperChopperMod.LOGGER.info("Found new accessible log block: " + nextLog);
+                startLookingAt(host, state, nextLog);
+                trace(state, AgentEvent.NEXT_LOG, nextLog, 0);
             } else {
                 // No more logs, go to collecting
                 state.currentTask = AIState.Task.COLLECTING;
@@ -974,7 +1432,17 @@ public class TreeChopperAI {
      */
     public static void notifyMiningProgress(PlayerEntity player) {
         AIState state = playerStates.get(player.getUuid());
-        if (state != null && (state.currentTask == AIState.Task.CHOPPING || state.currentTask == AIState.Task.CLEARING_LEAVES)) {
+        if (state != null) {
+            if (player instanceof ServerPlayerEntity) {
+                onMiningProgress(state);
+            } else {
+                state.reports.add(ClientReport.MINING_PROGRESS);
+            }
+        }
+    }
+    
+    private static void onMiningProgress(AIState state) {
+        if (state.currentTask == AIState.Task.CHOPPING || state.currentTask == AIState.Task.CLEARING_LEAVES) {
             state.ticksSinceLastAction = Math.max(0, state.ticksSinceLastAction - 10); // Reduce timeout when making progress
             state.consecutiveLineOfSightFailures = 0; // Reset LOS failures
         }
@@ -986,170 +1454,179 @@ public class TreeChopperAI {
     public static void notifyLineOfSightFailure(PlayerEntity player) {
         AIState state = playerStates.get(player.getUuid());
         if (state != null) {
-            state.consecutiveLineOfSightFailures++;
-            
-            // Only log periodically to reduce spam
-            if (state.consecutiveLineOfSightFailures % 20 == 1) { // Log every 20 failures (once per second)
-                ChipperChopperMod.LOGGER.info("Line of sight failure #" + state.consecutiveLineOfSightFailures + 
-                    " for target " + (state.targetTree != null ? state.targetTree : state.currentLeafTarget));
+            if (player instanceof ServerPlayerEntity serverPlayer) {
+                onLineOfSightFailure(hostFor(serverPlayer), state);
+            } else {
+                state.reports.add(ClientReport.LINE_OF_SIGHT_FAILURE);
+            }
+        }
+    }
+    
+    /**
+     * @param host {@code null} when the client reported it, which cannot make server-side decisions
+     */
+    private static void onLineOfSightFailure(AgentHost host, AIState state) {
+        state.consecutiveLineOfSightFailures++;
+        
+        trace(state, AgentEvent.LOS_FAILURE, state.targetTree != null ? state.targetTree : state.currentLeafTarget,
+            state.consecutiveLineOfSightFailures);
+        
+        // After multiple failures, take corrective action
+        if (state.consecutiveLineOfSightFailures >= 40) { // 2 seconds of failures
+            if (host == null) {
+                return; // Client can't make server-side decisions
             }
             
-            // After multiple failures, take corrective action
-            if (state.consecutiveLineOfSightFailures >= 40) { // 2 seconds of failures
-                if (!(player instanceof ServerPlayerEntity)) {
-                    return; // Client can't make server-side decisions
-                }
+            if (state.currentTask == AIState.Task.CHOPPING && state.targetTree != null) {
+                ChipperChopperMod.LOGGER.info("Persistent line-of-sight failure, finding alternative approach");
                 
-                ServerPlayerEntity serverPlayer = (ServerPlayerEntity) player;
-                World world = serverPlayer.getWorld();
+                // Try to find a more accessible log block
+                BlockPos alternativeLog = findAlternativeLogBlock(treeModelFor(host, state, state.targetTree), host.blockPos(), state.targetTree);
+                if (alternativeLog != null && !alternativeLog.equals(state.targetTree)) {
+                    state.targetTree = alternativeLog;
+                    startLookingAt(host, state, alternativeLog);
+                    state.consecutiveLineOfSightFailures = 0;
+                    state.ticksSinceLastAction = 0;
+                    trace(state, AgentEvent.ALTERNATIVE_LOG, alternativeLog, 0);
+                    return;
+                }
                 
-                if (state.currentTask == AIState.Task.CHOPPING && state.targetTree != null) {
-                    ChipperChopperMod.LOGGER.info("Persistent line-of-sight failure, finding alternative approach");
-                    
-                    // Try to find a more accessible log block
-                    BlockPos alternativeLog = findAlternativeLogBlock(world, player.getBlockPos(), state.targetTree);
-                    if (alternativeLog != null && !alternativeLog.equals(state.targetTree)) {
-                        state.targetTree = alternativeLog;
-                        startLookingAt(serverPlayer, state, alternativeLog);
-                        state.consecutiveLineOfSightFailures = 0;
-                        state.ticksSinceLastAction = 0;
-                        ChipperChopperMod.LOGGER.info("Switched to alternative log due to LOS failures: " + alternativeLog);
-                        return;
-                    }
-                    
-                    // If no alternative log, try repositioning
-                    BlockPos betterPos = findBetterPosition(world, player.getBlockPos(), state.targetTree);
-                    if (betterPos != null) {
-                        state.currentTask = AIState.Task.REPOSITIONING;
-                        state.repositionTarget = betterPos;
-                        state.consecutiveLineOfSightFailures = 0;
-                        ChipperChopperMod.LOGGER.info("Repositioning due to persistent LOS failures: " + betterPos);
-                        return;
-                    }
-                    
-                    // If target might be behind leaves, switch to leaf clearing
-                    if (shouldClearLeavesFirst(world, player.getBlockPos(), state.targetTree)) {
-                        state.currentTask = AIState.Task.CLEARING_LEAVES;
-                        state.currentLeafTarget = null;
-                        state.consecutiveLineOfSightFailures = 0;
-                        ChipperChopperMod.LOGGER.info("Switching to leaf clearing due to LOS failures");
-                        return;
-                    }
-                    
-                    // Last resort: find a new tree
-                    state.currentTask = AIState.Task.IDLE;
-                    state.targetTree = null;
+                // If no alternative log, try repositioning
+                BlockPos betterPos = findBetterPosition(host, host.blockPos(), state.targetTree);
+                if (betterPos != null) {
+                    state.currentTask = AIState.Task.REPOSITIONING;
+                    state.repositionTarget = betterPos;
                     state.consecutiveLineOfSightFailures = 0;
-                    ChipperChopperMod.LOGGER.info("Giving up on inaccessible tree, searching for new one");
-                    
-                } else if (state.currentTask == AIState.Task.CLEARING_LEAVES && state.currentLeafTarget != null) {
-                    ChipperChopperMod.LOGGER.info("Line-of-sight failure during leaf clearing, finding alternative");
-                    
-                    // Try to find a different leaf to clear
-                    BlockPos alternativeLeaf = findAlternativeLeafTarget(world, player.getBlockPos(), state.targetTree, state.problematicLeaves);
-                    if (alternativeLeaf != null && !alternativeLeaf.equals(state.currentLeafTarget)) {
-                        state.currentLeafTarget = alternativeLeaf;
-                        startLookingAt(serverPlayer, state, alternativeLeaf);
-                        state.consecutiveLineOfSightFailures = 0;
-                        state.ticksSinceLastAction = 0;
-                        ChipperChopperMod.LOGGER.info("Switched to alternative leaf: " + alternativeLeaf);
-                        return;
-                    }
-                    
-                    // If no alternative leaf, try repositioning
-                    BlockPos betterPos = findBetterLeafClearingPosition(world, player.getBlockPos(), state.targetTree);
-                    if (betterPos != null) {
-                        state.currentTask = AIState.Task.REPOSITIONING;
-                        state.repositionTarget = betterPos;
-                        state.consecutiveLineOfSightFailures = 0;
-                        ChipperChopperMod.LOGGER.info("Repositioning for better leaf access");
-                        return;
-                    }
-                    
-                    // Give up on leaf clearing, go back to chopping or idle
-                    state.currentTask = AIState.Task.CHOPPING;
+                    ChipperChopperMod.LOGGER.info("Repositioning due to persistent LOS failures: " + betterPos);
+                    return;
+                }
+                
+                // If target might be behind leaves, switch to leaf clearing
+                if (shouldClearLeavesFirst(host, host.blockPos(), state.targetTree)) {
+                    state.currentTask = AIState.Task.CLEARING_LEAVES;
                     state.currentLeafTarget = null;
                     state.consecutiveLineOfSightFailures = 0;
-                    ChipperChopperMod.LOGGER.info("Abandoning problematic leaves, resuming chopping");
+                    ChipperChopperMod.LOGGER.info("Switching to leaf clearing due to LOS failures");
+                    return;
                 }
-            }
-            
-            // If repositioning is not possible or has failed, give up on this tree
-            if (state.consecutiveLineOfSightFailures >= 12) {
-                // No alternatives found, complete this tree and move on
-                state.currentTask = AIState.Task.COLLECTING;
+                
+                // Last resort: find a new tree
+                state.currentTask = AIState.Task.IDLE;
                 state.targetTree = null;
-                state.repositionAttempts = 0;
                 state.consecutiveLineOfSightFailures = 0;
-                ChipperChopperMod.LOGGER.info("Too many line-of-sight failures, giving up on this tree and moving to collection");
+                ChipperChopperMod.LOGGER.info("Giving up on inaccessible tree, searching for new one");
+                
+            } else if (state.currentTask == AIState.Task.CLEARING_LEAVES && state.currentLeafTarget != null) {
+                ChipperChopperMod.LOGGER.info("Line-of-sight failure during leaf clearing, finding alternative");
+                
+                // Try to find a different leaf to clear
+                BlockPos alternativeLeaf = findAlternativeLeafTarget(host, host.blockPos(), state.targetTree, state.problematicLeaves);
+                if (alternativeLeaf != null && !alternativeLeaf.equals(state.currentLeafTarget)) {
+                    state.currentLeafTarget = alternativeLeaf;
+                    startLookingAt(host, state, alternativeLeaf);
+                    state.consecutiveLineOfSightFailures = 0;
+                    state.ticksSinceLastAction = 0;
+                    trace(state, AgentEvent.ALTERNATIVE_LEAF, alternativeLeaf, 0);
+                    return;
+                }
+                
+                // If no alternative leaf, try repositioning
+                BlockPos betterPos = findBetterLeafClearingPosition(host, host.blockPos(), state.targetTree);
+                if (betterPos != null) {
+                    state.currentTask = AIState.Task.REPOSITIONING;
+                    state.repositionTarget = betterPos;
+                    state.consecutiveLineOfSightFailures = 0;
+                    ChipperChopperMod.LOGGER.info("Repositioning for better leaf access");
+                    return;
+                }
+                
+                // Give up on leaf clearing, go back to chopping or idle
+                state.currentTask = AIState.Task.CHOPPING;
+                state.currentLeafTarget = null;
+                state.consecutiveLineOfSightFailures = 0;
+                ChipperChopperMod.LOGGER.info("Abandoning problematic leaves, resuming chopping");
             }
         }
+        
+        // If repositioning is not possible or has failed, give up on this tree
+        if (state.consecutiveLineOfSightFailures >= 12) {
+            // No alternatives found, complete this tree and move on
+            state.currentTask = AIState.Task.COLLECTING;
+            state.targetTree = null;
+            state.repositionAttempts = 0;
+            state.consecutiveLineOfSightFailures = 0;
+            ChipperChopperMod.LOGGER.info("Too many line-of-sight failures, giving up on this tree and moving to collection");
+        }
     }
     
     /**
      * Find a LOWER log block that's more likely to be accessible (prioritizes ground-level logs)
      */
-    private static BlockPos findLowerLogBlock(World world, BlockPos playerPos, BlockPos currentTarget) {
+    private static BlockPos findLowerLogBlock(TreeModel model, BlockPos playerPos, BlockPos currentTarget) {
         int playerY = playerPos.getY();
-        BlockPos bestCandidate = null;
         int bestY = Integer.MAX_VALUE;
         
-        // Search in a radius around the player for log blocks, prioritizing lower ones
-        for (int x = -4; x <= 4; x++) {
-            for (int y = -2; y <= 3; y++) { // Don't search too high up
-                for (int z = -4; z <= 4; z++) {
-                    BlockPos checkPos = playerPos.add(x, y, z);
-                    
-                    // Skip the current target
-                    if (checkPos.equals(currentTarget)) continue;
-                    
-                    if (isLogBlock(world.getBlockState(checkPos))) {
-                        // Prioritize blocks closer to player's Y level (easier to reach)
-                        int blockY = checkPos.getY();
-                        if (blockY <= playerY + 2 && blockY < bestY) { // Prefer blocks at or near player level
-                            bestCandidate = checkPos;
-                            bestY = blockY;
-                        }
-                    }
-                }
+        // Look through the tree's logs around the player, prioritizing lower ones
+        long currentPacked = currentTarget.asLong();
+        long bestPacked = 0;
+        LongIterator logs = model.logIterator();
+        while (logs.hasNext()) {
+            long checkPos = logs.nextLong();
+            int dx = BlockPos.unpackLongX(checkPos) - playerPos.getX();
+            int dy = BlockPos.unpackLongY(checkPos) - playerPos.getY();
+            int dz = BlockPos.unpackLongZ(checkPos) - playerPos.getZ();
+            
+            // Skip the current target and anything outside the reachable box
+            if (checkPos == currentPacked || Math.abs(dx) > 4 || Math.abs(dz) > 4 || dy < -2 || dy > 3) continue;
+            
+            // Prioritize blocks closer to player's Y level (easier to reach)
+            int blockY = BlockPos.unpackLongY(checkPos);
+            if (blockY <= playerY + 2 && blockY < bestY) { // Prefer blocks at or near player level
+                bestPacked = checkPos;
+                bestY = blockY;
             }
         }
         
-        return bestCandidate;
+        return bestY != Integer.MAX_VALUE ? BlockPos.fromLong(bestPacked) : null;
     }
 
     /**
      * Find an alternative log block near the player when the current target is inaccessible
      */
-    private static BlockPos findAlternativeLogBlock(World world, BlockPos playerPos, BlockPos currentTarget) {
-        // Search in a small radius around the player for any log blocks
-        for (int x = -3; x <= 3; x++) {
-            for (int y = -2; y <= 5; y++) {
-                for (int z = -3; z <= 3; z++) {
-                    BlockPos checkPos = playerPos.add(x, y, z);
-                    
-                    // Skip the current target
-                    if (checkPos.equals(currentTarget)) continue;
-                    
-                    if (isLogBlock(world.getBlockState(checkPos))) {
-                        // Check if this block is closer to the player than the current target
-                        double distanceToCheck = playerPos.getSquaredDistance(checkPos.getX(), checkPos.getY(), checkPos.getZ());
-                        double distanceToCurrent = playerPos.getSquaredDistance(currentTarget.getX(), currentTarget.getY(), currentTarget.getZ());
-                        
-                        if (distanceToCheck <= distanceToCurrent + 4) { // Within reasonable range
-                            return checkPos;
-                        }
-                    }
-                }
+    private static BlockPos findAlternativeLogBlock(TreeModel model, BlockPos playerPos, BlockPos currentTarget) {
+        double distanceToCurrent = playerPos.getSquaredDistance(currentTarget.getX(), currentTarget.getY(), currentTarget.getZ());
+        long currentPacked = currentTarget.asLong();
+        long closest = 0;
+        double closestDistance = Double.MAX_VALUE;
+        
+        // Search the tree's logs in a small box around the player
+        LongIterator logs = model.logIterator();
+        while (logs.hasNext()) {
+            long checkPos = logs.nextLong();
+            int x = BlockPos.unpackLongX(checkPos);
+            int y = BlockPos.unpackLongY(checkPos);
+            int z = BlockPos.unpackLongZ(checkPos);
+            int dx = x - playerPos.getX();
+            int dy = y - playerPos.getY();
+            int dz = z - playerPos.getZ();
+            
+            // Skip the current target
+            if (checkPos == currentPacked || Math.abs(dx) > 3 || Math.abs(dz) > 3 || dy < -2 || dy > 5) continue;
+            
+            // Check if this block is closer to the player than the current target
+            double distanceToCheck = playerPos.getSquaredDistance(x, y, z);
+            if (distanceToCheck <= distanceToCurrent + 4 && distanceToCheck < closestDistance) { // Within reasonable range
+                closest = checkPos;
+                closestDistance = distanceToCheck;
             }
         }
-        return null;
+        return closestDistance != Double.MAX_VALUE ? BlockPos.fromLong(closest) : null;
     }
     
     /**
      * Find a better position for the player to reach the target block
      */
-    private static BlockPos findBetterPosition(World world, BlockPos playerPos, BlockPos targetBlock) {
+    private static BlockPos findBetterPosition(AgentHost host, BlockPos playerPos, BlockPos targetBlock) {
         // Calculate direction from player to target
         Vec3d direction = Vec3d.ofCenter(targetBlock).subtract(Vec3d.ofCenter(playerPos)).normalize();
         
@@ -1159,9 +1636,9 @@ public class TreeChopperAI {
             BlockPos testPos = BlockPos.ofFloored(newPos);
             
             // Check if this position is safe and accessible
-            if (isValidPosition(world, testPos)) {
+            if (isValidPosition(host, testPos)) {
                 // Check if we'd have line of sight from this position to target
-                if (hasServerLineOfSight(world, testPos, targetBlock)) {
+                if (hasServerLineOfSight(host, testPos, targetBlock)) {
                     return testPos;
                 }
             }
@@ -1176,8 +1653,8 @@ public class TreeChopperAI {
                 
                 BlockPos testPos = targetBlock.add(offsetX, 0, offsetZ);
                 
-                if (isValidPosition(world, testPos)) {
-                    if (hasServerLineOfSight(world, testPos, targetBlock)) {
+                if (isValidPosition(host, testPos)) {
+                    if (hasServerLineOfSight(host, testPos, targetBlock)) {
                         return testPos;
                     }
                 }
@@ -1190,47 +1667,31 @@ public class TreeChopperAI {
     /**
      * Check if a position is safe for the player to stand
      */
-    private static boolean isValidPosition(World world, BlockPos pos) {
+    private static boolean isValidPosition(AgentHost host, BlockPos pos) {
+        return isValidPosition(host.blocks(), pos.getX(), pos.getY(), pos.getZ());
+    }
+    
+    private static boolean isValidPosition(BlockAccess blocks, int x, int y, int z) {
         // Check feet level (must be air or passable)
-        BlockState feetBlock = world.getBlockState(pos);
-        if (!feetBlock.isAir() && !feetBlock.getCollisionShape(world, pos).isEmpty()) {
+        if (!BlockClassifier.is(blocks.getBlockState(x, y, z), BlockClassifier.PASSABLE)) {
             return false;
         }
         
         // Check head level (must be air or passable)
-        BlockState headBlock = world.getBlockState(pos.up());
-        if (!headBlock.isAir() && !headBlock.getCollisionShape(world, pos.up()).isEmpty()) {
+        if (!BlockClassifier.is(blocks.getBlockState(x, y + 1, z), BlockClassifier.PASSABLE)) {
             return false;
         }
         
         // Check ground level (must have solid ground)
-        BlockState groundBlock = world.getBlockState(pos.down());
-        return !groundBlock.isAir() && !groundBlock.getCollisionShape(world, pos.down()).isEmpty();
+        return BlockClassifier.is(blocks.getBlockState(x, y - 1, z), BlockClassifier.STANDABLE);
     }
     
     /**
      * Server-side line-of-sight check
      */
-    private static boolean hasServerLineOfSight(World world, BlockPos fromPos, BlockPos toPos) {
-        Vec3d fromCenter = Vec3d.ofCenter(fromPos).add(0, 1.6, 0); // Eye level
-        Vec3d toCenter = Vec3d.ofCenter(toPos);
-        
-        // Simple raycast check - in a real implementation you'd use world.raycast
-        Vec3d direction = toCenter.subtract(fromCenter).normalize();
-        double distance = fromCenter.distanceTo(toCenter);
-        
-        // Check every 0.5 blocks along the ray
-        for (double d = 0.5; d < distance; d += 0.5) {
-            Vec3d checkPos = fromCenter.add(direction.multiply(d));
-            BlockPos checkBlock = BlockPos.ofFloored(checkPos);
-            
-            if (!world.getBlockState(checkBlock).isAir()) {
-                // Hit something solid, check if it's our target
-                return checkBlock.equals(toPos);
-            }
-        }
-        
-        return true; // Clear line of sight
+    private static boolean hasServerLineOfSight(AgentHost host, BlockPos fromPos, BlockPos toPos) {
+        // Clear if the first non-air block from eye level is the target itself
+        return sightLine(host, fromPos, toPos).isClear();
     }
     
     /**
@@ -1263,72 +1724,42 @@ public class TreeChopperAI {
     /**
      * Check if we need to clear leaves before chopping the tree
      */
-    private static boolean shouldClearLeavesFirst(World world, BlockPos playerPos, BlockPos treePos) {
+    private static boolean shouldClearLeavesFirst(AgentHost host, BlockPos playerPos, BlockPos treePos) {
         // Check if there are leaves blocking direct line of sight
-        BlockPos leafPos = findObstructingLeaf(world, playerPos, treePos);
+        BlockPos leafPos = findObstructingLeaf(host, playerPos, treePos);
         return leafPos != null;
     }
     
     /**
      * Find a leaf block that's obstructing our view of the tree
      */
-    private static BlockPos findObstructingLeaf(World world, BlockPos playerPos, BlockPos treePos) {
-        Vec3d start = Vec3d.ofCenter(playerPos.up()); // Player eye level
-        Vec3d end = Vec3d.ofCenter(treePos);
-        Vec3d direction = end.subtract(start).normalize();
-        double totalDistance = start.distanceTo(end);
-        
-        // Raycast from player to tree, looking for leaves
-        for (double d = 1.0; d < totalDistance - 0.5; d += 0.3) { // Start further out and use smaller steps
-            Vec3d point = start.add(direction.multiply(d));
-            BlockPos checkPos = BlockPos.ofFloored(point);
-            BlockState state = world.getBlockState(checkPos);
-            
-            // Check if this is a leaf block that's blocking our path
-            if (isLeafBlock(state)) {
-                ChipperChopperMod.LOGGER.info("Found obstructing leaf at: " + checkPos + " (distance: " + String.format("%.1f", d) + ")");
-                return checkPos;
-            }
-            
-            // Also check if it's a solid block that's not our target (could be leaves or other obstacle)
-            if (!state.isAir() && !checkPos.equals(treePos) && !isLogBlock(state)) {
-                if (isLeafBlock(state)) {
-                    ChipperChopperMod.LOGGER.info("Found non-log obstruction (leaf) at: " + checkPos);
-                    return checkPos;
-                }
-            }
+    private static BlockPos findObstructingLeaf(AgentHost host, BlockPos playerPos, BlockPos treePos) {
+        // Nearest leaf on the sight line from the player's eyes to the tree
+        VoxelRay.Trace sight = sightLine(host, playerPos, treePos);
+        if (sight.firstLeaf() != null) {
+            trace(AgentEvent.OBSTRUCTING_LEAF, sight.firstLeaf(), sight.leafCount());
         }
-        
-        return null;
+        return sight.firstLeaf();
     }
     
     /**
      * Check if a block state is a leaf block
      */
     private static boolean isLeafBlock(BlockState state) {
-        Block block = state.getBlock();
-        return block == Blocks.OAK_LEAVES || 
-               block == Blocks.BIRCH_LEAVES || 
-               block == Blocks.SPRUCE_LEAVES || 
-               block == Blocks.JUNGLE_LEAVES || 
-               block == Blocks.ACACIA_LEAVES || 
-               block == Blocks.DARK_OAK_LEAVES ||
-               block == Blocks.MANGROVE_LEAVES ||
-               block == Blocks.CHERRY_LEAVES ||
-               block == Blocks.PALE_OAK_LEAVES;
+        return BlockClassifier.is(state, BlockClassifier.LEAF);
     }
     
     /**
      * Find a better position for clearing leaves
      */
-    private static BlockPos findBetterLeafClearingPosition(World world, BlockPos playerPos, BlockPos treePos) {
+    private static BlockPos findBetterLeafClearingPosition(AgentHost host, BlockPos playerPos, BlockPos treePos) {
         // Try positions around the tree base
         for (int x = -2; x <= 2; x++) {
             for (int z = -2; z <= 2; z++) {
                 BlockPos testPos = treePos.add(x, 0, z);
-                if (isValidPosition(world, testPos)) {
+                if (isValidPosition(host, testPos)) {
                     // Check if this position has fewer obstructing leaves
-                    BlockPos leafObstruct = findObstructingLeaf(world, testPos, treePos);
+                    BlockPos leafObstruct = findObstructingLeaf(host, testPos, treePos);
                     if (leafObstruct == null || testPos.getSquaredDistance(leafObstruct) < playerPos.getSquaredDistance(leafObstruct)) {
                         return testPos;
                     }
@@ -1341,9 +1772,9 @@ public class TreeChopperAI {
     /**
      * Find a position underneath the tree for better chopping angle
      */
-    private static BlockPos findPositionUnderTree(World world, BlockPos playerPos, BlockPos treePos) {
+    private static BlockPos findPositionUnderTree(AgentHost host, BlockPos playerPos, BlockPos treePos) {
         // Look for a position directly under or near the tree trunk
-        BlockPos basePos = findTreeBase(world, treePos);
+        BlockPos basePos = findTreeBase(host, treePos);
         if (basePos == null) {
             basePos = treePos;
         }
@@ -1352,7 +1783,7 @@ public class TreeChopperAI {
         for (int x = -1; x <= 1; x++) {
             for (int z = -1; z <= 1; z++) {
                 BlockPos testPos = basePos.add(x, 0, z);
-                if (isValidPosition(world, testPos) && testPos.getY() <= treePos.getY()) {
+                if (isValidPosition(host, testPos) && testPos.getY() <= treePos.getY()) {
                     return testPos;
                 }
             }
@@ -1364,13 +1795,13 @@ public class TreeChopperAI {
     /**
      * Find the base of the tree (lowest log block)
      */
-    private static BlockPos findTreeBase(World world, BlockPos startPos) {
+    private static BlockPos findTreeBase(AgentHost host, BlockPos startPos) {
         BlockPos current = startPos;
         
         // Go down until we find non-log or hit ground
         while (current.getY() > 0) {
             BlockPos below = current.down();
-            if (!isLogBlock(world.getBlockState(below))) {
+            if (!isLogBlock(host.blocks().getBlockState(below))) {
                 return current; // This is the base
             }
             current = below;
@@ -1382,7 +1813,7 @@ public class TreeChopperAI {
     /**
      * Find an alternative leaf target that might be easier to break
      */
-    private static BlockPos findAlternativeLeafTarget(World world, BlockPos playerPos, BlockPos treePos, Set<BlockPos> problematicLeaves) {
+    private static BlockPos findAlternativeLeafTarget(AgentHost host, BlockPos playerPos, BlockPos treePos, Set<BlockPos> problematicLeaves) {
         List<BlockPos> leafCandidates = new ArrayList<>();
         
         // Search for leaf blocks in the area around the line of sight
@@ -1400,7 +1831,7 @@ public class TreeChopperAI {
                 for (int y = -1; y <= 1; y++) {
                     for (int z = -1; z <= 1; z++) {
                         BlockPos checkPos = BlockPos.ofFloored(point).add(x, y, z);
-                        BlockState state = world.getBlockState(checkPos);
+                        BlockState state = host.blocks().getBlockState(checkPos);
                         
                         if (isLeafBlock(state) && !problematicLeaves.contains(checkPos)) {
                             leafCandidates.add(checkPos);
@@ -1434,7 +1865,7 @@ public class TreeChopperAI {
     /**
      * Check if the player needs to navigate around obstacles to reach the target
      */
-    private static boolean needsPathfinding(World world, BlockPos playerPos, BlockPos targetPos) {
+    private static boolean needsPathfinding(BlockAccess blocks, BlockPos playerPos, BlockPos targetPos) {
         // Check if there's a significant height difference
         int heightDiff = Math.abs(targetPos.getY() - playerPos.getY());
         if (heightDiff > 3) {
@@ -1442,13 +1873,13 @@ public class TreeChopperAI {
         }
         
         // Check if player is stuck in a hole or behind obstacles
-        return isStuckInHole(world, playerPos) || hasObstaclesBetween(world, playerPos, targetPos);
+        return isStuckInHole(blocks, playerPos) || hasObstaclesBetween(blocks, playerPos, targetPos);
     }
     
     /**
      * Check if the player is stuck in a hole
      */
-    private static boolean isStuckInHole(World world, BlockPos playerPos) {
+    private static boolean isStuckInHole(BlockAccess blocks, BlockPos playerPos) {
         // Check if there are solid blocks above the player (indicating a hole/cave)
         int blockedDirections = 0;
         
@@ -1458,7 +1889,8 @@ public class TreeChopperAI {
         };
         
         for (BlockPos checkPos : directions) {
-            if (!isValidPosition(world, checkPos) || !isValidPosition(world, checkPos.up())) {
+            if (!isValidPosition(blocks, checkPos.getX(), checkPos.getY(), checkPos.getZ())
+                    || !isValidPosition(blocks, checkPos.getX(), checkPos.getY() + 1, checkPos.getZ())) {
                 blockedDirections++;
             }
         }
@@ -1470,19 +1902,15 @@ public class TreeChopperAI {
     /**
      * Check if there are major obstacles between player and target
      */
-    private static boolean hasObstaclesBetween(World world, BlockPos playerPos, BlockPos targetPos) {
-        Vec3d start = Vec3d.ofCenter(playerPos);
-        Vec3d end = Vec3d.ofCenter(targetPos);
-        Vec3d direction = end.subtract(start).normalize();
-        double distance = start.distanceTo(end);
+    private static boolean hasObstaclesBetween(BlockAccess blocks, BlockPos playerPos, BlockPos targetPos) {
+        // PERFORMANCE OPTIMIZATION: Walk every cell of the path once instead of sampling every 2 blocks
+        VoxelRay ray = new VoxelRay(playerPos.getX() + 0.5, playerPos.getY() + 0.5, playerPos.getZ() + 0.5,
+            targetPos.getX() + 0.5, targetPos.getY() + 0.5, targetPos.getZ() + 0.5);
+        ray.next(); // Where the player stands
         
-        // Check every 2 blocks along the path
-        for (double d = 2.0; d < distance; d += 2.0) {
-            Vec3d point = start.add(direction.multiply(d));
-            BlockPos checkPos = BlockPos.ofFloored(point);
-            
+        while (ray.next() && !ray.isEnd()) {
             // Check if there's a wall or pit in the way
-            if (!isValidPosition(world, checkPos) || !isValidPosition(world, checkPos.up())) {
+            if (!isValidPosition(blocks, ray.x(), ray.y(), ray.z()) || !isValidPosition(blocks, ray.x(), ray.y() + 1, ray.z())) {
                 return true;
             }
         }
@@ -1493,7 +1921,7 @@ public class TreeChopperAI {
     /**
      * Find an accessible position to reach the target tree
      */
-    private static BlockPos findAccessiblePosition(World world, BlockPos playerPos, BlockPos targetTree) {
+    private static BlockPos findAccessiblePosition(AgentHost host, BlockPos playerPos, BlockPos targetTree) {
         // Try positions around the tree at different heights and distances
         int[] distances = {3, 4, 5, 6}; // Try different distances from tree
         int[] heightOffsets = {0, -1, -2, 1, 2}; // Try different heights
@@ -1510,12 +1938,12 @@ public class TreeChopperAI {
                     BlockPos candidate = new BlockPos(x, y, z);
                     
                     // Check if this position is accessible and has line of sight to tree
-                    if (isValidPosition(world, candidate) && 
-                        hasServerLineOfSight(world, candidate, targetTree) &&
-                        !needsPathfinding(world, playerPos, candidate)) {
+                    if (isValidPosition(host, candidate) && 
+                        hasServerLineOfSight(host, candidate, targetTree) &&
+                        !needsPathfinding(host.blocks(), playerPos, candidate)) {
                         
                         // Make sure there's a path from player to this position
-                        if (!hasObstaclesBetween(world, playerPos, candidate)) {
+                        if (!hasObstaclesBetween(host.blocks(), playerPos, candidate)) {
                             return candidate;
                         }
                     }
@@ -1529,7 +1957,7 @@ public class TreeChopperAI {
     /**
      * Find a position to help the player get out of a hole or stuck situation
      */
-    private static BlockPos findEscapePosition(World world, BlockPos playerPos) {
+    private static BlockPos findEscapePosition(AgentHost host, BlockPos playerPos) {
         // Try to find higher ground nearby
         int[] distances = {2, 3, 4, 5};
         
@@ -1544,7 +1972,7 @@ public class TreeChopperAI {
                     int y = playerPos.getY() + heightOffset;
                     BlockPos candidate = new BlockPos(x, y, z);
                     
-                    if (isValidPosition(world, candidate) && !isStuckInHole(world, candidate)) {
+                    if (isValidPosition(host, candidate) && !isStuckInHole(host.blocks(), candidate)) {
                         return candidate;
                     }
                 }
@@ -1559,7 +1987,7 @@ public class TreeChopperAI {
     /**
      * Enhanced AI decision tracking and progress monitoring
      */
-    private static class AIDecisionTracker {
+    static class AIDecisionTracker {
         public Set<BlockPos> attemptedTargets = new HashSet<>();
         public Map<BlockPos, Integer> targetAttemptCounts = new HashMap<>();
         public long lastProgressTime = System.currentTimeMillis();
@@ -1638,48 +2066,77 @@ public class TreeChopperAI {
         }
         
         state.decisionTracker.recordProgress();
-        ChipperChopperMod.LOGGER.info("AI Progress: " + action);
+        trace(state, AgentEvent.PROGRESS, state.targetTree, 0);
     }
     
     /**
      * Intelligent target selection with learning from failures
      */
-    private static BlockPos findIntelligentTarget(World world, BlockPos playerPos, BlockPos currentTree, AIState state) {
+    private static BlockPos findIntelligentTarget(AgentHost host, BlockPos playerPos, BlockPos currentTree, AIState state) {
         if (state.decisionTracker == null) {
             state.decisionTracker = new AIDecisionTracker();
         }
         
-        // Get all potential log blocks
-        List<BlockPos> candidates = new ArrayList<>();
-        
-        // Search in expanding radius
-        for (int radius = 1; radius <= 4; radius++) {
-            for (int x = -radius; x <= radius; x++) {
-                for (int y = -2; y <= 4; y++) {
-                    for (int z = -radius; z <= radius; z++) {
-                        BlockPos candidate = currentTree.add(x, y, z);
-                        if (isLogBlock(world.getBlockState(candidate)) && 
-                            !state.decisionTracker.hasTriedTarget(candidate)) {
-                            candidates.add(candidate);
-                        }
-                    }
-                }
-            }
-            
-            if (!candidates.isEmpty()) break; // Found candidates at this radius
-        }
-        
+        List<BlockPos> candidates = nextLogCandidates(treeModelFor(host, state, currentTree), currentTree, state.decisionTracker);
         if (candidates.isEmpty()) {
             state.thinkingState = AIThinkingState.PROBLEM_SOLVING;
             return null;
         }
         
+        BlockPos bestCandidate = bestNextLog(host.blocks(), candidates, playerPos, state.decisionTracker);
+        if (bestCandidate != null) {
+            state.thinkingState = AIThinkingState.ANALYZING;
+        }
+        return bestCandidate;
+    }
+    
+    /**
+     * Best untried log of {@code model} around the current target, or {@code null} if none is left
+     */
+    static BlockPos selectNextLog(BlockAccess blocks, TreeModel model, BlockPos playerPos, BlockPos currentTree,
+                                  AIDecisionTracker tracker) {
+        return bestNextLog(blocks, nextLogCandidates(model, currentTree, tracker), playerPos, tracker);
+    }
+    
+    /**
+     * Untried logs of {@code model} in the smallest ring around the current target that has any
+     */
+    private static List<BlockPos> nextLogCandidates(TreeModel model, BlockPos currentTree, AIDecisionTracker tracker) {
+        // Get all potential log blocks
+        List<BlockPos> candidates = new ArrayList<>();
+        
+        // PERFORMANCE OPTIMIZATION: Walk the tree model's logs once, keeping those in the smallest
+        // ring (1-4 blocks around the current target) that has any untried log
+        int bestRing = 5;
+        LongIterator logs = model.logIterator();
+        while (logs.hasNext()) {
+            long log = logs.nextLong();
+            int dy = BlockPos.unpackLongY(log) - currentTree.getY();
+            int ring = Math.max(1, Math.max(Math.abs(BlockPos.unpackLongX(log) - currentTree.getX()), Math.abs(BlockPos.unpackLongZ(log) - currentTree.getZ())));
+            if (dy < -2 || dy > 4 || ring > bestRing) {
+                continue;
+            }
+            BlockPos candidate = BlockPos.fromLong(log);
+            if (tracker.hasTriedTarget(candidate)) {
+                continue;
+            }
+            if (ring < bestRing) {
+                candidates.clear(); // Found candidates at a smaller radius
+                bestRing = ring;
+            }
+            candidates.add(candidate);
+        }
+        return candidates;
+    }
+    
+    private static BlockPos bestNextLog(BlockAccess blocks, List<BlockPos> candidates, BlockPos playerPos,
+                                        AIDecisionTracker tracker) {
         // Intelligent scoring system
         BlockPos bestCandidate = null;
         double bestScore = -1;
         
         for (BlockPos candidate : candidates) {
-            double score = calculateTargetScore(world, playerPos, candidate, state);
+            double score = calculateTargetScore(blocks, playerPos, candidate, tracker);
             if (score > bestScore) {
                 bestScore = score;
                 bestCandidate = candidate;
@@ -1687,8 +2144,7 @@ public class TreeChopperAI {
         }
         
         if (bestCandidate != null) {
-            state.decisionTracker.recordAttempt(bestCandidate, "Intelligent target selection");
-            state.thinkingState = AIThinkingState.ANALYZING;
+            tracker.recordAttempt(bestCandidate, "Intelligent target selection");
         }
         
         return bestCandidate;
@@ -1697,7 +2153,7 @@ public class TreeChopperAI {
     /**
      * Advanced scoring system for target selection
      */
-    private static double calculateTargetScore(World world, BlockPos playerPos, BlockPos target, AIState state) {
+    private static double calculateTargetScore(BlockAccess blocks, BlockPos playerPos, BlockPos target, AIDecisionTracker tracker) {
         double score = 100.0; // Base score
         
         // Distance penalty (closer is better)
@@ -1708,30 +2164,30 @@ public class TreeChopperAI {
         int heightDiff = Math.abs(target.getY() - playerPos.getY());
         if (heightDiff > 3) score -= heightDiff * 10;
         
+        // PERFORMANCE OPTIMIZATION: One sight line gives both the leaf count and the line of sight
+        VoxelRay.Trace sight = blocks.sightLine(playerPos, target);
+        
         // Leaf obstruction penalty
-        int leafCount = countObstructingLeaves(world, playerPos, target);
-        score -= leafCount * 15;
+        score -= sight.leafCount() * 15;
         
         // Line of sight bonus
-        if (hasServerLineOfSight(world, playerPos, target)) {
+        if (sight.isClear()) {
             score += 30;
         }
         
         // Terrain accessibility
-        if (needsPathfinding(world, playerPos, target)) {
+        if (needsPathfinding(blocks, playerPos, target)) {
             score -= 25;
         }
         
         // Avoid recently failed targets
-        if (state.decisionTracker != null) {
-            int attempts = state.decisionTracker.targetAttemptCounts.getOrDefault(target, 0);
-            score -= attempts * 40; // Heavy penalty for repeated attempts
-        }
+        int attempts = tracker.targetAttemptCounts.getOrDefault(target, 0);
+        score -= attempts * 40; // Heavy penalty for repeated attempts
         
         return score;
     }
     
-    private static class AIState {
+    static class AIState {
         public enum Task {
             IDLE, MOVING_TO_TREE, CHOPPING, COLLECTING, MOVING_TO_ITEM, REPOSITIONING, CLEARING_LEAVES
         }
@@ -1753,6 +2209,18 @@ public class TreeChopperAI {
         public long lastLeafTargetTime = 0; // Track when we last changed leaf targets
         public AIThinkingState thinkingState = AIThinkingState.IDLE;
         public AIDecisionTracker decisionTracker = null;
+        public TreeModel treeModel = null; // Logs of the tree being chopped, built on first use
+        public CompletableFuture<AsyncTreeSearch.Result> pendingSearch = null; // In-flight async tree search
+        public AgentHost.TreeSearch treeSearch = null; // Expanded-radius search, resumed across ticks
+        public final BlockStateMemo blockMemo = new BlockStateMemo(); // Block reads of the current turn
+        public final AgentTrace trace = new AgentTrace(); // Recent events, for /chipper trace
+        public final PerfStats perf = new PerfStats(); // Phase latencies of this agent, for /chipper perf
+        public final Queue<ClientReport> reports = new ConcurrentLinkedQueue<>(); // Queued by the client thread
+        public SessionRecorder recorder = null; // Set while /chipper record is running for this agent
+        public BlockPos parkedAt = null; // Where the player stood when the idle agent went to sleep, null while awake
+        public int parkedSinceTick = -1; // Tick the agent went to sleep at
+        public int parkedUntilTick = 0; // Tick its sleep runs out at, unless something wakes it sooner
+        public int idleBackoffTicks = 0; // Length of the last sleep; doubles while nothing turns up
     }
     
     /**
@@ -1781,10 +2249,11 @@ public class TreeChopperAI {
         AIState state = playerStates.get(player.getUuid());
         OptimizedIntelligence intelligence = playerIntelligence.get(player.getUuid());
         if (state != null && intelligence != null) {
-            return String.format("Failures: %d | Blacklisted: %d | Successes: %d", 
+            return String.format("Failures: %d | Blacklisted: %d | Successes: %d | Memory: %.1f KiB", 
                 intelligence.failureCount,
                 intelligence.blacklistedTargets.size(),
-                intelligence.successCount);
+                intelligence.successCount,
+                intelligence.memoryFootprintBytes() / 1024.0);
         } else if (state != null && state.decisionTracker != null) {
             long timeSinceProgress = System.currentTimeMillis() - state.decisionTracker.lastProgressTime;
             return String.format("Failures: %d | Progress: %.1fs ago", 
@@ -1804,6 +2273,9 @@ public class TreeChopperAI {
         state.targetItem = null;
         state.repositionTarget = null;
         state.currentLeafTarget = null;
+        state.treeModel = null;
+        state.treeSearch = null;
+        cancelPendingSearch(state);
         state.ticksSinceLastAction = 0;
         state.consecutiveLineOfSightFailures = 0;
         state.thinkingState = AIThinkingState.IDLE;
@@ -1811,10 +2283,8 @@ public class TreeChopperAI {
         // Clear intelligence data including new pattern detection
         intelligence.clearBlacklist();
         intelligence.positionHistory.clear();
-        intelligence.leafClearingAttempts.clear();
-        intelligence.intelligentUpgradeHistory.clear();
+        intelligence.clearTimedEntries();
         intelligence.leafClearingFailures.clear();
-        intelligence.loopingTargets.clear();
         intelligence.forcedExplorationMode = true; // Force exploration after reset
         intelligence.failureCount = 0;
         intelligence.successCount = 0;
@@ -1822,132 +2292,226 @@ public class TreeChopperAI {
         ChipperChopperMod.LOGGER.info("Agent.Lumber: Emergency reset complete, forcing exploration mode");
     }
     
-    private static boolean findNearestTreeOptimized(ServerPlayerEntity player, AIState state, OptimizedIntelligence intelligence) {
-        World world = player.getWorld();
-        BlockPos playerPos = player.getBlockPos();
-        
-        ChipperChopperMod.LOGGER.info("Searching for trees around player at: " + playerPos);
+    private static boolean findNearestTreeOptimized(AgentHost host, AIState state, OptimizedIntelligence intelligence) {
+        BlockPos playerPos = host.blockPos();
         
         // NEW: If in forced exploration mode, expand search radius significantly
         int searchRadius = intelligence.forcedExplorationMode ? FORCED_EXPLORATION_RADIUS : SEARCH_RADIUS;
-        if (intelligence.forcedExplorationMode) {
-            ChipperChopperMod.LOGGER.info("Agent.Lumber: Forced exploration mode - expanded search radius to " + searchRadius);
+        trace(state, AgentEvent.TREE_SEARCH, playerPos, searchRadius);
+        
+        // PERFORMANCE OPTIMIZATION: k-nearest query on the per-world tree index instead of a volume scan.
+        // Forced exploration prefers distant trees, so it takes every indexed tree in range.
+        int maxCandidates = intelligence.forcedExplorationMode ? MAX_EXPLORATION_CANDIDATES : MAX_TREE_CANDIDATES;
+        long searchStart = System.nanoTime();
+        long[] nearest = host.findTrees(playerPos, searchRadius, -3, 6, // Expanded vertical search
+            maxCandidates, packed -> !intelligence.isBlacklisted(packed));
+        recordPhase(host.perf(), PerfPhase.TREE_SEARCH, searchStart);
+        
+        // PERFORMANCE OPTIMIZATION: One summed-volume table answers every candidate's log count in O(1)
+        long scoringStart = System.nanoTime();
+        LogDensityGrid logDensity = LogDensityGrid.of(host.blocks(), nearest, LogDensityGrid.TREE_RADIUS);
+        
+        // PERFORMANCE OPTIMIZATION: Rank by cheap upper bounds and raycast only the trees that can still win
+        TreeRanker.Ranking ranking = TreeRanker.best(nearest, host.blocks(), logDensity, playerPos,
+            intelligence.liveScorer(host, intelligence.forcedExplorationMode, searchRadius), -1);
+        recordPhase(host.perf(), PerfPhase.CANDIDATE_SCORING, scoringStart);
+        BlockPos bestTree = ranking.bestTree();
+        
+        if (bestTree != null) {
+            acquireTree(host, state, intelligence, bestTree);
+            return true;
         }
         
-        BlockPos bestTree = null;
-        double bestScore = -1;
-        List<BlockPos> candidateTrees = new ArrayList<>();
+        // No trees found - if not in forced exploration, try it
+        if (!intelligence.forcedExplorationMode && intelligence.getFailureCount() > 3) {
+            intelligence.forcedExplorationMode = true;
+            ChipperChopperMod.LOGGER.info("Agent.Lumber: No nearby trees found, enabling forced exploration mode");
+            return findNearestTreeOptimized(host, state, intelligence); // Recursive call with forced exploration
+        }
         
-        // Collect all potential trees first
-        for (int x = -searchRadius; x <= searchRadius; x++) {
-            for (int z = -searchRadius; z <= searchRadius; z++) {
-                for (int y = -3; y <= 6; y++) { // Expanded vertical search
-                    BlockPos logPos = playerPos.add(x, y, z);
-                    
-                    if (isLogBlock(world.getBlockState(logPos)) && 
-                        isTreeBase(world, logPos) && 
-                        !intelligence.isBlacklisted(logPos)) {
-                        candidateTrees.add(logPos);
-                    }
-                }
-            }
+        return false;
+    }
+    
+    private static void acquireTree(AgentHost host, AIState state, OptimizedIntelligence intelligence, BlockPos bestTree) {
+        state.currentTask = AIState.Task.MOVING_TO_TREE;
+        state.targetTree = bestTree;
+        state.treeModel = null;
+        state.treeSearch = null;
+        state.ticksSinceLastAction = 0;
+        state.idleBackoffTicks = 0;
+        double distance = host.pos().distanceTo(Vec3d.ofCenter(bestTree));
+        
+        // Reset forced exploration after finding a target
+        if (intelligence.forcedExplorationMode) {
+            intelligence.forcedExplorationMode = false;
+            ChipperChopperMod.LOGGER.info("Agent.Lumber: Forced exploration successful, found distant tree");
         }
         
-        // If forced exploration mode and we have candidates, prefer distant ones
-        if (intelligence.forcedExplorationMode && !candidateTrees.isEmpty()) {
-            // Sort by distance (furthest first in forced exploration)
-            candidateTrees.sort((a, b) -> {
-                double distA = playerPos.getSquaredDistance(a);
-                double distB = playerPos.getSquaredDistance(b);
-                return Double.compare(distB, distA); // Reverse order for furthest first
-            });
-            
-            // Take the furthest trees that are still reasonable
-            for (BlockPos candidate : candidateTrees) {
-                double distance = playerPos.getSquaredDistance(candidate);
-                if (distance <= searchRadius * searchRadius) { // Within expanded radius
-                    double score = intelligence.calculateTreeScore(world, playerPos, candidate);
-                    // In forced exploration, give bonus to distant trees
-                    score += Math.sqrt(distance) * 5; // Distance bonus
-                    if (score > bestScore) {
-                        bestScore = score;
-                        bestTree = candidate;
-                    }
-                }
-            }
-        } else {
-            // Normal mode - find best tree by score
-            for (BlockPos candidate : candidateTrees) {
-                double score = intelligence.calculateTreeScore(world, playerPos, candidate);
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestTree = candidate;
-                }
-            }
+        ChipperChopperMod.LOGGER.info("Found tree at: " + bestTree + " (distance: " + String.format("%.2f", distance) + ")");
+        intelligence.recordAttempt(bestTree, "New tree target");
+    }
+    
+    /**
+     * Asynchronous counterpart of {@link #findNearestTreeOptimized(AgentHost, AIState, OptimizedIntelligence)}.
+     * Submits a search if none is in flight and applies a finished one.
+     *
+     * @return {@code null} while a search is in flight, otherwise whether a tree was acquired
+     */
+    private static Boolean pollAsyncTreeSearch(AgentHost host, AIState state, OptimizedIntelligence intelligence) {
+        if (state.pendingSearch == null) {
+            submitAsyncTreeSearch(host.serverWorld(), host.blockPos(), state, intelligence);
+            return null;
+        }
+        if (!state.pendingSearch.isDone()) {
+            return null; // Still scanning on the worker pool
         }
         
-        if (bestTree != null) {
-            state.currentTask = AIState.Task.MOVING_TO_TREE;
-            state.targetTree = bestTree;
-            state.ticksSinceLastAction = 0;
-            double distance = player.getPos().distanceTo(Vec3d.ofCenter(bestTree));
-            
-            // Reset forced exploration after finding a target
-            if (intelligence.forcedExplorationMode) {
-                intelligence.forcedExplorationMode = false;
-                ChipperChopperMod.LOGGER.info("Agent.Lumber: Forced exploration successful, found distant tree");
-            }
-            
-            ChipperChopperMod.LOGGER.info("Found tree at: " + bestTree + " (distance: " + String.format("%.2f", distance) + ")");
-            intelligence.recordAttempt(bestTree, "New tree target");
+        AsyncTreeSearch.Result result;
+        try {
+            result = state.pendingSearch.join();
+        } catch (RuntimeException e) {
+            ChipperChopperMod.LOGGER.error("Agent.Lumber: Async tree search failed", e);
+            result = AsyncTreeSearch.Result.NONE;
+        }
+        state.pendingSearch = null;
+        
+        // The world moved on while the worker was scoring - re-check the winner before committing to it
+        BlockPos bestTree = result.bestTree();
+        if (bestTree != null && isLogBlock(ChunkSectionScanner.getLoadedBlockState(host.serverWorld(), bestTree))
+                && !intelligence.isBlacklisted(bestTree)) {
+            acquireTree(host, state, intelligence, bestTree);
             return true;
         }
         
         // No trees found - if not in forced exploration, try it
-        if (!intelligence.forcedExplorationMode && intelligence.getFailureCount() > 3) {
+        if (bestTree == null && !intelligence.forcedExplorationMode && intelligence.getFailureCount() > 3) {
             intelligence.forcedExplorationMode = true;
             ChipperChopperMod.LOGGER.info("Agent.Lumber: No nearby trees found, enabling forced exploration mode");
-            return findNearestTreeOptimized(player, state, intelligence); // Recursive call with forced exploration
+            submitAsyncTreeSearch(host.serverWorld(), host.blockPos(), state, intelligence);
+            return null;
         }
-        
         return false;
     }
     
-    private static boolean findNearestTreeOptimized(ServerPlayerEntity player, AIState state, OptimizedIntelligence intelligence, int radius) {
-        World world = player.getWorld();
-        BlockPos playerPos = player.getBlockPos();
-        
-        for (int x = -radius; x <= radius; x++) {
-            for (int z = -radius; z <= radius; z++) {
-                for (int y = -3; y <= 6; y++) {
-                    BlockPos logPos = playerPos.add(x, y, z);
-                    
-                    if (isLogBlock(world.getBlockState(logPos)) && isTreeBase(world, logPos)) {
-                        state.currentTask = AIState.Task.MOVING_TO_TREE;
-                        state.targetTree = logPos;
-                        state.ticksSinceLastAction = 0;
-                        double distance = player.getPos().distanceTo(Vec3d.ofCenter(logPos));
-                        ChipperChopperMod.LOGGER.info("Found tree at: " + logPos + " (distance: " + String.format("%.2f", distance) + ")");
-                        return true;
-                    }
-                }
+    private static void submitAsyncTreeSearch(ServerWorld world, BlockPos playerPos, AIState state, OptimizedIntelligence intelligence) {
+        boolean forcedExploration = intelligence.forcedExplorationMode;
+        int searchRadius = forcedExploration ? FORCED_EXPLORATION_RADIUS : SEARCH_RADIUS;
+        int maxCandidates = forcedExploration ? MAX_EXPLORATION_CANDIDATES : MAX_TREE_CANDIDATES;
+        
+        LongOpenHashSet blacklist = new LongOpenHashSet(intelligence.blacklistedTargets.size());
+        intelligence.blacklistedTargets.forEachKey(blacklist::add);
+        
+        // Indexed candidates are cheap to copy; chunks the index has not reached are scanned on the workers
+        long searchStart = System.nanoTime();
+        TreeIndex index = TreeIndex.get(world);
+        LongArrayList unindexedChunks = new LongArrayList();
+        long[] indexed = index.findNearest(playerPos, searchRadius, -3, 6, maxCandidates,
+            packed -> !blacklist.contains(packed), unindexedChunks);
+        
+        // Cover the candidates' tree models and the line of sight to them
+        int margin = searchRadius + ASYNC_SNAPSHOT_MARGIN;
+        ChunkSnapshot snapshot = ChunkSnapshot.capture(world,
+            playerPos.getX() - margin, playerPos.getY() - 10, playerPos.getZ() - margin,
+            playerPos.getX() + margin, playerPos.getY() + 46, playerPos.getZ() + margin);
+        
+        // PERFORMANCE OPTIMIZATION: Chunk scans are shared with every other agent searching the same area
+        List<CompletableFuture<LongOpenHashSet>> chunkScans = new ArrayList<>(unindexedChunks.size());
+        for (int i = 0; i < unindexedChunks.size(); i++) {
+            chunkScans.add(index.scanAsync(unindexedChunks.getLong(i)));
+        }
+        recordPhase(PerfStats.of(world), PerfPhase.TREE_SEARCH, searchStart);
+        
+        // Candidates are scored on a worker, which reports into the world's histograms only
+        state.pendingSearch = AsyncTreeSearch.submit(new AsyncTreeSearch.Request(playerPos, searchRadius, -3, 6,
+            maxCandidates, indexed, chunkScans, blacklist, snapshot,
+            intelligence.snapshotScorer(forcedExploration, searchRadius), PerfStats.of(world)));
+    }
+    
+    public static boolean isAsyncSearchEnabled() {
+        return asyncSearchEnabled;
+    }
+    
+    public static void setAsyncSearchEnabled(boolean enabled) {
+        asyncSearchEnabled = enabled;
+        if (!enabled) {
+            for (AIState state : playerStates.values()) {
+                cancelPendingSearch(state);
             }
         }
+        ChipperChopperMod.LOGGER.info("Asynchronous tree search " + (enabled ? "enabled" : "disabled"));
+    }
+    
+    public static boolean isParallelPlanningEnabled() {
+        return parallelPlanningEnabled;
+    }
+    
+    public static void setParallelPlanningEnabled(boolean enabled) {
+        parallelPlanningEnabled = enabled;
+        ChipperChopperMod.LOGGER.info("Parallel planning " + (enabled ? "enabled on " + AgentPlanner.threads() + " threads" : "disabled"));
+    }
+    
+    public static int getIdleWakeDistance() {
+        return idleWakeDistance;
+    }
+    
+    public static void setIdleWakeDistance(int blocks) {
+        idleWakeDistance = blocks;
+        ChipperChopperMod.LOGGER.info("Sleeping idle agents wake after their player moves " + blocks + " blocks");
+    }
+    
+    private static void cancelPendingSearch(AIState state) {
+        if (state.pendingSearch != null) {
+            state.pendingSearch.cancel(false);
+            state.pendingSearch = null;
+        }
+    }
+    
+    /**
+     * Advance the agent's expanded-radius search by one budgeted slice.
+     *
+     * @return {@code null} while the search is still running, otherwise whether a tree was found
+     */
+    private static Boolean continueExpandedTreeSearch(AgentHost host, AIState state, int radius) {
+        if (state.treeSearch == null || !host.isCurrent(state.treeSearch)) {
+            ChipperChopperMod.LOGGER.info("Agent.Lumber: Expanding search radius due to long idle time");
+            state.treeSearch = host.searchTrees(host.blockPos(), radius, -3, 6, 1, packed -> true);
+        }
+        
+        // PERFORMANCE OPTIMIZATION: Bounded slice per tick, so no radius can cause a lag spike
+        long searchStart = System.nanoTime();
+        boolean finished = state.treeSearch.advance(TREE_SEARCH_BUDGET_NANOS, TREE_SEARCH_COLUMNS_PER_TICK);
+        recordPhase(host.perf(), PerfPhase.TREE_SEARCH, searchStart);
+        if (!finished) {
+            return null;
+        }
+        long[] nearest = state.treeSearch.result();
+        state.treeSearch = null;
+        
+        // The search may have spanned several ticks, so make sure the tree is still there
+        if (nearest.length > 0 && isLogBlock(host.blocks().getBlockState(BlockPos.fromLong(nearest[0])))) {
+            BlockPos logPos = BlockPos.fromLong(nearest[0]);
+            state.currentTask = AIState.Task.MOVING_TO_TREE;
+            state.targetTree = logPos;
+            state.treeModel = null;
+            state.ticksSinceLastAction = 0;
+            double distance = host.pos().distanceTo(Vec3d.ofCenter(logPos));
+            ChipperChopperMod.LOGGER.info("Found tree at: " + logPos + " (distance: " + String.format("%.2f", distance) + ")");
+            return true;
+        }
         return false;
     }
     
-    private static boolean findAlternativeApproach(ServerPlayerEntity player, AIState state, OptimizedIntelligence intelligence) {
-        World world = player.getWorld();
-        BlockPos playerPos = player.getBlockPos();
+    private static boolean findAlternativeApproach(AgentHost host, AIState state, OptimizedIntelligence intelligence) {
+        BlockPos playerPos = host.blockPos();
         
         // Try to find a different log block in the same tree
-        BlockPos alternative = findIntelligentTarget(world, playerPos, state.targetTree, state);
+        BlockPos alternative = findIntelligentTarget(host, playerPos, state.targetTree, state);
         if (alternative != null && !alternative.equals(state.targetTree) && !intelligence.isBlacklisted(alternative)) {
             state.targetTree = alternative;
             state.ticksSinceLastAction = 0;
-            startLookingAt(player, state, alternative);
+            startLookingAt(host, state, alternative);
             intelligence.recordProgress("Alternative approach found");
-            ChipperChopperMod.LOGGER.info("Agent.Lumber: Found alternative approach: " + alternative);
+            trace(state, AgentEvent.ALTERNATIVE_APPROACH, alternative, 0);
             return true;
         }
         
@@ -1955,116 +2519,179 @@ public class TreeChopperAI {
     }
     
     // Advanced Intelligence System
-    private static class OptimizedIntelligence {
-        public Set<BlockPos> blacklistedTargets = new HashSet<>();
-        public Map<BlockPos, String> blacklistReasons = new HashMap<>();
-        public Map<BlockPos, Long> targetFirstAttempted = new HashMap<>();
-        public Map<BlockPos, Integer> targetAttemptCounts = new HashMap<>();
-        public Map<BlockPos, Long> lastRepositioned = new HashMap<>();
-        public Map<BlockPos, Long> alternativesTried = new HashMap<>();
-        public Set<BlockPos> problematicBlocks = new HashSet<>();
+    static class OptimizedIntelligence {
+        // PERFORMANCE OPTIMIZATION: Bounded primitive maps keyed by packed position - constant memory
+        // however long the agent runs; the least recently used entries are forgotten first
+        // Columns of targetAttempts
+        private static final int ATTEMPT_COUNT = 0;
+        private static final int ATTEMPT_FIRST_TICK = 1;
+        private static final int ATTEMPT_OVERDUE = 2; // 1 once the first attempt is ABANDON_AFTER_TICKS old
+        // Columns of the windowed event counters
+        private static final int EVENT_COUNT = 0;
+        private static final int EVENT_STAMP = 1; // Tick the entry was created, to ignore stale timers
+        
+        // Expiry delays in server ticks (20 per second)
+        private static final int REPOSITION_MEMORY_TICKS = 200; // 10 seconds
+        private static final int ALTERNATIVES_MEMORY_TICKS = 100; // 5 seconds
+        private static final int ABANDON_AFTER_TICKS = 600; // 30 seconds
+        private static final int PATTERN_WINDOW_TICKS = 600; // 30 seconds
+        private static final int POSITION_SAMPLE_TICKS = 20; // 1 second
+        
+        private static final int LEAF_OBSTACLE_PENALTY = 2; // Score lost per leaf on the sight line
+        
+        // Timer kinds
+        private static final int EXPIRE_REPOSITIONED = 0;
+        private static final int EXPIRE_ALTERNATIVES = 1;
+        private static final int EXPIRE_ATTEMPT = 2;
+        private static final int EXPIRE_LEAF_CLEARING = 3;
+        private static final int EXPIRE_UPGRADE = 4;
+        
+        public BoundedLongMap blacklistedTargets = new BoundedLongMap(256, 1); // Value unused
+        public BoundedLongMap targetAttempts = new BoundedLongMap(512, 3);
+        public BoundedLongMap recentlyRepositioned = new BoundedLongMap(128, 1); // Value: tick marked
+        public BoundedLongMap recentAlternatives = new BoundedLongMap(128, 1); // Value: tick marked
+        public BoundedLongMap problematicBlocks = new BoundedLongMap(256, 1); // Value unused
         public List<BlockPos> positionHistory = new ArrayList<>();
         public int failureCount = 0;
         public int successCount = 0;
-        private long lastPositionUpdate = 0;
+        private long lastPositionUpdate = Long.MIN_VALUE;
         
         // NEW: Advanced pattern detection and loop prevention
         public boolean forcedExplorationMode = false;
-        public Map<BlockPos, List<Long>> leafClearingAttempts = new HashMap<>(); // Track leaf clearing attempts per tree
-        public Map<BlockPos, List<String>> intelligentUpgradeHistory = new HashMap<>(); // Track upgrade patterns
-        public Map<BlockPos, Integer> leafClearingFailures = new HashMap<>(); // Count failures per tree
-        public Set<BlockPos> loopingTargets = new HashSet<>(); // Targets that are causing loops
+        // Events per tree inside the last PATTERN_WINDOW_TICKS, each one counted down by its own timer
+        public BoundedLongMap leafClearingAttempts = new BoundedLongMap(128, 2);
+        public BoundedLongMap intelligentUpgradeHistory = new BoundedLongMap(128, 2);
+        public BoundedLongMap leafClearingFailures = new BoundedLongMap(256, 1); // Count failures per tree
+        
+        // PERFORMANCE OPTIMIZATION: Every time-limited entry above expires through this wheel, so
+        // queries are plain lookups - no clock reads, no sweeps
+        private final TimingWheel expiry;
+        private long tick;
+        
+        OptimizedIntelligence(long startTick) {
+            this.tick = startTick;
+            this.expiry = new TimingWheel(this::onExpired, startTick);
+        }
+        
+        /**
+         * Move the agent's clock to the current server tick, expiring whatever fell due.
+         */
+        public void advanceTo(long serverTick) {
+            tick = serverTick;
+            expiry.advanceTo(serverTick);
+        }
+        
+        private void onExpired(int kind, long key, long stamp) {
+            switch (kind) {
+                case EXPIRE_REPOSITIONED -> expireMark(recentlyRepositioned, key, stamp);
+                case EXPIRE_ALTERNATIVES -> expireMark(recentAlternatives, key, stamp);
+                case EXPIRE_ATTEMPT -> {
+                    int entry = targetAttempts.peek(key);
+                    if (entry >= 0 && targetAttempts.value(entry, ATTEMPT_FIRST_TICK) == stamp) {
+                        targetAttempts.set(entry, ATTEMPT_OVERDUE, 1);
+                    }
+                }
+                case EXPIRE_LEAF_CLEARING -> expireEvent(leafClearingAttempts, key, stamp);
+                case EXPIRE_UPGRADE -> expireEvent(intelligentUpgradeHistory, key, stamp);
+                default -> { }
+            }
+        }
+        
+        // Forget a mark unless it was renewed after this timer was set
+        private static void expireMark(BoundedLongMap marks, long key, long stamp) {
+            int entry = marks.peek(key);
+            if (entry >= 0 && marks.value(entry, 0) == stamp) {
+                marks.remove(key);
+            }
+        }
+        
+        // Take one event out of the window, unless the entry was evicted and recreated since
+        private static void expireEvent(BoundedLongMap events, long key, long stamp) {
+            int entry = events.peek(key);
+            if (entry >= 0 && events.value(entry, EVENT_STAMP) == stamp) {
+                long remaining = events.value(entry, EVENT_COUNT) - 1;
+                if (remaining <= 0) {
+                    events.remove(key);
+                } else {
+                    events.set(entry, EVENT_COUNT, remaining);
+                }
+            }
+        }
+        
+        private void recordEvent(BoundedLongMap events, int kind, BlockPos treePos) {
+            long key = treePos.asLong();
+            int entry = events.insert(key);
+            if (events.value(entry, EVENT_COUNT) == 0) {
+                events.set(entry, EVENT_STAMP, tick);
+            }
+            events.set(entry, EVENT_COUNT, events.value(entry, EVENT_COUNT) + 1);
+            expiry.schedule(PATTERN_WINDOW_TICKS, kind, key, events.value(entry, EVENT_STAMP));
+        }
+        
+        private static boolean hasRepeatedEvents(BoundedLongMap events, BlockPos treePos) {
+            return events.get(treePos.asLong(), EVENT_COUNT, 0) >= PATTERN_DETECTION_THRESHOLD;
+        }
+        
+        private void mark(BoundedLongMap marks, int kind, BlockPos target, int ticks) {
+            long key = target.asLong();
+            marks.put(key, tick);
+            expiry.schedule(ticks, kind, key, tick);
+        }
+        
+        /**
+         * Drop every time-limited entry along with its pending timers
+         */
+        public void clearTimedEntries() {
+            expiry.clear();
+            recentlyRepositioned.clear();
+            recentAlternatives.clear();
+            leafClearingAttempts.clear();
+            intelligentUpgradeHistory.clear();
+            for (int entry = 0; entry < targetAttempts.size(); entry++) {
+                targetAttempts.set(entry, ATTEMPT_OVERDUE, 1); // Their abandon timers are gone - treat them as old
+            }
+        }
         
         public void updatePositionHistory(BlockPos pos) {
-            long now = System.currentTimeMillis();
-            if (now - lastPositionUpdate > 1000) { // Update every second
+            if (tick - lastPositionUpdate >= POSITION_SAMPLE_TICKS) { // Update every second
                 positionHistory.add(pos);
                 if (positionHistory.size() > 10) {
                     positionHistory.remove(0); // Keep last 10 positions
                 }
-                lastPositionUpdate = now;
+                lastPositionUpdate = tick;
             }
         }
         
         // NEW: Detect if we're in a leaf clearing loop
         public boolean isInLeafClearingLoop(BlockPos treePos) {
-            List<Long> attempts = leafClearingAttempts.get(treePos);
-            if (attempts == null || attempts.size() < PATTERN_DETECTION_THRESHOLD) {
-                return false;
-            }
-            
-            long now = System.currentTimeMillis();
             // If we've attempted leaf clearing multiple times in the last 30 seconds, it's a loop
-            long recentAttempts = attempts.stream()
-                .mapToLong(time -> now - time < 30000 ? 1 : 0)
-                .sum();
-            
-            return recentAttempts >= PATTERN_DETECTION_THRESHOLD;
+            return hasRepeatedEvents(leafClearingAttempts, treePos);
         }
         
         // NEW: Detect if we're in an intelligent upgrade loop
         public boolean isInIntelligentUpgradeLoop(BlockPos treePos) {
-            List<String> history = intelligentUpgradeHistory.get(treePos);
-            if (history == null || history.size() < PATTERN_DETECTION_THRESHOLD) {
-                return false;
-            }
-            
             // Check for recent repeated upgrades
-            int recentUpgrades = 0;
-            long now = System.currentTimeMillis();
-            for (int i = history.size() - 1; i >= 0 && recentUpgrades < PATTERN_DETECTION_THRESHOLD; i--) {
-                String entry = history.get(i);
-                // Entry format: "timestamp:target"
-                String[] parts = entry.split(":");
-                if (parts.length >= 1) {
-                    long timestamp = Long.parseLong(parts[0]);
-                    if (now - timestamp < 30000) { // Within last 30 seconds
-                        recentUpgrades++;
-                    } else {
-                        break; // Older entries
-                    }
-                }
-            }
-            
-            return recentUpgrades >= PATTERN_DETECTION_THRESHOLD;
+            return hasRepeatedEvents(intelligentUpgradeHistory, treePos);
         }
         
         // NEW: Record leaf clearing attempt
         public void recordLeafClearingAttempt(BlockPos treePos, BlockPos leafPos) {
-            long now = System.currentTimeMillis();
-            leafClearingAttempts.computeIfAbsent(treePos, k -> new ArrayList<>()).add(now);
-            
-            // Clean old entries (older than 60 seconds)
-            List<Long> attempts = leafClearingAttempts.get(treePos);
-            attempts.removeIf(time -> now - time > 60000);
+            recordEvent(leafClearingAttempts, EXPIRE_LEAF_CLEARING, treePos);
         }
         
         // NEW: Record intelligent upgrade for pattern detection
         public void recordIntelligentUpgrade(BlockPos fromTree, BlockPos toTree) {
-            long now = System.currentTimeMillis();
-            String entry = now + ":" + toTree.toString();
-            intelligentUpgradeHistory.computeIfAbsent(fromTree, k -> new ArrayList<>()).add(entry);
-            
-            // Clean old entries
-            List<String> history = intelligentUpgradeHistory.get(fromTree);
-            history.removeIf(e -> {
-                String[] parts = e.split(":");
-                if (parts.length >= 1) {
-                    long timestamp = Long.parseLong(parts[0]);
-                    return now - timestamp > 60000; // Remove entries older than 60 seconds
-                }
-                return true;
-            });
+            recordEvent(intelligentUpgradeHistory, EXPIRE_UPGRADE, fromTree);
         }
         
         // NEW: Record leaf clearing failure
         public void recordLeafClearingFailure(BlockPos treePos) {
-            leafClearingFailures.put(treePos, leafClearingFailures.getOrDefault(treePos, 0) + 1);
+            leafClearingFailures.increment(treePos.asLong(), 1);
         }
         
         // NEW: Check if tree has recent leaf clearing failures
         public boolean hasRecentLeafClearingFailures(BlockPos treePos) {
-            return leafClearingFailures.getOrDefault(treePos, 0) >= 2;
+            return leafClearingFailures.get(treePos.asLong(), 0) >= 2;
         }
         
         // NEW: Get failure count for forced exploration
@@ -2097,26 +2724,38 @@ public class TreeChopperAI {
         }
         
         public void blacklistTarget(BlockPos target, String reason) {
-            blacklistedTargets.add(target);
-            blacklistReasons.put(target, reason);
+            blacklistedTargets.put(target.asLong(), 1);
             ChipperChopperMod.LOGGER.info("Agent.Lumber: Blacklisted " + target + " (" + reason + ")");
         }
         
         public boolean isBlacklisted(BlockPos target) {
-            return blacklistedTargets.contains(target);
+            return isBlacklisted(target.asLong());
+        }
+        
+        public boolean isBlacklisted(long target) {
+            return blacklistedTargets.containsKey(target);
         }
         
         public void markProblematic(BlockPos target) {
-            problematicBlocks.add(target);
+            problematicBlocks.put(target.asLong(), 1);
         }
         
         public boolean isProblematic(BlockPos target) {
-            return problematicBlocks.contains(target);
+            return problematicBlocks.containsKey(target.asLong());
         }
         
         public void recordAttempt(BlockPos target, String reason) {
-            targetFirstAttempted.putIfAbsent(target, System.currentTimeMillis());
-            targetAttemptCounts.put(target, targetAttemptCounts.getOrDefault(target, 0) + 1);
+            long key = target.asLong();
+            int entry = targetAttempts.insert(key);
+            if (targetAttempts.value(entry, ATTEMPT_COUNT) == 0) {
+                targetAttempts.set(entry, ATTEMPT_FIRST_TICK, tick);
+                expiry.schedule(ABANDON_AFTER_TICKS, EXPIRE_ATTEMPT, key, tick);
+            }
+            targetAttempts.set(entry, ATTEMPT_COUNT, targetAttempts.value(entry, ATTEMPT_COUNT) + 1);
+        }
+        
+        private int attemptCount(BlockPos target) {
+            return (int) targetAttempts.get(target.asLong(), ATTEMPT_COUNT, 0);
         }
         
         public void recordSuccess(String action) {
@@ -2130,7 +2769,7 @@ public class TreeChopperAI {
         public void recordFailure(BlockPos target, String reason) {
             failureCount++;
             if (target != null) {
-                int attempts = targetAttemptCounts.getOrDefault(target, 0);
+                int attempts = attemptCount(target);
                 if (attempts > 3) { // Too many attempts
                     blacklistTarget(target, reason + " (too many attempts)");
                 }
@@ -2140,77 +2779,106 @@ public class TreeChopperAI {
         public boolean shouldAbandonTarget(BlockPos target) {
             if (isBlacklisted(target)) return true;
             
-            Long firstAttempt = targetFirstAttempted.get(target);
-            if (firstAttempt != null && System.currentTimeMillis() - firstAttempt > 30000) { // 30 seconds
+            int entry = targetAttempts.find(target.asLong());
+            if (entry >= 0 && targetAttempts.value(entry, ATTEMPT_OVERDUE) != 0) { // First tried over 30 seconds ago
                 return true;
             }
             
-            Integer attempts = targetAttemptCounts.get(target);
-            return attempts != null && attempts > 5;
+            return entry >= 0 && targetAttempts.value(entry, ATTEMPT_COUNT) > 5;
         }
         
         public void markRepositioned(BlockPos target) {
-            lastRepositioned.put(target, System.currentTimeMillis());
+            mark(recentlyRepositioned, EXPIRE_REPOSITIONED, target, REPOSITION_MEMORY_TICKS); // 10 seconds
         }
         
         public boolean hasRecentlyRepositioned(BlockPos target) {
-            Long lastTime = lastRepositioned.get(target);
-            return lastTime != null && System.currentTimeMillis() - lastTime < 10000; // 10 seconds
+            return recentlyRepositioned.containsKey(target.asLong());
         }
         
         public void markAlternativesTried(BlockPos target) {
-            alternativesTried.put(target, System.currentTimeMillis());
+            mark(recentAlternatives, EXPIRE_ALTERNATIVES, target, ALTERNATIVES_MEMORY_TICKS); // 5 seconds
         }
         
         public boolean hasRecentlyTriedAlternatives(BlockPos target) {
-            Long lastTime = alternativesTried.get(target);
-            return lastTime != null && System.currentTimeMillis() - lastTime < 5000; // 5 seconds
+            return recentAlternatives.containsKey(target.asLong());
+        }
+        
+        /**
+         * Bytes held by the bounded maps - constant for the lifetime of the agent
+         */
+        public long memoryFootprintBytes() {
+            return blacklistedTargets.footprintBytes() + targetAttempts.footprintBytes()
+                + recentlyRepositioned.footprintBytes() + recentAlternatives.footprintBytes()
+                + problematicBlocks.footprintBytes() + leafClearingAttempts.footprintBytes()
+                + intelligentUpgradeHistory.footprintBytes() + leafClearingFailures.footprintBytes()
+                + expiry.footprintBytes();
+        }
+        
+        /**
+         * Tree scorer over the agent's blocks and attempt history. Server thread only.
+         */
+        public TreeRanker.Scorer liveScorer(AgentHost host, boolean forcedExploration, int searchRadius) {
+            return treeScorer(targetAttempts, host, forcedExploration, searchRadius);
+        }
+        
+        /**
+         * Scorer for {@link AsyncTreeSearch}: works on copies of the attempt history and reads blocks
+         * from the snapshot only, so it is safe to run on a worker thread.
+         */
+        public TreeRanker.Scorer snapshotScorer(boolean forcedExploration, int searchRadius) {
+            return treeScorer(targetAttempts.copy(), null, forcedExploration, searchRadius);
+        }
+        
+        // host == null reads sight lines from the blocks the ranker passes in
+        private static TreeRanker.Scorer treeScorer(BoundedLongMap attempts, AgentHost host, boolean forcedExploration, int searchRadius) {
+            return new TreeRanker.Scorer() {
+                @Override
+                public double bound(LogDensityGrid logDensity, BlockPos playerPos, BlockPos treePos) {
+                    double distance = playerPos.getSquaredDistance(treePos);
+                    if (forcedExploration && distance > searchRadius * searchRadius) {
+                        return Double.NEGATIVE_INFINITY;
+                    }
+                    // Obstructing leaves only ever lower the score, so leaving them out gives an upper bound
+                    long packed = treePos.asLong();
+                    double score = scoreTree(playerPos, treePos, attempts.containsKey(packed), (int) attempts.get(packed, ATTEMPT_COUNT, 0),
+                        logDensity.countLogs(treePos, LogDensityGrid.TREE_RADIUS), 0);
+                    // In forced exploration, give bonus to distant trees
+                    return forcedExploration ? score + Math.sqrt(distance) * 5 : score;
+                }
+                
+                @Override
+                public double score(BlockAccess blocks, BlockPos playerPos, BlockPos treePos, double bound) {
+                    int leafObstacles = host != null ? countObstructingLeaves(host, playerPos, treePos)
+                        : countObstructingLeaves(blocks, playerPos, treePos);
+                    return bound - leafObstacles * LEAF_OBSTACLE_PENALTY;
+                }
+            };
         }
         
-        public double calculateTreeScore(World world, BlockPos playerPos, BlockPos treePos) {
+        private static double scoreTree(BlockPos playerPos, BlockPos treePos, boolean attemptedBefore, int attempts,
+                                        int logCount, int leafObstacles) {
             double distance = playerPos.getSquaredDistance(treePos);
             double score = 100.0 - distance; // Closer is better
             
             // Bonus for trees we haven't tried recently
-            if (!targetFirstAttempted.containsKey(treePos)) {
+            if (!attemptedBefore) {
                 score += 50;
             }
             
             // Penalty for previously problematic trees
-            Integer attempts = targetAttemptCounts.get(treePos);
-            if (attempts != null) {
-                score -= attempts * 10;
-            }
+            score -= attempts * 10;
             
             // Bonus for trees with more logs
-            int logCount = countNearbyLogs(world, treePos, 3);
             score += logCount * 5;
             
             // Penalty for trees with many obstructing leaves
-            int leafObstacles = countObstructingLeaves(world, playerPos, treePos);
-            score -= leafObstacles * 2;
+            score -= leafObstacles * LEAF_OBSTACLE_PENALTY;
             
             return score;
         }
         
-        private int countNearbyLogs(World world, BlockPos center, int radius) {
-            int count = 0;
-            for (int x = -radius; x <= radius; x++) {
-                for (int y = -radius; y <= radius; y++) {
-                    for (int z = -radius; z <= radius; z++) {
-                        BlockPos pos = center.add(x, y, z);
-                        if (isLogBlock(world.getBlockState(pos))) {
-                            count++;
-                        }
-                    }
-                }
-            }
-            return count;
-        }
-        
         public void clearBlacklist() {
             blacklistedTargets.clear();
-            blacklistReasons.clear();
             problematicBlocks.clear();
             ChipperChopperMod.LOGGER.info("Agent.Lumber: Intelligence blacklist cleared");
         }
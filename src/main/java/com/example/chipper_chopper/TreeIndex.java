@@ -0,0 +1,334 @@
+package com.example.chipper_chopper;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongPredicate;
+
+/**
+ * Per-world spatial index of tree bases.
+ *
+ * Chunks are queued for indexing as they load and indexed a few at a time from the AI tick.
+ * Once a chunk is indexed, its entry is kept current by {@link #onBlockChanged}, which the
+ * {@code WorldChunkMixin} calls whenever a log or tree soil block is placed or broken. Tree
+ * acquisition then becomes a nearest-neighbour query over the indexed bases instead of a
+ * volumetric world scan, so its cost no longer grows with the search radius.
+ *
+ * Agents that search asynchronously share chunk scans through {@link #scanAsync}: a queued chunk
+ * is scanned at most once on the worker pool no matter how many agents need it, and the result
+ * is published into the index for everyone.
+ *
+ * All methods must be called on the server thread, except that planner threads may query the
+ * index with {@code unindexedOut} set (which never writes to it) while the server thread waits
+ * for them.
+ */
+final class TreeIndex {
+    private static final Map<ServerWorld, TreeIndex> INDEXES = new HashMap<>();
+
+    // PERFORMANCE OPTIMIZATION: Bounded background indexing so chunk loads never spike a tick
+    private static final int CHUNKS_INDEXED_PER_TICK = 2;
+
+    private final ServerWorld world;
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> basesByChunk = new Long2ObjectOpenHashMap<>();
+    // Queued chunks in load order; unloading drops a chunk, so this never holds more than the loaded chunks
+    private final LongLinkedOpenHashSet pendingChunks = new LongLinkedOpenHashSet();
+    private final Long2ObjectOpenHashMap<PendingScan> scansInFlight = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * A chunk scan on the worker pool. The logs on the chunk's outer ring were judged without the
+     * neighbouring chunks, so they are judged again against the live world when the scan is published.
+     */
+    private record PendingScan(CompletableFuture<LongOpenHashSet> bases, LongArrayList borderLogs) {
+    }
+
+    private TreeIndex(ServerWorld world) {
+        this.world = world;
+    }
+
+    static TreeIndex get(ServerWorld world) {
+        return INDEXES.computeIfAbsent(world, TreeIndex::new);
+    }
+
+    // === Lifecycle hooks (registered in ChipperChopperMod) ===
+
+    static void onChunkLoad(ServerWorld world, WorldChunk chunk) {
+        get(world).markPending(chunk.getPos().toLong());
+    }
+
+    static void onChunkUnload(ServerWorld world, WorldChunk chunk) {
+        TreeIndex index = INDEXES.get(world);
+        if (index != null) {
+            long chunkKey = chunk.getPos().toLong();
+            index.basesByChunk.remove(chunkKey);
+            index.pendingChunks.remove(chunkKey);
+            index.scansInFlight.remove(chunkKey);
+        }
+    }
+
+    static void onWorldUnload(MinecraftServer server, ServerWorld world) {
+        INDEXES.remove(world);
+    }
+
+    static void onServerStopping(MinecraftServer server) {
+        INDEXES.clear();
+    }
+
+    /**
+     * Called from {@code WorldChunkMixin} after a block in a loaded chunk changed.
+     */
+    static void onBlockChanged(ServerWorld world, BlockPos pos, BlockState oldState, BlockState newState) {
+        int mask = BlockClassifier.LOG | BlockClassifier.TREE_SOIL;
+        if (!BlockClassifier.is(oldState, mask) && !BlockClassifier.is(newState, mask)) {
+            return;
+        }
+        TreeIndex index = INDEXES.get(world);
+        if (index != null) {
+            index.refreshAround(pos);
+        }
+    }
+
+    /**
+     * Index a few queued chunks. Called once per AI tick for every world with active agents.
+     */
+    static void tickAll(MinecraftServer server) {
+        for (TreeIndex index : INDEXES.values()) {
+            long start = System.nanoTime();
+            index.publishFinishedScans();
+            index.drainPending(CHUNKS_INDEXED_PER_TICK);
+            PerfStats.of(index.world).recordSince(PerfPhase.INDEX_SCAN, start);
+        }
+    }
+
+    // === Queries ===
+
+    /**
+     * Find up to {@code k} indexed tree bases nearest to {@code origin}, nearest first.
+     *
+     * Candidates must lie inside the horizontal square of half-size {@code radius} and between
+     * {@code minDy} and {@code maxDy} blocks above the origin, and must pass {@code accept}.
+     * Chunks in range that are still queued are indexed on demand.
+     */
+    long[] findNearest(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept) {
+        return findNearest(origin, radius, minDy, maxDy, k, accept, null);
+    }
+
+    /**
+     * Same as {@link #findNearest(BlockPos, int, int, int, int, LongPredicate)}, but if
+     * {@code unindexedOut} is given, queued chunks in range are not indexed here: their keys are
+     * added to it instead, so the caller can scan them elsewhere (see {@link AsyncTreeSearch}).
+     */
+    long[] findNearest(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept,
+                       LongArrayList unindexedOut) {
+        TreeSearchCursor cursor = new TreeSearchCursor(this, origin, radius, minDy, maxDy, k, accept, unindexedOut);
+        cursor.advance(Long.MAX_VALUE, Integer.MAX_VALUE);
+        return cursor.result();
+    }
+
+    /**
+     * Resumable version of {@link #findNearest}, for searches too large to finish in one tick.
+     */
+    TreeSearchCursor search(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept) {
+        return search(origin, radius, minDy, maxDy, k, accept, null);
+    }
+
+    /**
+     * Same as {@link #search(BlockPos, int, int, int, int, LongPredicate)}, skipping queued chunks
+     * as {@link #findNearest(BlockPos, int, int, int, int, LongPredicate, LongArrayList)} does.
+     */
+    TreeSearchCursor search(BlockPos origin, int radius, int minDy, int maxDy, int k, LongPredicate accept,
+                            LongArrayList unindexedOut) {
+        return new TreeSearchCursor(this, origin, radius, minDy, maxDy, k, accept, unindexedOut);
+    }
+
+    /**
+     * Scan a queued chunk on the worker pool. Every caller asking for the same chunk while the
+     * scan is in flight shares it; once it finishes the bases are published into the index
+     * (unless a relevant block changed in the meantime).
+     *
+     * The returned set is owned by the scan and must not be modified. Its bases on the chunk's
+     * outer ring may be off until the scan is published, since the snapshot cannot see across
+     * the chunk's edges.
+     */
+    CompletableFuture<LongOpenHashSet> scanAsync(long chunkKey) {
+        PendingScan pending = scansInFlight.get(chunkKey);
+        if (pending != null) {
+            return pending.bases();
+        }
+
+        int chunkX = ChunkPos.getPackedX(chunkKey);
+        int chunkZ = ChunkPos.getPackedZ(chunkKey);
+        int bottomY = world.getBottomY();
+        int topY = bottomY + world.getHeight() - 1;
+        ChunkSnapshot snapshot = ChunkSnapshot.capture(world,
+            chunkX << 4, bottomY, chunkZ << 4, (chunkX << 4) + 15, topY, (chunkZ << 4) + 15);
+
+        // Tree base checks on the chunk's outer ring cannot see the neighbouring chunks here -
+        // the ring's logs are kept aside and judged again on the server thread when publishing
+        LongArrayList borderLogs = new LongArrayList();
+        CompletableFuture<LongOpenHashSet> scan = CompletableFuture.supplyAsync(() -> {
+            LongOpenHashSet bases = new LongOpenHashSet();
+            snapshot.scan(chunkX << 4, bottomY, chunkZ << 4, (chunkX << 4) + 15, topY, (chunkZ << 4) + 15,
+                TreeChopperAI::isLogBlock,
+                (x, y, z, state) -> {
+                    if (isOuterRing(x, z)) {
+                        borderLogs.add(BlockPos.asLong(x, y, z));
+                    }
+                    if (TreeChopperAI.isTreeBase(snapshot, x, y, z)) {
+                        bases.add(BlockPos.asLong(x, y, z));
+                    }
+                    return true;
+                });
+            return bases;
+        }, AsyncTreeSearch.executor());
+        scansInFlight.put(chunkKey, new PendingScan(scan, borderLogs));
+        return scan;
+    }
+
+    private static boolean isOuterRing(int x, int z) {
+        int localX = x & 15;
+        int localZ = z & 15;
+        return localX == 0 || localX == 15 || localZ == 0 || localZ == 15;
+    }
+
+    int indexedChunkCount() {
+        return basesByChunk.size();
+    }
+
+    int pendingChunkCount() {
+        return pendingChunks.size();
+    }
+
+    int scansInFlightCount() {
+        return scansInFlight.size();
+    }
+
+    // === Maintenance ===
+
+    private void markPending(long chunkKey) {
+        basesByChunk.remove(chunkKey);
+        pendingChunks.add(chunkKey); // Keeps its place if it is still queued
+    }
+
+    private void publishFinishedScans() {
+        if (scansInFlight.isEmpty()) {
+            return;
+        }
+        LongIterator iterator = scansInFlight.keySet().iterator();
+        while (iterator.hasNext()) {
+            long chunkKey = iterator.nextLong();
+            PendingScan pending = scansInFlight.get(chunkKey);
+            CompletableFuture<LongOpenHashSet> scan = pending.bases();
+            if (!scan.isDone()) {
+                continue;
+            }
+            iterator.remove();
+            if (pendingChunks.contains(chunkKey) && !scan.isCompletedExceptionally()) {
+                // Copy, since agents' search jobs may still be reading the scan's own set
+                LongOpenHashSet bases = new LongOpenHashSet(scan.join());
+                BlockAccess blocks = BlockAccess.of(world);
+                LongArrayList borderLogs = pending.borderLogs(); // Complete, since the scan is done
+                for (int i = 0; i < borderLogs.size(); i++) {
+                    long log = borderLogs.getLong(i);
+                    if (TreeChopperAI.isTreeBase(blocks, BlockPos.unpackLongX(log), BlockPos.unpackLongY(log), BlockPos.unpackLongZ(log))) {
+                        bases.add(log);
+                    } else {
+                        bases.remove(log);
+                    }
+                }
+                basesByChunk.put(chunkKey, bases);
+                pendingChunks.remove(chunkKey);
+            }
+        }
+    }
+
+    private void drainPending(int budget) {
+        while (budget > 0 && !pendingChunks.isEmpty()) {
+            indexChunk(pendingChunks.firstLong()); // Removes it from the queue
+            budget--;
+        }
+    }
+
+    boolean isPending(long chunkKey) {
+        return pendingChunks.contains(chunkKey);
+    }
+
+    /**
+     * Bases of a chunk, indexing it first if it is still queued.
+     */
+    LongOpenHashSet basesForQuery(long chunkKey) {
+        if (pendingChunks.contains(chunkKey)) {
+            indexChunk(chunkKey);
+        }
+        return basesByChunk.get(chunkKey);
+    }
+
+    private void indexChunk(long chunkKey) {
+        pendingChunks.remove(chunkKey);
+        scansInFlight.remove(chunkKey);
+        int chunkX = ChunkPos.getPackedX(chunkKey);
+        int chunkZ = ChunkPos.getPackedZ(chunkKey);
+        if (world.getChunkManager().getWorldChunk(chunkX, chunkZ) == null) {
+            return; // Unloaded while queued
+        }
+
+        LongOpenHashSet bases = new LongOpenHashSet();
+        BlockAccess blocks = BlockAccess.of(world);
+        int bottomY = world.getBottomY();
+        ChunkSectionScanner.scan(world,
+            chunkX << 4, bottomY, chunkZ << 4,
+            (chunkX << 4) + 15, bottomY + world.getHeight() - 1, (chunkZ << 4) + 15,
+            TreeChopperAI::isLogBlock,
+            (x, y, z, state) -> {
+                if (TreeChopperAI.isTreeBase(blocks, x, y, z)) {
+                    bases.add(BlockPos.asLong(x, y, z));
+                }
+                return true;
+            });
+        basesByChunk.put(chunkKey, bases);
+    }
+
+    /**
+     * Re-evaluate every position whose tree-base status can depend on {@code pos}: the block
+     * itself, the three blocks above it (soil lookup) and its eight horizontal neighbours
+     * (2x2 trunk detection).
+     */
+    private void refreshAround(BlockPos pos) {
+        BlockAccess blocks = BlockAccess.of(world);
+        for (int dy = 0; dy <= 3; dy++) {
+            refresh(blocks, pos.getX(), pos.getY() + dy, pos.getZ());
+        }
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                if (dx != 0 || dz != 0) {
+                    refresh(blocks, pos.getX() + dx, pos.getY(), pos.getZ() + dz);
+                }
+            }
+        }
+    }
+
+    private void refresh(BlockAccess blocks, int x, int y, int z) {
+        long chunkKey = ChunkPos.toLong(x >> 4, z >> 4);
+        LongOpenHashSet bases = basesByChunk.get(chunkKey);
+        if (bases == null) {
+            scansInFlight.remove(chunkKey); // Not indexed yet - drop a scan that may have missed this change
+            return;
+        }
+        if (TreeChopperAI.isLogBlock(blocks.getBlockState(x, y, z)) && TreeChopperAI.isTreeBase(blocks, x, y, z)) {
+            bases.add(BlockPos.asLong(x, y, z));
+        } else {
+            bases.remove(BlockPos.asLong(x, y, z));
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.chipper_chopper;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Connected logs of a single tree, found once by a bounded flood fill.
+ *
+ * The model records the packed positions of the tree's logs, the leaves touching them, their
+ * bounding box and how many logs are still standing. Block changes keep it current, so next-log
+ * selection and "is the tree finished?" checks only walk the tree's own logs instead of
+ * re-reading the cube of blocks around the trunk.
+ *
+ * Models are cached per world and shared by every agent and every candidate score.
+ */
+final class TreeModel {
+    // Flood fill bounds - large enough for 2x2 jungle and dark oak trees
+    private static final int MAX_LOGS = 512;
+    private static final int MAX_LEAVES = 1024;
+    private static final int HORIZONTAL_REACH = 10;
+    private static final int DOWN_REACH = 4;
+    private static final int UP_REACH = 40;
+
+    private static final int MAX_CACHED_MODELS = 128;
+    private static final Map<ServerWorld, Cache> CACHES = new HashMap<>();
+
+    private final LongOpenHashSet logs = new LongOpenHashSet();
+    private final LongOpenHashSet leaves = new LongOpenHashSet();
+    private int minX, minY, minZ, maxX, maxY, maxZ;
+    private int remainingLogs;
+    private long[] cachedMembers; // Positions a Cache maps to this model; fixed, unlike logs and leaves
+
+    private TreeModel(long seed) {
+        int x = BlockPos.unpackLongX(seed);
+        int y = BlockPos.unpackLongY(seed);
+        int z = BlockPos.unpackLongZ(seed);
+        minX = maxX = x;
+        minY = maxY = y;
+        minZ = maxZ = z;
+    }
+
+    // === Construction and caching ===
+
+    /**
+     * Model of the tree containing (or touching) {@code pos}, reusing a cached model if possible.
+     */
+    static TreeModel of(World world, BlockPos pos) {
+        if (world instanceof ServerWorld serverWorld) {
+            return CACHES.computeIfAbsent(serverWorld, w -> new Cache()).get(world, pos.asLong());
+        }
+        return build(BlockAccess.of(world), pos.asLong());
+    }
+
+    /**
+     * Uncached model built from arbitrary block access, e.g. a {@link ChunkSnapshot} on a worker thread.
+     */
+    static TreeModel of(BlockAccess blocks, BlockPos pos) {
+        return build(blocks, pos.asLong());
+    }
+
+    static void onWorldUnload(MinecraftServer server, ServerWorld world) {
+        CACHES.remove(world);
+    }
+
+    static void onServerStopping(MinecraftServer server) {
+        CACHES.clear();
+    }
+
+    /**
+     * Called from {@link BlockChangeListener} for every block change on the server thread.
+     */
+    static void onBlockChanged(ServerWorld world, BlockPos pos, BlockState newState) {
+        Cache cache = CACHES.get(world);
+        if (cache != null) {
+            TreeModel model = cache.byMember.get(pos.asLong());
+            if (model != null) {
+                model.onBlockChanged(pos.asLong(), newState);
+            }
+        }
+    }
+
+    private static TreeModel build(BlockAccess blocks, long start) {
+        TreeModel model = new TreeModel(start);
+        int seedX = BlockPos.unpackLongX(start);
+        int seedY = BlockPos.unpackLongY(start);
+        int seedZ = BlockPos.unpackLongZ(start);
+
+        LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+        LongOpenHashSet visited = new LongOpenHashSet();
+
+        // Seed with the position itself, or with the logs touching it if it was already chopped
+        if (TreeChopperAI.isLogBlock(blocks.getBlockState(seedX, seedY, seedZ))) {
+            queue.enqueue(start);
+            visited.add(start);
+        } else {
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        long neighbour = BlockPos.asLong(seedX + dx, seedY + dy, seedZ + dz);
+                        if ((dx != 0 || dy != 0 || dz != 0) && visited.add(neighbour)
+                                && TreeChopperAI.isLogBlock(blocks.getBlockState(seedX + dx, seedY + dy, seedZ + dz))) {
+                            queue.enqueue(neighbour);
+                        }
+                    }
+                }
+            }
+        }
+
+        while (!queue.isEmpty() && model.logs.size() < MAX_LOGS) {
+            long log = queue.dequeueLong();
+            model.addLog(log);
+            int logX = BlockPos.unpackLongX(log);
+            int logY = BlockPos.unpackLongY(log);
+            int logZ = BlockPos.unpackLongZ(log);
+
+            // Trunks and branches connect diagonally (acacia, dark oak), so use the 26-neighbourhood
+            for (int x = logX - 1; x <= logX + 1; x++) {
+                for (int y = logY - 1; y <= logY + 1; y++) {
+                    for (int z = logZ - 1; z <= logZ + 1; z++) {
+                        if (Math.abs(x - seedX) > HORIZONTAL_REACH || Math.abs(z - seedZ) > HORIZONTAL_REACH
+                                || y < seedY - DOWN_REACH || y > seedY + UP_REACH) {
+                            continue;
+                        }
+                        long neighbour = BlockPos.asLong(x, y, z);
+                        if (neighbour == log || !visited.add(neighbour)) {
+                            continue;
+                        }
+
+                        BlockState state = blocks.getBlockState(x, y, z);
+                        if (TreeChopperAI.isLogBlock(state)) {
+                            queue.enqueue(neighbour);
+                        } else if (BlockClassifier.is(state, BlockClassifier.LEAF) && model.leaves.size() < MAX_LEAVES) {
+                            model.leaves.add(neighbour);
+                        }
+                    }
+                }
+            }
+        }
+
+        return model;
+    }
+
+    private void addLog(long log) {
+        if (logs.add(log)) {
+            remainingLogs++;
+            int x = BlockPos.unpackLongX(log);
+            int y = BlockPos.unpackLongY(log);
+            int z = BlockPos.unpackLongZ(log);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+    }
+
+    /**
+     * Apply a block change at a member position. Idempotent, so the same change may be reported
+     * through several paths.
+     */
+    void onBlockChanged(long pos, BlockState newState) {
+        if (TreeChopperAI.isLogBlock(newState)) {
+            return; // Log replaced by another log (e.g. stripped) - still part of the tree
+        }
+        if (logs.remove(pos)) {
+            remainingLogs--;
+        }
+        if (!BlockClassifier.is(newState, BlockClassifier.LEAF)) {
+            leaves.remove(pos);
+        }
+    }
+
+    // === Queries ===
+
+    boolean containsLog(long pos) {
+        return logs.contains(pos);
+    }
+
+    /**
+     * @return {@code true} if {@code pos} lies inside the bounding box grown by {@code margin}
+     */
+    boolean covers(BlockPos pos, int margin) {
+        return pos.getX() >= minX - margin && pos.getX() <= maxX + margin
+            && pos.getY() >= minY - margin && pos.getY() <= maxY + margin
+            && pos.getZ() >= minZ - margin && pos.getZ() <= maxZ + margin;
+    }
+
+    boolean isComplete() {
+        return remainingLogs <= 0;
+    }
+
+    int remainingLogs() {
+        return remainingLogs;
+    }
+
+    int leafCount() {
+        return leaves.size();
+    }
+
+    LongIterator logIterator() {
+        return logs.iterator();
+    }
+
+    /**
+     * Per-world cache mapping every log of every cached model back to its model.
+     */
+    private static final class Cache {
+        private final Long2ObjectOpenHashMap<TreeModel> byMember = new Long2ObjectOpenHashMap<>();
+        private final ArrayDeque<TreeModel> models = new ArrayDeque<>();
+
+        TreeModel get(World world, long pos) {
+            TreeModel model = byMember.get(pos);
+            // Reuse unless a log appeared that the cached model does not know about
+            if (model != null && (model.containsLog(pos)
+                    || !TreeChopperAI.isLogBlock(ChunkSectionScanner.getLoadedBlockState(world, BlockPos.fromLong(pos))))) {
+                return model;
+            }
+
+            model = build(BlockAccess.of(world), pos);
+            if (models.size() >= MAX_CACHED_MODELS) {
+                evict(models.pollFirst());
+            }
+            models.addLast(model);
+            long[] members = new long[1 + model.logs.size() + model.leaves.size()];
+            int count = 0;
+            byMember.put(pos, model); // Also map the seed so chopped seeds still resolve
+            members[count++] = pos;
+            LongIterator iterator = model.logs.iterator();
+            while (iterator.hasNext()) {
+                long log = iterator.nextLong();
+                byMember.put(log, model);
+                members[count++] = log;
+            }
+            iterator = model.leaves.iterator();
+            while (iterator.hasNext()) {
+                long leaf = iterator.nextLong();
+                byMember.putIfAbsent(leaf, model);
+                members[count++] = leaf;
+            }
+            // Chopped logs and cleared leaves leave logs and leaves but stay mapped - evict by the original members
+            model.cachedMembers = members;
+            return model;
+        }
+
+        private void evict(TreeModel model) {
+            for (long member : model.cachedMembers) {
+                if (byMember.get(member) == model) {
+                    byMember.remove(member);
+                }
+            }
+            model.cachedMembers = null;
+        }
+    }
+}
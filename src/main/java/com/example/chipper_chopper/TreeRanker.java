@@ -0,0 +1,80 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Picks the best of a set of candidate trees without fully scoring every one.
+ *
+ * Scoring runs in stages. Every candidate first gets an upper bound on its score from the cheap
+ * terms (distance, attempt history, log density), which may also reject it outright. Candidates
+ * are then taken in order of decreasing bound and only they pay for the expensive terms (the leaf
+ * raycast). As soon as the best remaining bound cannot beat the best exact score found so far
+ * the rest are skipped, so the cost follows the few trees that can still win rather than the
+ * size of the forest.
+ */
+final class TreeRanker {
+
+    /**
+     * Two-stage candidate score. Used on worker threads too, so it must only touch data it owns.
+     */
+    interface Scorer {
+        /**
+         * Upper bound of the candidate's score from its cheap terms, or
+         * {@link Double#NEGATIVE_INFINITY} to reject it.
+         */
+        double bound(LogDensityGrid logDensity, BlockPos playerPos, BlockPos treePos);
+
+        /**
+         * Exact score, never above {@code bound}.
+         */
+        double score(BlockAccess blocks, BlockPos playerPos, BlockPos treePos, double bound);
+    }
+
+    /**
+     * Winning tree ({@code null} if none scored above {@code floor}), its score and the number of
+     * candidates that needed an exact score.
+     */
+    record Ranking(BlockPos bestTree, double bestScore, int scored) {
+    }
+
+    private TreeRanker() {
+    }
+
+    /**
+     * Best of {@code candidates} (packed positions) whose score is above {@code floor}.
+     */
+    static Ranking best(long[] candidates, BlockAccess blocks, LogDensityGrid logDensity, BlockPos playerPos,
+                        Scorer scorer, double floor) {
+        int count = candidates.length;
+        double[] bounds = new double[count];
+        for (int i = 0; i < count; i++) {
+            bounds[i] = scorer.bound(logDensity, playerPos, BlockPos.fromLong(candidates[i]));
+        }
+
+        BlockPos bestTree = null;
+        double bestScore = floor;
+        int scored = 0;
+        while (true) {
+            // Next candidate by bound - a selection step is enough since few are ever taken
+            int next = -1;
+            for (int i = 0; i < count; i++) {
+                if (bounds[i] > bestScore && (next < 0 || bounds[i] > bounds[next])) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                break; // Nothing left can beat the best score
+            }
+
+            BlockPos candidate = BlockPos.fromLong(candidates[next]);
+            double score = scorer.score(blocks, playerPos, candidate, bounds[next]);
+            bounds[next] = Double.NEGATIVE_INFINITY;
+            scored++;
+            if (score > bestScore) {
+                bestScore = score;
+                bestTree = candidate;
+            }
+        }
+        return new Ranking(bestTree, bestScore, scored);
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.chipper_chopper;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Resumable k-nearest search over a {@link TreeIndex}.
+ *
+ * The cursor visits chunk columns in square (Chebyshev) rings around the origin, and within each
+ * ring nearest column first. It stops as soon as the next ring lies entirely farther away than
+ * the k-th best base found, and skips (without indexing) any column that does, so in a forest
+ * the nearest trees come out of the first few rings. It can also stop after a column or time
+ * budget and pick up where it left off on a later tick. The expensive part is indexing chunks
+ * that are still queued, so a large-radius search that reaches many fresh chunks is spread over
+ * several ticks instead of landing in one.
+ *
+ * Must be used on the server thread, unless it skips queued chunks ({@code unindexedOut} set):
+ * such a cursor only reads the index, so a planner thread may advance it during the plan phase.
+ */
+final class TreeSearchCursor implements AgentHost.TreeSearch {
+    private final TreeIndex index;
+    private final int originX, originY, originZ;
+    private final int originChunkX, originChunkZ;
+    private final int minChunkX, maxChunkX, minChunkZ, maxChunkZ;
+    private final int maxRing;
+    private final int radius, minDy, maxDy, k;
+    private final LongPredicate accept;
+    private final LongArrayList unindexedOut;
+
+    private final long[] best;
+    private final long[] bestDistance;
+    private int found;
+
+    // Columns of the current ring as (min distance squared << 32 | packed offset), nearest first
+    private final long[] ringColumns;
+    private int ring = -1;
+    private int ringSize;
+    private int ringPosition;
+    private boolean finished;
+    private int columnsVisited;
+
+    /**
+     * @param unindexedOut if not {@code null}, queued chunks are skipped and their keys added to it
+     *                     instead of being indexed on the spot
+     */
+    TreeSearchCursor(TreeIndex index, BlockPos origin, int radius, int minDy, int maxDy, int k,
+                     LongPredicate accept, LongArrayList unindexedOut) {
+        this.index = index;
+        this.originX = origin.getX();
+        this.originY = origin.getY();
+        this.originZ = origin.getZ();
+        this.originChunkX = originX >> 4;
+        this.originChunkZ = originZ >> 4;
+        this.minChunkX = (originX - radius) >> 4;
+        this.maxChunkX = (originX + radius) >> 4;
+        this.minChunkZ = (originZ - radius) >> 4;
+        this.maxChunkZ = (originZ + radius) >> 4;
+        this.maxRing = Math.max(
+            Math.max(originChunkX - minChunkX, maxChunkX - originChunkX),
+            Math.max(originChunkZ - minChunkZ, maxChunkZ - originChunkZ));
+        this.radius = radius;
+        this.minDy = minDy;
+        this.maxDy = maxDy;
+        this.k = k;
+        this.accept = accept;
+        this.unindexedOut = unindexedOut;
+        this.best = new long[k];
+        this.bestDistance = new long[k];
+        this.ringColumns = new long[Math.max(1, 8 * maxRing)];
+    }
+
+    /**
+     * Visit columns until the search finishes or a budget runs out.
+     *
+     * @param budgetNanos maximum time to spend in this call
+     * @param maxColumns  maximum number of chunk columns to visit in this call
+     * @return {@code true} once the search has finished
+     */
+    @Override
+    public boolean advance(long budgetNanos, int maxColumns) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int columns = 0;
+        while (!finished) {
+            if (ringPosition == ringSize && !startRing()) {
+                finished = true;
+                break;
+            }
+            long column = ringColumns[ringPosition++];
+            if (found == k && (column >>> 32) >= bestDistance[k - 1]) {
+                ringPosition = ringSize; // This and the rest of the ring are too far to beat the k-th best
+                continue;
+            }
+            visitColumn(originChunkX + (short) (column >> 16), originChunkZ + (short) column);
+            columnsVisited++;
+            if (++columns >= maxColumns || System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+        return finished;
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    TreeIndex index() {
+        return index;
+    }
+
+    /**
+     * True if queued chunks are skipped rather than indexed, so the cursor never writes to the index.
+     */
+    boolean skipsQueuedChunks() {
+        return unindexedOut != null;
+    }
+
+    int columnsVisited() {
+        return columnsVisited;
+    }
+
+    /**
+     * Bases found so far, nearest first. Final once {@link #isFinished()} returns {@code true}.
+     */
+    @Override
+    public long[] result() {
+        return found == k ? best.clone() : Arrays.copyOf(best, found);
+    }
+
+    // Move to the next ring, ordering its columns nearest first
+    // @return false if the search can stop before it
+    private boolean startRing() {
+        ring++;
+        if (ring > maxRing) {
+            return false;
+        }
+        // Stop once no column of this or any farther ring can beat the k-th best
+        if (found == k && ringMinDistanceSq(ring) >= bestDistance[k - 1]) {
+            return false;
+        }
+
+        ringSize = 0;
+        ringPosition = 0;
+        if (ring == 0) {
+            ringColumns[ringSize++] = 0;
+            return true;
+        }
+        for (int dx = -ring; dx <= ring; dx++) {
+            int step = Math.abs(dx) == ring ? 1 : 2 * ring; // Interior rows only have their two end cells on the ring
+            for (int dz = -ring; dz <= ring; dz += step) {
+                int chunkX = originChunkX + dx;
+                int chunkZ = originChunkZ + dz;
+                if (chunkX < minChunkX || chunkX > maxChunkX || chunkZ < minChunkZ || chunkZ > maxChunkZ) {
+                    continue;
+                }
+                long distance = columnMinDistanceSq(chunkX, chunkZ);
+                ringColumns[ringSize++] = distance << 32 | (dx & 0xFFFFL) << 16 | (dz & 0xFFFFL);
+            }
+        }
+        Arrays.sort(ringColumns, 0, ringSize);
+        return true;
+    }
+
+    // Squared horizontal distance from the origin to the nearest block of any column in the ring
+    private long ringMinDistanceSq(int ring) {
+        if (ring == 0) {
+            return 0;
+        }
+        int offsetX = originX & 15;
+        int offsetZ = originZ & 15;
+        // Blocks to the ring's inner edge on each side: -x, +x, -z, +z
+        long nearest = Math.min(
+            Math.min(16L * (ring - 1) + offsetX + 1, 16L * ring - offsetX),
+            Math.min(16L * (ring - 1) + offsetZ + 1, 16L * ring - offsetZ));
+        return nearest * nearest;
+    }
+
+    // Squared horizontal distance from the origin to the nearest block of a chunk column
+    private long columnMinDistanceSq(int chunkX, int chunkZ) {
+        long x = Math.max(0, Math.max((chunkX << 4) - originX, originX - ((chunkX << 4) + 15)));
+        long z = Math.max(0, Math.max((chunkZ << 4) - originZ, originZ - ((chunkZ << 4) + 15)));
+        return x * x + z * z;
+    }
+
+    private void visitColumn(int chunkX, int chunkZ) {
+        long chunkKey = ChunkPos.toLong(chunkX, chunkZ);
+        if (unindexedOut != null && index.isPending(chunkKey)) {
+            unindexedOut.add(chunkKey);
+            return;
+        }
+
+        LongOpenHashSet bases = index.basesForQuery(chunkKey);
+        if (bases == null || bases.isEmpty()) {
+            return;
+        }
+
+        LongIterator iterator = bases.iterator();
+        while (iterator.hasNext()) {
+            long packed = iterator.nextLong();
+            int x = BlockPos.unpackLongX(packed) - originX;
+            int y = BlockPos.unpackLongY(packed) - originY;
+            int z = BlockPos.unpackLongZ(packed) - originZ;
+            if (Math.abs(x) > radius || Math.abs(z) > radius || y < minDy || y > maxDy) {
+                continue;
+            }
+
+            long distance = (long) x * x + (long) y * y + (long) z * z;
+            if (found == k && distance >= bestDistance[k - 1]) {
+                continue;
+            }
+            if (!accept.test(packed)) {
+                continue;
+            }
+
+            // Insertion into the small sorted result arrays
+            int slot = found < k ? found++ : k - 1;
+            while (slot > 0 && bestDistance[slot - 1] > distance) {
+                best[slot] = best[slot - 1];
+                bestDistance[slot] = bestDistance[slot - 1];
+                slot--;
+            }
+            best[slot] = packed;
+            bestDistance[slot] = distance;
+        }
+    }
+}
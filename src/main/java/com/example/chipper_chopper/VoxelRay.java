@@ -0,0 +1,191 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+
+import java.util.Arrays;
+
+/**
+ * Voxel traversal of a ray segment (Amanatides &amp; Woo).
+ *
+ * Visits every block cell the segment passes through, exactly once and in order, from the cell
+ * holding the start point to the cell holding the end point. Each step costs a couple of
+ * comparisons and additions - no fixed sampling step, so no cell is skipped or read twice, and
+ * nothing is allocated per cell.
+ *
+ * Usage: {@code while (ray.next()) { read ray.x(), ray.y(), ray.z() }}.
+ */
+final class VoxelRay {
+    private static final int MEMO_SIZE = 256; // Power of two
+
+    private final int stepX, stepY, stepZ;
+    private final double deltaX, deltaY, deltaZ;
+    private final int endX, endY, endZ;
+    private double maxX, maxY, maxZ;
+    private int x, y, z;
+    private boolean started;
+
+    VoxelRay(double startX, double startY, double startZ, double endX, double endY, double endZ) {
+        this.x = MathHelper.floor(startX);
+        this.y = MathHelper.floor(startY);
+        this.z = MathHelper.floor(startZ);
+        this.endX = MathHelper.floor(endX);
+        this.endY = MathHelper.floor(endY);
+        this.endZ = MathHelper.floor(endZ);
+
+        double dx = endX - startX, dy = endY - startY, dz = endZ - startZ;
+        this.stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+        this.stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+        this.stepZ = dz > 0 ? 1 : dz < 0 ? -1 : 0;
+        // Ray parameter t runs from 0 (start) to 1 (end); delta is the t needed to cross one cell
+        this.deltaX = stepX != 0 ? Math.abs(1.0 / dx) : Double.POSITIVE_INFINITY;
+        this.deltaY = stepY != 0 ? Math.abs(1.0 / dy) : Double.POSITIVE_INFINITY;
+        this.deltaZ = stepZ != 0 ? Math.abs(1.0 / dz) : Double.POSITIVE_INFINITY;
+        this.maxX = boundary(startX, x, stepX, deltaX);
+        this.maxY = boundary(startY, y, stepY, deltaY);
+        this.maxZ = boundary(startZ, z, stepZ, deltaZ);
+    }
+
+    /**
+     * Move to the next cell along the ray.
+     *
+     * @return {@code false} once the end cell has been visited
+     */
+    boolean next() {
+        if (!started) {
+            started = true;
+            return true;
+        }
+        if (isEnd()) {
+            return false;
+        }
+
+        // Axes already level with the end cell are frozen, so rounding can never overshoot it
+        double tx = x != endX ? maxX : Double.POSITIVE_INFINITY;
+        double ty = y != endY ? maxY : Double.POSITIVE_INFINITY;
+        double tz = z != endZ ? maxZ : Double.POSITIVE_INFINITY;
+        if (tx <= ty && tx <= tz) {
+            x += stepX;
+            maxX += deltaX;
+        } else if (ty <= tz) {
+            y += stepY;
+            maxY += deltaY;
+        } else {
+            z += stepZ;
+            maxZ += deltaZ;
+        }
+        return true;
+    }
+
+    int x() {
+        return x;
+    }
+
+    int y() {
+        return y;
+    }
+
+    int z() {
+        return z;
+    }
+
+    boolean isEnd() {
+        return x == endX && y == endY && z == endZ;
+    }
+
+    private static double boundary(double start, int cell, int step, double delta) {
+        if (step > 0) return (cell + 1 - start) * delta;
+        if (step < 0) return (start - cell) * delta;
+        return Double.POSITIVE_INFINITY;
+    }
+
+    // === Sight lines ===
+
+    /**
+     * What lies on the sight line from a standing player to a block.
+     *
+     * @param firstLeaf    nearest leaf on the way, or {@code null}
+     * @param leafCount    leaf cells on the way
+     * @param firstBlocker nearest non-air block on the way other than the target, or {@code null}
+     */
+    record Trace(BlockPos firstLeaf, int leafCount, BlockPos firstBlocker) {
+        static final Trace CLEAR = new Trace(null, 0, null);
+
+        boolean isClear() {
+            return firstBlocker == null;
+        }
+    }
+
+    /**
+     * Trace from the eyes of a player standing at {@code from} to the centre of {@code to}. The
+     * player's own cell and the target cell are not counted as obstructions.
+     */
+    static Trace trace(BlockAccess blocks, BlockPos from, BlockPos to) {
+        VoxelRay ray = new VoxelRay(from.getX() + 0.5, from.getY() + 1.5, from.getZ() + 0.5,
+            to.getX() + 0.5, to.getY() + 0.5, to.getZ() + 0.5);
+        ray.next(); // Eye cell
+
+        BlockPos firstLeaf = null;
+        BlockPos firstBlocker = null;
+        int leafCount = 0;
+        while (ray.next() && !ray.isEnd()) {
+            BlockState state = blocks.getBlockState(ray.x, ray.y, ray.z);
+            if (state.isAir()) {
+                continue;
+            }
+            if (BlockClassifier.is(state, BlockClassifier.LEAF)) {
+                leafCount++;
+                if (firstLeaf == null) {
+                    firstLeaf = new BlockPos(ray.x, ray.y, ray.z);
+                }
+            }
+            if (firstBlocker == null) {
+                firstBlocker = new BlockPos(ray.x, ray.y, ray.z);
+            }
+        }
+        return firstBlocker == null ? Trace.CLEAR : new Trace(firstLeaf, leafCount, firstBlocker);
+    }
+
+    // PERFORMANCE OPTIMIZATION: Scoring, leaf clearing and line-of-sight checks ask about the same
+    // player/target pair several times per tick - remember the last traces of the current tick.
+    // Server thread only.
+    private static final World[] memoWorlds = new World[MEMO_SIZE];
+    private static final long[] memoTimes = new long[MEMO_SIZE];
+    private static final long[] memoFrom = new long[MEMO_SIZE];
+    private static final long[] memoTo = new long[MEMO_SIZE];
+    private static final Trace[] memoTraces = new Trace[MEMO_SIZE];
+
+    /**
+     * {@link #trace(BlockAccess, BlockPos, BlockPos)} on the live world, memoized for the current
+     * world tick. {@code blocks} must read from {@code world}. Must be called on the server thread.
+     */
+    static Trace trace(World world, BlockAccess blocks, BlockPos from, BlockPos to) {
+        long fromKey = from.asLong();
+        long toKey = to.asLong();
+        long time = world.getTime();
+        long h = (fromKey * 0x9E3779B97F4A7C15L) ^ (toKey * 0xC2B2AE3D27D4EB4FL);
+        int slot = (int) (h ^ (h >>> 32)) & (MEMO_SIZE - 1);
+
+        if (memoWorlds[slot] == world && memoTimes[slot] == time && memoFrom[slot] == fromKey && memoTo[slot] == toKey) {
+            return memoTraces[slot];
+        }
+        Trace trace = trace(blocks, from, to);
+        memoWorlds[slot] = world;
+        memoTimes[slot] = time;
+        memoFrom[slot] = fromKey;
+        memoTo[slot] = toKey;
+        memoTraces[slot] = trace;
+        return trace;
+    }
+
+    /**
+     * Drop memoized traces so stopped worlds can be collected.
+     */
+    static void onServerStopping(MinecraftServer server) {
+        Arrays.fill(memoWorlds, null);
+        Arrays.fill(memoTraces, null);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.chipper_chopper;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.function.Predicate;
+
+/**
+ * Allocation-free reader over the loaded chunks of a world.
+ *
+ * The cursor remembers the chunk and section of the previous read, so runs of nearby reads (a
+ * trunk, a flood fill, a ray) skip the chunk lookup and go straight to the section's container.
+ * Unloaded chunks and positions outside the build height read as air, like
+ * {@link ChunkSectionScanner#getLoadedBlockState}.
+ *
+ * Cursors are cheap, single-threaded and meant to live for one query: they may hold on to a
+ * chunk, so never keep one across ticks.
+ */
+final class WorldBlockCursor implements BlockAccess {
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final World world;
+    private final int bottomY;
+    private final int topY;
+
+    private int chunkX = Integer.MIN_VALUE;
+    private int chunkZ = Integer.MIN_VALUE;
+    private WorldChunk chunk;
+    private int sectionY = Integer.MIN_VALUE;
+    private ChunkSection section;
+
+    WorldBlockCursor(World world) {
+        this.world = world;
+        this.bottomY = world.getBottomY();
+        this.topY = bottomY + world.getHeight() - 1;
+    }
+
+    @Override
+    public BlockState getBlockState(int x, int y, int z) {
+        if (y < bottomY || y > topY) {
+            return AIR;
+        }
+
+        int cx = x >> 4;
+        int cz = z >> 4;
+        if (cx != chunkX || cz != chunkZ) {
+            chunk = world.getChunkManager().getWorldChunk(cx, cz); // Never loads
+            chunkX = cx;
+            chunkZ = cz;
+            sectionY = Integer.MIN_VALUE;
+        }
+        if (chunk == null) {
+            return AIR;
+        }
+
+        int sy = y >> 4;
+        if (sy != sectionY) {
+            section = chunk.getSectionArray()[chunk.getSectionIndex(y)];
+            sectionY = sy;
+        }
+        return section == null || section.isEmpty() ? AIR : section.getBlockState(x & 15, y & 15, z & 15);
+    }
+
+    @Override
+    public VoxelRay.Trace sightLine(BlockPos from, BlockPos to) {
+        return VoxelRay.trace(world, this, from, to);
+    }
+
+    @Override
+    public boolean scan(int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                        Predicate<BlockState> filter, ChunkSectionScanner.Visitor visitor) {
+        return ChunkSectionScanner.scan(world, minX, minY, minZ, maxX, maxY, maxZ, filter, visitor);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.chipper_chopper.mixin;
+
+import com.example.chipper_chopper.BlockChangeListener;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.chunk.WorldChunk;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * Reports block changes in loaded chunks so the tree index can stay up to date.
+ */
+@Mixin(WorldChunk.class)
+public abstract class WorldChunkMixin {
+
+    @Inject(method = "setBlockState", at = @At("RETURN"))
+    private void chipperChopper$onSetBlockState(BlockPos pos, BlockState state, boolean moved,
+                                                CallbackInfoReturnable<BlockState> cir) {
+        BlockState previous = cir.getReturnValue();
+        // A null return means nothing changed
+        if (previous != null && ((WorldChunk) (Object) this).getWorld() instanceof ServerWorld world) {
+            BlockChangeListener.onBlockChanged(world, pos, previous, state);
+        }
+    }
+}